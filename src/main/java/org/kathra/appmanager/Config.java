@@ -38,6 +38,45 @@ public class Config extends ConfigManager {
 
     private String imageRegistryHost;
     private boolean deleteZipFile;
+    private long indexResyncIntervalMs;
+
+    private String specStoreDirectory;
+    private long specStoreQuotaBytes;
+    private long specStoreMaxWaitMs;
+    private long specStoreGcIntervalMs;
+
+    private String sourceFileCacheDirectory;
+    private long sourceFileCacheMaxBytes;
+    private long sourceFileCacheBranchTtlMs;
+
+    private int entityCacheSize;
+    private long entityCacheTtlMs;
+    private long metricsReportIntervalMs;
+    private long workflowContextTtlMs;
+    private int fetchConcurrency;
+    private long patchWindowMs;
+    private int bulkheadMaxConcurrentCalls;
+    private long bulkheadMaxWaitMs;
+    private int circuitFailureRate;
+    private int circuitWindowSize;
+    private int circuitMinimumCalls;
+    private long circuitOpenMs;
+    private int circuitHalfOpenProbes;
+    private int retryMaxAttempts;
+    private long retryBaseDelayMs;
+    private long retryMaxDelayMs;
+    private int retryBudgetPercent;
+    private int retryBudgetMinPerSecond;
+    private int hedgePercentile;
+    private int hedgeBudgetPercent;
+    private int errorStoreMaxFingerprints;
+    private int errorStoreMaxResources;
+    private int errorStoreOccurrencesPerResource;
+    private long userInfoCacheMaxTtlMs;
+    private int userInfoCacheSize;
+    private int bulkConcurrency;
+    private int bulkMaxItems;
+    private long bulkItemTimeoutMs;
 
     private String userLogin;
     private String userPassword;
@@ -81,6 +120,45 @@ public class Config extends ConfigManager {
         userPassword = getProperty("PASSWORD");
 
         deleteZipFile = Boolean.valueOf(getProperty("KATHRA_APPMANAGER_DELETE_ZIP_FILE", "true"));
+        indexResyncIntervalMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_INDEX_RESYNC_INTERVAL_MS", "60000"));
+
+        specStoreDirectory = getProperty("KATHRA_APPMANAGER_SPEC_STORE_DIR", System.getProperty("java.io.tmpdir") + "/appmanager-specs");
+        specStoreQuotaBytes = Long.parseLong(getProperty("KATHRA_APPMANAGER_SPEC_STORE_QUOTA_BYTES", String.valueOf(512L * 1024 * 1024)));
+        specStoreMaxWaitMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_SPEC_STORE_MAX_WAIT_MS", "30000"));
+        specStoreGcIntervalMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_SPEC_STORE_GC_INTERVAL_MS", "60000"));
+
+        sourceFileCacheDirectory = getProperty("KATHRA_APPMANAGER_SOURCE_FILE_CACHE_DIR", System.getProperty("java.io.tmpdir") + "/appmanager-source-files");
+        sourceFileCacheMaxBytes = Long.parseLong(getProperty("KATHRA_APPMANAGER_SOURCE_FILE_CACHE_MAX_BYTES", String.valueOf(256L * 1024 * 1024)));
+        sourceFileCacheBranchTtlMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_SOURCE_FILE_CACHE_BRANCH_TTL_MS", "0"));
+
+        entityCacheSize = Integer.parseInt(getProperty("KATHRA_APPMANAGER_ENTITY_CACHE_SIZE", "1000"));
+        entityCacheTtlMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_ENTITY_CACHE_TTL_MS", "5000"));
+        metricsReportIntervalMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_METRICS_REPORT_INTERVAL_MS", "300000"));
+        workflowContextTtlMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_WORKFLOW_CONTEXT_TTL_MS", "600000"));
+        fetchConcurrency = Integer.parseInt(getProperty("KATHRA_APPMANAGER_FETCH_CONCURRENCY", "8"));
+        patchWindowMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_PATCH_WINDOW_MS", "50"));
+        bulkheadMaxConcurrentCalls = Integer.parseInt(getProperty("KATHRA_APPMANAGER_BULKHEAD_MAX_CONCURRENT_CALLS", "20"));
+        bulkheadMaxWaitMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_BULKHEAD_MAX_WAIT_MS", "1000"));
+        circuitFailureRate = Integer.parseInt(getProperty("KATHRA_APPMANAGER_CIRCUIT_FAILURE_RATE", "50"));
+        circuitWindowSize = Integer.parseInt(getProperty("KATHRA_APPMANAGER_CIRCUIT_WINDOW_SIZE", "20"));
+        circuitMinimumCalls = Integer.parseInt(getProperty("KATHRA_APPMANAGER_CIRCUIT_MINIMUM_CALLS", "10"));
+        circuitOpenMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_CIRCUIT_OPEN_MS", "30000"));
+        circuitHalfOpenProbes = Integer.parseInt(getProperty("KATHRA_APPMANAGER_CIRCUIT_HALF_OPEN_PROBES", "3"));
+        retryMaxAttempts = Integer.parseInt(getProperty("KATHRA_APPMANAGER_RETRY_MAX_ATTEMPTS", "3"));
+        retryBaseDelayMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_RETRY_BASE_DELAY_MS", "200"));
+        retryMaxDelayMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_RETRY_MAX_DELAY_MS", "2000"));
+        retryBudgetPercent = Integer.parseInt(getProperty("KATHRA_APPMANAGER_RETRY_BUDGET_PERCENT", "20"));
+        retryBudgetMinPerSecond = Integer.parseInt(getProperty("KATHRA_APPMANAGER_RETRY_BUDGET_MIN_PER_SECOND", "10"));
+        hedgePercentile = Integer.parseInt(getProperty("KATHRA_APPMANAGER_HEDGE_PERCENTILE", "0"));
+        hedgeBudgetPercent = Integer.parseInt(getProperty("KATHRA_APPMANAGER_HEDGE_BUDGET_PERCENT", "5"));
+        errorStoreMaxFingerprints = Integer.parseInt(getProperty("KATHRA_APPMANAGER_ERROR_STORE_MAX_FINGERPRINTS", "1000"));
+        errorStoreMaxResources = Integer.parseInt(getProperty("KATHRA_APPMANAGER_ERROR_STORE_MAX_RESOURCES", "10000"));
+        errorStoreOccurrencesPerResource = Integer.parseInt(getProperty("KATHRA_APPMANAGER_ERROR_STORE_OCCURRENCES_PER_RESOURCE", "10"));
+        userInfoCacheMaxTtlMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_USERINFO_CACHE_MAX_TTL_MS", "300000"));
+        userInfoCacheSize = Integer.parseInt(getProperty("KATHRA_APPMANAGER_USERINFO_CACHE_SIZE", "10000"));
+        bulkConcurrency = Integer.parseInt(getProperty("KATHRA_APPMANAGER_BULK_CONCURRENCY", "2"));
+        bulkMaxItems = Integer.parseInt(getProperty("KATHRA_APPMANAGER_BULK_MAX_ITEMS", "100"));
+        bulkItemTimeoutMs = Long.parseLong(getProperty("KATHRA_APPMANAGER_BULK_ITEM_TIMEOUT_MS", "1800000"));
     }
 
     public String getUserLogin() {
@@ -109,6 +187,150 @@ public class Config extends ConfigManager {
         return deleteZipFile;
     }
 
+    public long getIndexResyncIntervalMs() {
+        return indexResyncIntervalMs;
+    }
+
+    public String getSpecStoreDirectory() {
+        return specStoreDirectory;
+    }
+
+    public long getSpecStoreQuotaBytes() {
+        return specStoreQuotaBytes;
+    }
+
+    public long getSpecStoreMaxWaitMs() {
+        return specStoreMaxWaitMs;
+    }
+
+    public long getSpecStoreGcIntervalMs() {
+        return specStoreGcIntervalMs;
+    }
+
+    public String getSourceFileCacheDirectory() {
+        return sourceFileCacheDirectory;
+    }
+
+    public long getSourceFileCacheMaxBytes() {
+        return sourceFileCacheMaxBytes;
+    }
+
+    public long getSourceFileCacheBranchTtlMs() {
+        return sourceFileCacheBranchTtlMs;
+    }
+
+    public int getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    public long getEntityCacheTtlMs() {
+        return entityCacheTtlMs;
+    }
+
+    public long getMetricsReportIntervalMs() {
+        return metricsReportIntervalMs;
+    }
+
+    public long getWorkflowContextTtlMs() {
+        return workflowContextTtlMs;
+    }
+
+    public int getFetchConcurrency() {
+        return fetchConcurrency;
+    }
+
+    public long getPatchWindowMs() {
+        return patchWindowMs;
+    }
+
+    public int getBulkheadMaxConcurrentCalls() {
+        return bulkheadMaxConcurrentCalls;
+    }
+
+    public long getBulkheadMaxWaitMs() {
+        return bulkheadMaxWaitMs;
+    }
+
+    public int getCircuitFailureRate() {
+        return circuitFailureRate;
+    }
+
+    public int getCircuitWindowSize() {
+        return circuitWindowSize;
+    }
+
+    public int getCircuitMinimumCalls() {
+        return circuitMinimumCalls;
+    }
+
+    public long getCircuitOpenMs() {
+        return circuitOpenMs;
+    }
+
+    public int getCircuitHalfOpenProbes() {
+        return circuitHalfOpenProbes;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public long getRetryBaseDelayMs() {
+        return retryBaseDelayMs;
+    }
+
+    public long getRetryMaxDelayMs() {
+        return retryMaxDelayMs;
+    }
+
+    public int getRetryBudgetPercent() {
+        return retryBudgetPercent;
+    }
+
+    public int getRetryBudgetMinPerSecond() {
+        return retryBudgetMinPerSecond;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    public int getErrorStoreMaxFingerprints() {
+        return errorStoreMaxFingerprints;
+    }
+
+    public int getErrorStoreMaxResources() {
+        return errorStoreMaxResources;
+    }
+
+    public int getErrorStoreOccurrencesPerResource() {
+        return errorStoreOccurrencesPerResource;
+    }
+
+    public long getUserInfoCacheMaxTtlMs() {
+        return userInfoCacheMaxTtlMs;
+    }
+
+    public int getUserInfoCacheSize() {
+        return userInfoCacheSize;
+    }
+
+    public int getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+
+    public int getBulkMaxItems() {
+        return bulkMaxItems;
+    }
+
+    public long getBulkItemTimeoutMs() {
+        return bulkItemTimeoutMs;
+    }
+
     public String getPipelineManagerUrl() {
         return this.pipelineManagerUrl;
     }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.apiversion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable in-memory API specification.
+ *
+ * The uploaded file is read once, patched into a single exact-sized buffer and written once to its permanent location.
+ * Permanent files are registered so that every LibraryApiVersion of the fan-out shares the same buffer and the same
+ * decoded content instead of reading the file again.
+ *
+ * @author julien.boubechtoula
+ */
+public final class ApiSpec {
+
+    private static final byte[] GROUP_ID_TOKEN = "  x-groupId".getBytes(StandardCharsets.UTF_8);
+    private static final Map<String, ApiSpec> REGISTERED = new ConcurrentHashMap<>();
+
+    private final byte[] content;
+    private final long allocatedBytes;
+    private volatile String text;
+    private volatile String digest;
+
+    private ApiSpec(byte[] content, long allocatedBytes) {
+        this.content = content;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Read a file into a new specification
+     */
+    public static ApiSpec read(File file) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        return new ApiSpec(content, content.length);
+    }
+
+    /**
+     * Specification registered for this file, or read from disk if it isn't registered
+     */
+    public static ApiSpec of(File file) throws IOException {
+        ApiSpec registered = REGISTERED.get(file.getAbsolutePath());
+        return registered != null ? registered : read(file);
+    }
+
+    /**
+     * Forget the specification registered for this file
+     */
+    public static void release(File file) {
+        if (file != null) {
+            REGISTERED.remove(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Insert 'x-artifactName' before each 'x-groupId' of the info section, streaming over the buffer
+     */
+    public ApiSpec withArtifactName(String artifactName) {
+        byte[] insert = ("  x-artifactName: " + artifactName + "\n").getBytes(StandardCharsets.UTF_8);
+        int occurrences = 0;
+        for (int i = indexOf(content, GROUP_ID_TOKEN, 0); i >= 0; i = indexOf(content, GROUP_ID_TOKEN, i + GROUP_ID_TOKEN.length)) {
+            occurrences++;
+        }
+        if (occurrences == 0) {
+            return this;
+        }
+        byte[] patched = new byte[content.length + occurrences * insert.length];
+        int src = 0;
+        int dst = 0;
+        for (int i = indexOf(content, GROUP_ID_TOKEN, 0); i >= 0; i = indexOf(content, GROUP_ID_TOKEN, i + GROUP_ID_TOKEN.length)) {
+            System.arraycopy(content, src, patched, dst, i - src);
+            dst += i - src;
+            System.arraycopy(insert, 0, patched, dst, insert.length);
+            dst += insert.length;
+            src = i;
+        }
+        System.arraycopy(content, src, patched, dst, content.length - src);
+        return new ApiSpec(patched, allocatedBytes + patched.length);
+    }
+
+    /**
+     * Write the specification to the file and register it for later readers
+     */
+    public File writeTo(File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), content);
+        REGISTERED.put(file.getAbsolutePath(), this);
+        return file;
+    }
+
+    /**
+     * Content decoded once and shared by all readers
+     */
+    public String asString() {
+        String result = text;
+        if (result == null) {
+            synchronized (this) {
+                if (text == null) {
+                    text = new String(content, StandardCharsets.UTF_8);
+                }
+                result = text;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * SHA-256 of the content, hex encoded
+     */
+    public String sha256() {
+        if (digest == null) {
+            try {
+                StringBuilder hex = new StringBuilder();
+                for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                    hex.append(String.format("%02x", b));
+                }
+                digest = hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return digest;
+    }
+
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * Bytes allocated to build this specification (file buffer and patched buffer)
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private static int indexOf(byte[] data, byte[] token, int from) {
+        outer:
+        for (int i = from; i <= data.length - token.length; i++) {
+            for (int j = 0; j < token.length; j++) {
+                if (data[i + j] != token[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -24,6 +24,8 @@ import org.kathra.appmanager.implementationversion.ImplementationVersionService;
 import org.kathra.appmanager.library.LibraryService;
 import org.kathra.appmanager.libraryapiversion.LibraryApiVersionService;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.Joins;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.*;
@@ -34,13 +36,11 @@ import org.kathra.utils.KathraException;
 import org.kathra.utils.KathraSessionManager;
 import io.swagger.annotations.Api;
 import javassist.NotFoundException;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
@@ -59,6 +59,8 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     private LibraryService libraryService;
     private LibraryApiVersionService libraryApiVersionService;
     private ImplementationVersionService implementationVersionService;
+    private ResourceIndex<ApiVersion> apiVersionIndex;
+    private SpecStore specStore;
 
     public static final String METADATA_API_GROUP_ID = "artifact-groupId";
     public static final String METADATA_API_ARTIFACT_NAME = "artifact-artifactName";
@@ -66,6 +68,9 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     public static final String DEFAULT_BRANCH = "dev";
     public static final String API_FILENAME = "swagger.yaml";
 
+    private static final String INDEX_ARTIFACT = "artifact";
+    private static final String INDEX_COMPONENT_VERSION = "component-version";
+
     private static final Pattern PATTERN_NAME = Pattern.compile("^[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}$");
 
     public ApiVersionService() {
@@ -74,13 +79,17 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
 
     public void configure(ServiceInjection service) {
         super.configure(service);
-        this.resourceManager = new ApiVersionsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.resourceManager = service.getClient(ApiVersionsClient.class, service.getConfig().getResourceManagerUrl());
         this.sourceRepositoryService = service.getService(SourceRepositoryService.class);
         this.libraryService = service.getService(LibraryService.class);
         this.openApiParser = new OpenApiParser();
         this.componentService = service.getService(ComponentService.class);
         this.libraryApiVersionService = service.getService(LibraryApiVersionService.class);
         this.implementationVersionService = service.getService(ImplementationVersionService.class);
+        this.apiVersionIndex = buildIndex(service.getConfig().getIndexResyncIntervalMs());
+        this.specStore = SpecStore.forRoot(new File(service.getConfig().getSpecStoreDirectory()))
+                .quota(service.getConfig().getSpecStoreQuotaBytes(), service.getConfig().getSpecStoreMaxWaitMs())
+                .startGarbageCollector(service.getConfig().getSpecStoreGcIntervalMs());
     }
 
     public ApiVersionService(ApiVersionsClient resourceManager, ComponentService componentService, OpenApiParser openApiParser, LibraryService libraryService, LibraryApiVersionService libraryApiVersionService, SourceRepositoryService sourceRepositoryService, KathraSessionManager kathraSessionManager, ImplementationVersionService implementationVersionService) {
@@ -92,6 +101,14 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
         this.sourceRepositoryService = sourceRepositoryService;
         super.kathraSessionManager = kathraSessionManager;
         this.implementationVersionService = implementationVersionService;
+        this.apiVersionIndex = buildIndex(0);
+        this.specStore = SpecStore.forRoot(new File(System.getProperty("java.io.tmpdir"), "AppManager-Swagger"));
+    }
+
+    private ResourceIndex<ApiVersion> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<ApiVersion>("ApiVersion", () -> resourceManager.getApiVersions(), kathraSessionManager, resyncIntervalMs)
+                .addKey(INDEX_ARTIFACT, item -> item.getMetadata() == null ? null : ResourceIndex.compositeKey(item.getMetadata().get(METADATA_API_GROUP_ID), item.getMetadata().get(METADATA_API_ARTIFACT_NAME)))
+                .addKey(INDEX_COMPONENT_VERSION, item -> item.getComponent() == null ? null : ResourceIndex.compositeKey(item.getComponent().getId(), item.getVersion()));
     }
 
     public ApiVersion create(String componentId, File apiFile, Runnable callback) throws Exception {
@@ -126,12 +143,11 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
             throw new IllegalArgumentException(e.getMessage());
         }
 
+        ApiSpec apiSpec = ApiSpec.read(apiFile);
         if (!apiVersion.getMetadata().containsKey(METADATA_API_ARTIFACT_NAME) || StringUtils.isEmpty((String)apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME))) {
 
             // Add x-artifactName if not present
-            String swagger = FileUtils.readFileToString(apiFile, "UTF-8");
-            swagger = StringUtils.replace(swagger,"  x-groupId","  x-artifactName: "+componentWithDetails.getName().toLowerCase()+"\n  x-groupId");
-            FileUtils.writeStringToFile(apiFile, swagger, StandardCharsets.UTF_8,false);
+            apiSpec = apiSpec.withArtifactName(componentWithDetails.getName().toLowerCase());
 
             apiVersion.getMetadata().put(METADATA_API_ARTIFACT_NAME, componentWithDetails.getName().toLowerCase());
         }
@@ -150,25 +166,36 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
             throw new IllegalArgumentException("A another component '" + componentWithSameArtifactIdentifier.get().getId() + "' using the same groupId and artifactId");
         }
 
-        if (componentWithDetails.getMetadata() == null ||
-                !componentWithDetails.getMetadata().containsKey(ComponentService.METADATA_API_GROUP_ID) ||
-                !componentWithDetails.getMetadata().containsKey(ComponentService.METADATA_API_ARTIFACT_NAME)) {
-            componentService.patch(new Component().id(componentWithDetails.getId())
-                    .putMetadataItem(ComponentService.METADATA_API_GROUP_ID, apiVersion.getMetadata().get(METADATA_API_GROUP_ID))
-                    .putMetadataItem(ComponentService.METADATA_API_ARTIFACT_NAME, apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME)));
+        // take the file before any write, a full store fails the creation without leaving a PENDING record
+        File permApiFile = specStore.acquire(apiSpec);
+        if (!permApiFile.getName().equals(API_FILENAME)) {
+            specStore.release(permApiFile);
+            throw new ApiException("Filename is not '" + API_FILENAME + "'");
         }
 
         apiVersion.component(new Component().id(componentWithDetails.getId()));
         apiVersion.released(false);
         apiVersion.apiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.PENDING);
 
-        ApiVersion apiVersionWithId = resourceManager.addApiVersion(apiVersion);
+        final ApiVersion apiVersionWithId;
+        try {
+            if (componentWithDetails.getMetadata() == null ||
+                    !componentWithDetails.getMetadata().containsKey(ComponentService.METADATA_API_GROUP_ID) ||
+                    !componentWithDetails.getMetadata().containsKey(ComponentService.METADATA_API_ARTIFACT_NAME)) {
+                componentService.bufferPatch(new Component().id(componentWithDetails.getId())
+                        .putMetadataItem(ComponentService.METADATA_API_GROUP_ID, apiVersion.getMetadata().get(METADATA_API_GROUP_ID))
+                        .putMetadataItem(ComponentService.METADATA_API_ARTIFACT_NAME, apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME)));
+            }
+            apiVersionWithId = resourceManager.addApiVersion(apiVersion);
+        } catch (ApiException | RuntimeException e) {
+            specStore.release(permApiFile);
+            throw e;
+        }
+        apiVersionIndex.put(apiVersionWithId);
         final Session session = kathraSessionManager.getCurrentSession();
 
-        File permApiFile = tmpFileToPermanentFile(apiFile);
-        if (!permApiFile.getName().equals(API_FILENAME)) {
-            throw new ApiException("Filename is not '" + API_FILENAME + "'");
-        }
+        openWorkflow(apiVersionWithId);
+        logger.info("ApiVersion '" + apiVersionWithId.getId() + "' - api file ingested, " + apiSpec.size() + " bytes, " + apiSpec.getAllocatedBytes() + " bytes allocated");
         CompletableFuture.runAsync(() -> {
             this.kathraSessionManager.handleSession(session);
             createLibrariesApiVersionUpdateSourceAndBuild(apiVersionWithId, permApiFile, callback);
@@ -177,10 +204,26 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
         return apiVersionWithId;
     }
 
-    private File tmpFileToPermanentFile(File apiFile) throws IOException {
-        File tmpFile = new File(apiFile.getParentFile().getPath()+File.separator+"AppManager-Swagger_"+apiFile.getName()+File.separator+API_FILENAME);
-        FileUtils.copyFile(apiFile, tmpFile);
-        return tmpFile;
+    /**
+     * Check an API file for a new component : the file is valid and its artifact isn't used by another component
+     * (indexed view), the artifact's name defaults to the component's name
+     * @return ApiVersion described by the file
+     */
+    public ApiVersion checkNew(File apiFile, String componentName) throws ApiException {
+        final ApiVersion apiVersion;
+        try {
+            apiVersion = openApiParser.getApiVersionFromApiFile(apiFile);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        if (StringUtils.isEmpty((String) apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME)) && componentName != null) {
+            apiVersion.getMetadata().put(METADATA_API_ARTIFACT_NAME, componentName.toLowerCase());
+        }
+        checkApiVersionFromApiFile(apiVersion);
+        if (!getApiVersionByArtifact((String) apiVersion.getMetadata().get(METADATA_API_GROUP_ID), (String) apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME)).isEmpty()) {
+            throw new IllegalArgumentException("A another component using the same groupId and artifactId");
+        }
+        return apiVersion;
     }
 
     private void checkApiVersionFromApiFile(ApiVersion apiVersion) {
@@ -222,24 +265,25 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
             throw new IllegalArgumentException("ApiVersion and apiFile have different artifact's name. ApiVersion=" + apiVersion.getMetadata().get(METADATA_API_ARTIFACT_NAME) + " apiFile=" + apiVersionFromFile.getMetadata().get(METADATA_API_ARTIFACT_NAME));
         }
 
-        updateStatus(apiVersion, Resource.StatusEnum.UPDATING);
-
-        File permApiFile = tmpFileToPermanentFile(apiFile);
+        File permApiFile = specStore.acquire(ApiSpec.read(apiFile));
         if (!permApiFile.getName().equals(API_FILENAME)) {
+            specStore.release(permApiFile);
             throw new ApiException("Filename is not '" + API_FILENAME + "'");
         }
+
+        updateStatus(apiVersion, Resource.StatusEnum.UPDATING);
         final Session session = kathraSessionManager.getCurrentSession();
         CompletableFuture.runAsync(() -> {
             try {
                 kathraSessionManager.handleSession(session);
-                patch(apiVersion.apiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.UPDATING));
+                bufferPatch(apiVersion.apiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.UPDATING));
                 updateSwaggerFileIntoApiRepository(apiVersion, permApiFile);
                 for (LibraryApiVersion libraryApiVersion : apiVersion.getLibrariesApiVersions()) {
                     libraryApiVersionService.update(libraryApiVersion, permApiFile, () -> notifyWhenLibraryRepositoryIsUpdated(apiVersion, permApiFile, callback));
                 }
             } catch (Exception e) {
                 try {
-                    patch(apiVersion.apiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.ERROR));
+                    bufferPatch(apiVersion.apiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.ERROR));
                 } catch (ApiException e1) {
                     deleteApiFile(permApiFile);
                 }
@@ -256,9 +300,7 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     }
 
     private List<ApiVersion> getApiVersionByArtifact(String groupId, String artifactName) throws ApiException {
-        return this.resourceManager.getApiVersions().parallelStream().filter(item ->
-                artifactName.equals(item.getMetadata().get(METADATA_API_ARTIFACT_NAME)) &&
-                        groupId.equals(item.getMetadata().get(METADATA_API_GROUP_ID))).collect(Collectors.toList());
+        return apiVersionIndex.find(INDEX_ARTIFACT, ResourceIndex.compositeKey(groupId, artifactName));
     }
 
     private void createLibrariesApiVersionUpdateSourceAndBuild(ApiVersion apiVersion, File apiFile, Runnable callback) {
@@ -268,7 +310,7 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
             for (Library library : componentService.getById(apiVersion.getComponent().getId()).get().getLibraries()) {
                 librariesApiVersion.add(createLibraryApiVersion(apiVersion, library, apiFile, callback));
             }
-            patch(new ApiVersion().id(apiVersion.getId()).librariesApiVersions(librariesApiVersion));
+            bufferPatch(new ApiVersion().id(apiVersion.getId()).librariesApiVersions(librariesApiVersion));
         } catch (Exception e) {
             manageError(apiVersion, e);
             deleteApiFile(apiFile);
@@ -372,7 +414,7 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
                 logger.info("ApiVersion '" + apiVersion.getId() + "' - '" + apiVersion.getName() + "' - all libraries are updated and tagged to version " + apiVersion.getVersion());
 
                 apiVersionFromDb.setApiRepositoryStatus(ApiVersion.ApiRepositoryStatusEnum.READY);
-                patch(apiVersionFromDb);
+                bufferPatch(apiVersionFromDb);
                 deleteApiFile(apiFile);
 
                 apiVersionFromDb.librariesApiVersions(librariesApiVersionDetailed);
@@ -394,11 +436,7 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     }
 
     private void deleteApiFile(File apiFile) {
-        try {
-            FileUtils.deleteDirectory(apiFile.getParentFile());
-        } catch (IOException e1) {
-            e1.printStackTrace();
-        }
+        specStore.release(apiFile);
     }
 
     /**
@@ -593,7 +631,11 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
             return false;
         }
         logger.info("ApiVersion '" + apiVersion.getId() + "' - '" + apiVersion.getName() + "' - all libraries are updated and build");
-        updateStatus(apiVersion, Resource.StatusEnum.READY);
+        try {
+            updateStatus(apiVersion, Resource.StatusEnum.READY);
+        } finally {
+            closeWorkflow(apiVersion);
+        }
         if (apiVersionReadyCallback != null) {
             apiVersionReadyCallback.run();
         }
@@ -601,27 +643,27 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     }
 
     public Optional<ApiVersion> getApiVersion(Component component, String versionName) throws ApiException {
-        return this.resourceManager.getApiVersions().parallelStream().filter(item -> item.getComponent().getId().equals(component.getId()) &&
-                item.getVersion().equals(versionName)).findFirst();
+        return apiVersionIndex.findFirst(INDEX_COMPONENT_VERSION, ResourceIndex.compositeKey(component.getId(), versionName));
     }
 
     public List<ApiVersion> getApiVersions(List<Component> components) throws ApiException {
-        return (components == null || components.isEmpty()) ? new ArrayList<>() : this.resourceManager.getApiVersions()
-                .stream().filter(apiVersion -> components.stream().anyMatch(component -> apiVersion.getComponent().getId().equals(component.getId()))).collect(Collectors.toList());
+        return (components == null || components.isEmpty()) ? new ArrayList<>() : Joins.semiJoin(getAll(), apiVersion -> apiVersion.getComponent() == null ? null : apiVersion.getComponent().getId(), components, Component::getId);
     }
 
     public List<ApiVersion> getApiVersionsForImplementationVersion(List<ImplementationVersion> implementationVersions) throws ApiException {
-        return (implementationVersions == null || implementationVersions.isEmpty()) ? new ArrayList<>() : this.resourceManager.getApiVersions().stream().filter(apiVersion -> implementationVersions.stream().anyMatch(implementationVersion -> apiVersion.getId().equals(implementationVersion.getApiVersion().getId()))).collect(Collectors.toList());
+        return (implementationVersions == null || implementationVersions.isEmpty()) ? new ArrayList<>() : Joins.semiJoin(getAll(), ApiVersion::getId, implementationVersions, implementationVersion -> implementationVersion.getApiVersion() == null ? null : implementationVersion.getApiVersion().getId());
     }
 
     @Override
     protected void patch(ApiVersion object) throws ApiException {
         resourceManager.updateApiVersionAttributes(object.getId(), object);
+        invalidate(object.getId());
+        apiVersionIndex.merge(object);
     }
 
     @Override
     public Optional<ApiVersion> getById(String id) throws ApiException {
-        return Optional.of(resourceManager.getApiVersion(id));
+        return Optional.of(readThrough(id, resourceManager::getApiVersion));
     }
 
     @Override
@@ -632,6 +674,7 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
     public void delete(ApiVersion apiVersion, boolean purge, boolean force) throws ApiException {
 
         try {
+            flushPatches(apiVersion.getId());
             ApiVersion apiVersionToDeleted = resourceManager.getApiVersion(apiVersion.getId());
             if (isDeleted(apiVersionToDeleted)) {
                 return;
@@ -664,6 +707,8 @@ public class ApiVersionService extends AbstractResourceService<ApiVersion> {
                 throw exceptionFound.get();
             }
             resourceManager.deleteApiVersion(apiVersionToDeleted.getId());
+            invalidate(apiVersionToDeleted.getId());
+            apiVersionIndex.remove(apiVersionToDeleted.getId());
             apiVersion.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(apiVersion, e);
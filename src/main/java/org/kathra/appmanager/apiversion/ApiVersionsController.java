@@ -19,9 +19,9 @@
  */
 package org.kathra.appmanager.apiversion;
 
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.component.ComponentService;
 import org.kathra.appmanager.service.ApiVersionsService;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.ApiVersion;
@@ -57,7 +57,7 @@ public class ApiVersionsController implements ApiVersionsService {
     }
 
     public ApiVersionsController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.apiVersionService = serviceInjection.getService(ApiVersionService.class);
         this.componentService = serviceInjection.getService(ComponentService.class);
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
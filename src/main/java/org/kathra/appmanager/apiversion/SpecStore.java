@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.apiversion;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local store of API files keyed by content hash : '&lt;root&gt;/spec-&lt;sha256&gt;/swagger.yaml'.
+ *
+ * Each workflow acquires the file it works on and releases it when it is finished. Unreferenced files are deleted by a
+ * background garbage collector, as well as files held longer than the lease (interrupted workflows) and store's
+ * directories left by a previous process. Other files of the root directory are never touched. When the quota is
+ * exceeded, acquisitions wait for space before failing.
+ *
+ * One store is shared per root directory.
+ *
+ * @author julien.boubechtoula
+ */
+public class SpecStore {
+
+    private static final Map<String, SpecStore> STORES = new ConcurrentHashMap<>();
+    private static final String PREFIX = "spec-";
+
+    private final Logger logger = LoggerFactory.getLogger(SpecStore.class);
+
+    private final File root;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long quotaBytes = Long.MAX_VALUE;
+    private long maxWaitMs = 30000;
+    private long leaseMs = TimeUnit.HOURS.toMillis(24);
+    private long usedBytes;
+    private ScheduledExecutorService garbageCollector;
+
+    private static class Entry {
+        int references;
+        long size;
+        long lastAcquired;
+        boolean written;
+    }
+
+    private SpecStore(File root) {
+        this.root = root;
+    }
+
+    public static SpecStore forRoot(File root) {
+        return STORES.computeIfAbsent(root.getAbsolutePath(), path -> new SpecStore(new File(path)));
+    }
+
+    public synchronized SpecStore quota(long quotaBytes, long maxWaitMs) {
+        this.quotaBytes = quotaBytes;
+        this.maxWaitMs = maxWaitMs;
+        return this;
+    }
+
+    public synchronized SpecStore lease(long leaseMs) {
+        this.leaseMs = leaseMs;
+        return this;
+    }
+
+    /**
+     * Start the background garbage collector, once per store
+     */
+    public synchronized SpecStore startGarbageCollector(long intervalMs) {
+        if (garbageCollector == null && intervalMs > 0) {
+            garbageCollector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "spec-store-gc");
+                thread.setDaemon(true);
+                return thread;
+            });
+            garbageCollector.scheduleWithFixedDelay(this::collect, 0, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * Store the specification (if not already stored) and take a reference on it
+     *
+     * @return permanent file of the specification
+     */
+    public File acquire(ApiSpec apiSpec) throws IOException {
+        final String hash = apiSpec.sha256();
+        final File file = new File(root, PREFIX + hash + File.separator + ApiVersionService.API_FILENAME);
+        final Entry entry;
+        synchronized (this) {
+            Entry existing = entries.get(hash);
+            if (existing == null) {
+                waitForSpace(apiSpec.size());
+                existing = new Entry();
+                existing.size = apiSpec.size();
+                entries.put(hash, existing);
+                usedBytes += existing.size;
+            }
+            existing.references++;
+            existing.lastAcquired = System.currentTimeMillis();
+            entry = existing;
+        }
+        // concurrent acquirers of the same content wait for the first writer, without holding the store
+        synchronized (entry) {
+            try {
+                if (!entry.written || !file.exists()) {
+                    apiSpec.writeTo(file);
+                    entry.written = true;
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    entry.references--;
+                }
+                throw e;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Release a reference taken by {@link #acquire}, unknown files are ignored
+     */
+    public synchronized void release(File file) {
+        if (file == null || file.getParentFile() == null) {
+            return;
+        }
+        Entry entry = entries.get(hashOf(file));
+        if (entry != null && entry.references > 0 && file.getParentFile().getParentFile().getAbsolutePath().equals(root.getAbsolutePath())) {
+            entry.references--;
+        }
+    }
+
+    /**
+     * Delete unreferenced files, files held longer than the lease and orphan directories of the store
+     */
+    public void collect() {
+        long freed = 0;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                boolean leaked = entry.getValue().references > 0 && now - entry.getValue().lastAcquired > leaseMs;
+                if (entry.getValue().references == 0 || leaked) {
+                    if (leaked) {
+                        logger.warn("Spec " + entry.getKey() + " still referenced after lease, collected");
+                    }
+                    delete(new File(root, PREFIX + entry.getKey()));
+                    usedBytes -= entry.getValue().size;
+                    freed += entry.getValue().size;
+                    iterator.remove();
+                }
+            }
+            File[] directories = root.listFiles(file -> file.isDirectory() && file.getName().startsWith(PREFIX));
+            if (directories != null) {
+                for (File directory : directories) {
+                    if (!entries.containsKey(directory.getName().substring(PREFIX.length()))) {
+                        delete(directory);
+                    }
+                }
+            }
+            notifyAll();
+        }
+        if (freed > 0) {
+            logger.debug("Spec store GC freed " + freed + " bytes");
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getReferences(File file) {
+        Entry entry = entries.get(hashOf(file));
+        return entry == null ? 0 : entry.references;
+    }
+
+    private static String hashOf(File file) {
+        String directory = file.getParentFile().getName();
+        return directory.startsWith(PREFIX) ? directory.substring(PREFIX.length()) : null;
+    }
+
+    private void waitForSpace(long size) {
+        if (usedBytes + size <= quotaBytes) {
+            return;
+        }
+        collect();
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (usedBytes + size > quotaBytes) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Spec store quota exceeded (" + usedBytes + "/" + quotaBytes + " bytes used), retry later");
+            }
+            try {
+                wait(Math.min(remaining, 1000));
+                collect();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for spec store space");
+            }
+        }
+    }
+
+    private void delete(File directory) {
+        ApiSpec.release(new File(directory, ApiVersionService.API_FILENAME));
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            logger.error("Unable to delete " + directory, e);
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package org.kathra.appmanager.binaryrepository;
 
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.DownstreamClients;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.binaryrepositorymanager.model.Credential;
 import org.kathra.core.model.BinaryRepository;
@@ -52,19 +53,13 @@ public class BinaryRepositoryService extends AbstractResourceService<BinaryRepos
 
     public void configure(ServiceInjection service) {
         super.configure(service);
-        this.resourceManager = new BinaryRepositoriesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
-        this.client = new BinaryRepositoryManagerClient(service.getConfig().getBinaryManagerHarbor());
+        this.resourceManager = service.getClient(BinaryRepositoriesClient.class, service.getConfig().getResourceManagerUrl());
+        this.client = DownstreamClients.get(BinaryRepositoryManagerClient.class, service.getConfig().getBinaryManagerHarbor(), null);
     }
 
     public List<BinaryRepository> getBinaryRepositoryFromGroupAndType(Group group, BinaryRepository.TypeEnum type) {
-        return group.getBinaryRepositories().stream().map(binaryRepository -> {
-            try {
-                return resourceManager.getBinaryRepository(binaryRepository.getId());
-            } catch (ApiException e) {
-                e.printStackTrace();
-                return null;
-            }
-        }).filter(binaryRepository -> binaryRepository != null && type.equals(binaryRepository.getType())).collect(Collectors.toList());
+        return getAvailableByIds(group.getBinaryRepositories().stream().map(BinaryRepository::getId).collect(Collectors.toList()))
+                .stream().filter(binaryRepository -> type.equals(binaryRepository.getType())).collect(Collectors.toList());
     }
 
     public Credential getCredential(BinaryRepository binaryRepository) throws ApiException {
@@ -74,11 +69,12 @@ public class BinaryRepositoryService extends AbstractResourceService<BinaryRepos
     @Override
     protected void patch(BinaryRepository object) throws ApiException {
         client.updateBinaryRepositoryAttributes(object.getId(), object);
+        invalidate(object.getId());
     }
 
     @Override
     public Optional<BinaryRepository> getById(String id) throws ApiException {
-        BinaryRepository o = resourceManager.getBinaryRepository(id);
+        BinaryRepository o = readThrough(id, resourceManager::getBinaryRepository);
         return (o == null) ? Optional.empty() : Optional.of(o);
     }
 
@@ -20,10 +20,12 @@
 package org.kathra.appmanager.catalogentry;
 
 import org.apache.camel.cdi.ContextName;
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.catalogentrypackage.CatalogEntryPackageService;
 import org.kathra.appmanager.model.CatalogEntryTemplate;
 import org.kathra.appmanager.service.CatalogEntriesService;
+import org.kathra.appmanager.service.ListQuery;
+import org.kathra.appmanager.service.Page;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.*;
@@ -52,7 +54,7 @@ public class CatalogEntryController implements CatalogEntriesService {
     }
 
     public CatalogEntryController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.catalogEntryPackageService = serviceInjection.getService(CatalogEntryPackageService.class);
         this.catalogEntryService = serviceInjection.getService(CatalogEntryService.class);
     }
@@ -114,4 +116,20 @@ public class CatalogEntryController implements CatalogEntriesService {
     public List<CatalogEntryTemplate> getCatalogEntryTemplates() {
         return new CatalogEntryTemplates().getTemplates();
     }
+
+    /**
+     * Page of catalog entries, see {@link ListQuery} for the parameters
+     */
+    public Page<CatalogEntry> getCatalogEntriesPage(Map<String, Object> parameters) throws Exception {
+        Page<CatalogEntry> page = ListQuery.of(parameters).filters(parameters, ListQuery.resourceFields().keySet()).apply(catalogEntryService.getAll(), ListQuery.resourceFields());
+        addProviderIdPackages(page.getItems());
+        return page;
+    }
+
+    /**
+     * Page of catalog entry packages, see {@link ListQuery} for the parameters
+     */
+    public Page<CatalogEntryPackage> getCatalogEntryPackagesPage(Map<String, Object> parameters) throws Exception {
+        return ListQuery.of(parameters).filters(parameters, ListQuery.resourceFields().keySet()).apply(catalogEntryPackageService.getAll(), ListQuery.resourceFields());
+    }
 }
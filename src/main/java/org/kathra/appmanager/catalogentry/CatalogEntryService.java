@@ -30,6 +30,8 @@ import org.kathra.appmanager.implementation.ImplementationService;
 import org.kathra.appmanager.model.CatalogEntryTemplate;
 import org.kathra.appmanager.model.CatalogEntryTemplateArgument;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.Joins;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.catalogmanager.client.ReadCatalogEntriesClient;
 import org.kathra.core.model.*;
@@ -61,7 +63,10 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
     public static final String METADATA_GROUP_ID= "groupId";
     public static final String METADATA_TEMPLATE= "template";
 
+    private static final String INDEX_NAME = "name";
+
     private ReadCatalogEntriesClient catalogManager;
+    private ResourceIndex<CatalogEntry> catalogEntryIndex;
 
     public CatalogEntryService() {
 
@@ -69,23 +74,32 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
 
     public void configure(ServiceInjection service) {
         super.configure(service);
-        this.resourceManager = new CatalogEntriesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.resourceManager = service.getClient(CatalogEntriesClient.class, service.getConfig().getResourceManagerUrl());
         this.catalogEntryPackageService = service.getService(CatalogEntryPackageService.class);
         this.groupService = service.getService(GroupService.class);
         this.implementationService = service.getService(ImplementationService.class);
         this.catalogEntryTemplates = new CatalogEntryTemplates();
-        this.catalogManager = new ReadCatalogEntriesClient(service.getConfig().getCatalogManagerUrl(), service.getSessionManager());
+        this.catalogManager = service.getClient(ReadCatalogEntriesClient.class, service.getConfig().getCatalogManagerUrl());
+        this.catalogEntryIndex = buildIndex(service.getConfig().getIndexResyncIntervalMs());
     }
     public CatalogEntryService(CatalogEntriesClient resourceManager, CatalogEntryPackageService catalogEntryPackageService, KathraSessionManager kathraSessionManager) {
         this.resourceManager = resourceManager;
         super.kathraSessionManager = kathraSessionManager;
         this.catalogEntryPackageService = catalogEntryPackageService;
         this.catalogEntryTemplates = new CatalogEntryTemplates();
+        this.catalogEntryIndex = buildIndex(0);
+    }
+
+    private ResourceIndex<CatalogEntry> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<CatalogEntry>("CatalogEntry", () -> resourceManager.getCatalogEntries(), kathraSessionManager, resyncIntervalMs)
+                .addKey(INDEX_NAME, CatalogEntry::getName);
     }
 
     @Override
     protected void patch(CatalogEntry object) throws ApiException {
         resourceManager.updateCatalogEntryAttributes(object.getId(), object);
+        invalidate(object.getId());
+        catalogEntryIndex.merge(object);
     }
 
     protected void delete(CatalogEntry object) throws ApiException {
@@ -94,7 +108,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
 
     @Override
     public Optional<CatalogEntry> getById(String id) throws ApiException {
-        CatalogEntry o = resourceManager.getCatalogEntry(id);
+        CatalogEntry o = readThrough(id, resourceManager::getCatalogEntry);
         return (o == null) ? Optional.empty() : Optional.of(o);
     }
 
@@ -102,7 +116,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
     public List<CatalogEntry> getAll() throws ApiException {
         List<CatalogEntry> fromDb = getAllFromDb();
         List<CatalogEntry> merged = new ArrayList<>(fromDb);
-        List<CatalogEntry> missingFromDb = getAllFromManager().parallelStream().filter(e -> fromDb.parallelStream().noneMatch(e2 -> e2.getName().equals(e.getName()))).collect(Collectors.toList());
+        List<CatalogEntry> missingFromDb = Joins.antiJoin(getAllFromManager(), CatalogEntry::getName, fromDb, CatalogEntry::getName);
         merged.addAll(missingFromDb);
         return merged;
     }
@@ -123,6 +137,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
 
     public CatalogEntryService(CatalogEntriesClient resourceManager) {
         this.resourceManager = resourceManager;
+        this.catalogEntryIndex = buildIndex(0);
     }
 
     private void validateTemplate(CatalogEntryTemplate template) {
@@ -158,14 +173,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
     }
 
     private List<CatalogEntryPackage> getCatalogEntryPackagesWithDetails(CatalogEntry catalogEntry) {
-        return catalogEntry.getPackages().stream().map(catalogEntryPackage -> {
-                    try {
-                        return this.catalogEntryPackageService.getById(catalogEntryPackage.getId());
-                    } catch (ApiException e) {
-                        e.printStackTrace();
-                        return null;
-                    }
-                }).filter(catalogEntryPackage -> catalogEntryPackage != null && catalogEntryPackage.isPresent()).map(Optional::get).collect(Collectors.toList());
+        return this.catalogEntryPackageService.getAvailableByIds(catalogEntry.getPackages().stream().map(CatalogEntryPackage::getId).collect(Collectors.toList()));
     }
 
     private List<CatalogEntryPackage> createPackagesFromDockerImage(String imageRegistry, String imageName, String imageTag, CatalogEntry catalogEntry, Group group) {
@@ -217,7 +225,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
     }
 
     public Optional<CatalogEntry> getByName(String name) throws ApiException {
-        return resourceManager.getCatalogEntries().stream().filter(c -> name.equals(c.getName())).findFirst();
+        return catalogEntryIndex.findFirst(INDEX_NAME, name);
     }
 
     public CatalogEntry create(CatalogEntryTemplate template) throws ApiException {
@@ -278,6 +286,7 @@ public class CatalogEntryService extends AbstractResourceService<CatalogEntry> {
         try {
 
             final CatalogEntry catalogEntryAdded = resourceManager.addCatalogEntry(catalogEntryToAdd);
+            catalogEntryIndex.put(catalogEntryAdded);
             try {
                 if (StringUtils.isEmpty(catalogEntryAdded.getId())) {
                     throw new IllegalStateException("Component's id should be defined");
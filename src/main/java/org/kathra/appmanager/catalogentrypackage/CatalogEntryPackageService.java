@@ -33,6 +33,7 @@ import org.kathra.appmanager.codegen.CodeGenProxyService;
 import org.kathra.appmanager.group.GroupService;
 import org.kathra.appmanager.pipeline.PipelineService;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.Joins;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.catalogmanager.client.ReadCatalogEntriesClient;
@@ -96,14 +97,14 @@ public class CatalogEntryPackageService extends AbstractResourceService<CatalogE
     public void configure(ServiceInjection service) {
         super.configure(service);
         this.config = service.getConfig();
-        this.resourceManager = new CatalogEntryPackagesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.resourceManager = service.getClient(CatalogEntryPackagesClient.class, service.getConfig().getResourceManagerUrl());
         this.codeGenProxyService = service.getService(CodeGenProxyService.class);
         this.pipelineService = service.getService(PipelineService.class);
         this.sourceRepositoryService = service.getService(SourceRepositoryService.class);
         this.binaryRepositoryService = service.getService(BinaryRepositoryService.class);
         this.catalogEntryService = service.getService(CatalogEntryService.class);
         this.groupService = service.getService(GroupService.class);
-        this.catalogManager = new ReadCatalogEntriesClient(service.getConfig().getCatalogManagerUrl(), service.getSessionManager());
+        this.catalogManager = service.getClient(ReadCatalogEntriesClient.class, service.getConfig().getCatalogManagerUrl());
         this.catalogPackageHelm = new CatalogPackageHelm(config, binaryRepositoryService);
         this.catalogEntryUtils = new CatalogEntryUtils(kathraSessionManager, binaryRepositoryService, catalogEntryService, this, null);
     }
@@ -111,12 +112,13 @@ public class CatalogEntryPackageService extends AbstractResourceService<CatalogE
     @Override
     protected void patch(CatalogEntryPackage object) throws ApiException {
         resourceManager.updateCatalogEntryPackageAttributes(object.getId(), object);
+        invalidate(object.getId());
     }
 
 
     @Override
     public Optional<CatalogEntryPackage> getById(String id) throws ApiException {
-        CatalogEntryPackage o = resourceManager.getCatalogEntryPackage(id);
+        CatalogEntryPackage o = readThrough(id, resourceManager::getCatalogEntryPackage);
         return (o == null) ? Optional.empty() : Optional.of(o);
     }
     public List<CatalogEntryPackage> getAllFromDb() throws ApiException {
@@ -150,16 +152,13 @@ public class CatalogEntryPackageService extends AbstractResourceService<CatalogE
         // MERGE DATA FROM SEVERAL SOURCES
         ConcurrentHashMap<String,BinaryRepository> binaryRepositories = new ConcurrentHashMap();
         ConcurrentHashMap<String,CatalogEntry> catalogEntries = new ConcurrentHashMap();
+        final CatalogEntryUtils.ResourceManagerEntries resourceManagerEntries = new CatalogEntryUtils.ResourceManagerEntries(allEntriesPackagesFromResourceManager);
         allPackagesEntries = allEntriesPackagesFromCatalogManager.parallelStream().map(entry -> {
             kathraSessionManager.handleSession(session);
-            return this.catalogEntryUtils.enrichWithResourceManager(entry, allEntriesPackagesFromResourceManager, binaryRepositories, catalogEntries);
+            return this.catalogEntryUtils.enrichWithResourceManager(entry, resourceManagerEntries, binaryRepositories, catalogEntries);
         }).collect(Collectors.toList());
 
-        List<CatalogEntryPackage> missingFromCatalogManager = allEntriesPackagesFromResourceManager .parallelStream()
-                                                                                            .filter(entry -> allPackagesEntries.parallelStream()
-                                                                                            .map(CatalogEntryPackage::getProviderId)
-                                                                                            .noneMatch(providerId -> providerId.equals(entry.getProviderId())))
-                                                                                            .collect(Collectors.toList());
+        List<CatalogEntryPackage> missingFromCatalogManager = Joins.antiJoin(allEntriesPackagesFromResourceManager, CatalogEntryPackage::getProviderId, allPackagesEntries, CatalogEntryPackage::getProviderId);
 
         allPackagesEntries.addAll(missingFromCatalogManager);
         allPackagesEntries.parallelStream().forEach(catalogEntryPackage -> {
@@ -288,20 +287,20 @@ public class CatalogEntryPackageService extends AbstractResourceService<CatalogE
         String pathPipeline = group.getPath() + "/packages/" + catalogEntryPackage.getName();
         Pipeline pipeline = pipelineService.create(catalogEntryPackage.getName(), pathPipeline, sourceRepository.get(), pipelineTemplate, deployKey, callback, extra);
         catalogEntryPackage.pipeline(pipeline);
-        this.patch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).pipeline(pipeline));
+        bufferPatch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).pipeline(pipeline));
     }
 
     private void initSourceRepository(CatalogEntryPackage catalogEntryPackage, Group group, Runnable callback) throws ApiException {
         String[] deployKeys = {(String) catalogEntryPackage.getMetadata().get(METADATA_DEPLOY_KEY)};
         SourceRepository sourceRepository = sourceRepositoryService.create(catalogEntryPackage.getName(), group.getPath() + "/packages/" + catalogEntryPackage.getName(), deployKeys, callback);
         catalogEntryPackage.sourceRepository(sourceRepository);
-        this.patch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).sourceRepository(sourceRepository));
+        bufferPatch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).sourceRepository(sourceRepository));
     }
 
     public Build build(CatalogEntryPackage catalogEntryPackage, String branch, Map<String, String> extraArgs, Consumer<CatalogEntryPackage> onSuccess) throws ApiException {
         Pipeline pipeline = pipelineService.getById(catalogEntryPackage.getPipeline().getId()).get();
         Build build = pipelineService.build(pipeline, branch, extraArgs, () -> onBuildDone(catalogEntryPackage, onSuccess));
-        patch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).putMetadataItem("LATEST_BUILD_ID", build.getBuildNumber()));
+        bufferPatch(new CatalogEntryPackage().id(catalogEntryPackage.getId()).putMetadataItem("LATEST_BUILD_ID", build.getBuildNumber()));
         return build;
     }
 
@@ -346,7 +345,8 @@ public class CatalogEntryPackageService extends AbstractResourceService<CatalogE
         List<CatalogEntryPackage> allEntriesFromResourceManager = this.resourceManager.getCatalogEntryPackages();
         ConcurrentHashMap<String,BinaryRepository> binaryRepositories = new ConcurrentHashMap();
         ConcurrentHashMap<String,CatalogEntry> catalogEntries = new ConcurrentHashMap();
-        entryWithVersions.parallelStream().map(entry -> this.catalogEntryUtils.enrichWithResourceManager(entry, allEntriesFromResourceManager, binaryRepositories, catalogEntries)).collect(Collectors.toList());
+        final CatalogEntryUtils.ResourceManagerEntries resourceManagerEntries = new CatalogEntryUtils.ResourceManagerEntries(allEntriesFromResourceManager);
+        entryWithVersions.parallelStream().map(entry -> this.catalogEntryUtils.enrichWithResourceManager(entry, resourceManagerEntries, binaryRepositories, catalogEntries)).collect(Collectors.toList());
         return entryWithVersions;
     }
 
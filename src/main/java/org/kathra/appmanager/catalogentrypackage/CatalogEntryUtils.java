@@ -22,6 +22,7 @@ package org.kathra.appmanager.catalogentrypackage;
 
 import org.kathra.appmanager.binaryrepository.BinaryRepositoryService;
 import org.kathra.appmanager.catalogentry.CatalogEntryService;
+import org.kathra.appmanager.service.Joins;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.BinaryRepository;
 import org.kathra.core.model.CatalogEntry;
@@ -33,9 +34,11 @@ import org.kathra.utils.Session;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class CatalogEntryUtils {
 
@@ -45,6 +48,20 @@ public class CatalogEntryUtils {
     private CatalogEntryPackageService catalogEntryPackageService;
     private SourceRepositoryService sourceRepositoryService;
 
+    /**
+     * Packages from the resource manager hashed once by providerId, those without providerId are kept apart to be reconciled
+     */
+    public static class ResourceManagerEntries {
+        private final Map<String, CatalogEntryPackage> byProviderId;
+        private final List<CatalogEntryPackage> withoutProviderId;
+
+        public ResourceManagerEntries(List<CatalogEntryPackage> entriesFromResourceManager) {
+            List<CatalogEntryPackage> entries = entriesFromResourceManager == null ? List.of() : entriesFromResourceManager.stream().filter(Objects::nonNull).collect(Collectors.toList());
+            this.byProviderId = Joins.index(entries, CatalogEntryPackage::getProviderId);
+            this.withoutProviderId = entries.stream().filter(entry -> entry.getProviderId() == null).collect(Collectors.toList());
+        }
+    }
+
     public CatalogEntryUtils(KathraSessionManager kathraSessionManager, BinaryRepositoryService binaryRepositoryService, CatalogEntryService catalogEntryService, CatalogEntryPackageService catalogEntryPackageService, SourceRepositoryService sourceRepositoryService) {
         this.kathraSessionManager = kathraSessionManager;
         this.binaryRepositoryService = binaryRepositoryService;
@@ -54,6 +71,10 @@ public class CatalogEntryUtils {
     }
 
     public CatalogEntryPackageVersion enrichWithResourceManager(CatalogEntryPackageVersion catalogEntryPackageVersion, List<CatalogEntryPackage> entriesFromResourceManager, ConcurrentHashMap<String, BinaryRepository> binaryRepositories, ConcurrentHashMap<String, CatalogEntry> catalogEntries) {
+        return enrichWithResourceManager(catalogEntryPackageVersion, new ResourceManagerEntries(entriesFromResourceManager), binaryRepositories, catalogEntries);
+    }
+
+    public CatalogEntryPackageVersion enrichWithResourceManager(CatalogEntryPackageVersion catalogEntryPackageVersion, ResourceManagerEntries entriesFromResourceManager, ConcurrentHashMap<String, BinaryRepository> binaryRepositories, ConcurrentHashMap<String, CatalogEntry> catalogEntries) {
         return catalogEntryPackageVersion.catalogEntryPackage(enrichWithResourceManager(catalogEntryPackageVersion.getCatalogEntryPackage(), entriesFromResourceManager, binaryRepositories, catalogEntries));
     }
 
@@ -79,12 +100,16 @@ public class CatalogEntryUtils {
 
             if (catalogEntryPackageManager.getCatalogEntry().getName().equals(catalogEntryDb.getName())) {
                 catalogEntryPackageDb.setProviderId(catalogEntryPackageManager.getProviderId());
-                catalogEntryPackageService.patch(new CatalogEntryPackage().id(catalogEntryPackageDb.getId()).providerId(catalogEntryPackageDb.getProviderId()));
+                catalogEntryPackageService.bufferPatch(new CatalogEntryPackage().id(catalogEntryPackageDb.getId()).providerId(catalogEntryPackageDb.getProviderId()));
             }
         }
     }
 
     public CatalogEntryPackage enrichWithResourceManager(CatalogEntryPackage catalogEntryPackage, List<CatalogEntryPackage> entriesFromResourceManager, ConcurrentHashMap<String, BinaryRepository> binaryRepositoriesCache, ConcurrentHashMap<String, CatalogEntry> catalogEntriesCache) {
+        return enrichWithResourceManager(catalogEntryPackage, new ResourceManagerEntries(entriesFromResourceManager), binaryRepositoriesCache, catalogEntriesCache);
+    }
+
+    public CatalogEntryPackage enrichWithResourceManager(CatalogEntryPackage catalogEntryPackage, ResourceManagerEntries entriesFromResourceManager, ConcurrentHashMap<String, BinaryRepository> binaryRepositoriesCache, ConcurrentHashMap<String, CatalogEntry> catalogEntriesCache) {
         if (binaryRepositoriesCache == null)
             binaryRepositoriesCache = new ConcurrentHashMap();
         if (catalogEntriesCache == null)
@@ -93,22 +118,23 @@ public class CatalogEntryUtils {
         final Session session = kathraSessionManager.getCurrentSession();
         ConcurrentHashMap<String, BinaryRepository> finalBinaryRepositories = binaryRepositoriesCache;
         ConcurrentHashMap<String, CatalogEntry> finalCatalogEntries = catalogEntriesCache;
-        Optional<CatalogEntryPackage> fromResourceManager = entriesFromResourceManager.parallelStream()
-                .filter(Objects::nonNull)
-                .filter(entry -> {
-                    String providerId = entry.getProviderId();
-                    kathraSessionManager.handleSession(session);
-                    if (providerId == null) {
-                        try {
-                            // If providerId is null, try de reconcile identifiers between BinaryRepositoryManager and ResourceManager with Url and Name
-                            tryToReconcileDbWithManager(entry, catalogEntryPackage, finalBinaryRepositories, finalCatalogEntries);
-                            providerId = entry.getProviderId();
-                        } catch (ApiException e) {
-                            e.printStackTrace();
+        Optional<CatalogEntryPackage> fromResourceManager = Optional.ofNullable(catalogEntryPackage.getProviderId()).map(entriesFromResourceManager.byProviderId::get);
+        if (fromResourceManager.isEmpty()) {
+            // only entries without providerId have to be scanned
+            fromResourceManager = entriesFromResourceManager.withoutProviderId.parallelStream()
+                    .filter(entry -> {
+                        kathraSessionManager.handleSession(session);
+                        if (entry.getProviderId() == null) {
+                            try {
+                                // If providerId is null, try de reconcile identifiers between BinaryRepositoryManager and ResourceManager with Url and Name
+                                tryToReconcileDbWithManager(entry, catalogEntryPackage, finalBinaryRepositories, finalCatalogEntries);
+                            } catch (ApiException e) {
+                                e.printStackTrace();
+                            }
                         }
-                    }
-                    return providerId != null && providerId.equals(catalogEntryPackage.getProviderId());
-                }).findFirst();
+                        return entry.getProviderId() != null && entry.getProviderId().equals(catalogEntryPackage.getProviderId());
+                    }).findFirst();
+        }
         if (fromResourceManager.isEmpty()) {
             return catalogEntryPackage;
         }
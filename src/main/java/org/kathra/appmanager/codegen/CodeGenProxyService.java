@@ -23,6 +23,7 @@ package org.kathra.appmanager.codegen;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Triple;
+import org.kathra.appmanager.service.DownstreamClients;
 import org.kathra.appmanager.service.Injectable;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.codegen.client.CodegenClient;
@@ -41,7 +42,7 @@ public class CodeGenProxyService implements Injectable {
 
     public void configure(ServiceInjection serviceInjection) {
         kathraSessionManager = serviceInjection.getSessionManager();
-        providers = ImmutableMap.of("SWAGGER",new CodegenClient(serviceInjection.getConfig().getCodegenUrlSwagger()), "HELM", new CodegenClient(serviceInjection.getConfig().getCodegenUrlHelm()));
+        providers = ImmutableMap.of("SWAGGER",DownstreamClients.get(CodegenClient.class, serviceInjection.getConfig().getCodegenUrlSwagger(), null), "HELM", DownstreamClients.get(CodegenClient.class, serviceInjection.getConfig().getCodegenUrlHelm(), null));
     }
 
     public CodeGenProxyService() {
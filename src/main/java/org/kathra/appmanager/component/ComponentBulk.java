@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.component;
+
+import org.apache.commons.lang3.StringUtils;
+import org.kathra.appmanager.apiversion.ApiVersionService;
+import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.ServiceInjection;
+import org.kathra.appmanager.service.WorkQueue;
+import org.kathra.appmanager.service.WorkflowContext;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+import org.kathra.core.model.Group;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bulk creation of components, each with its first API version (optional).
+ *
+ * The whole batch is checked against the indexed views before anything is created : invalid items and duplicates
+ * within the batch are rejected, then the records of the valid items are added. The downstream work of each component
+ * (API repository, libraries, then its API version) is scheduled on the shared {@link WorkQueue} : a worker is held
+ * until the component is READY (or in ERROR, or the item's timeout) so that at most 'concurrency' components are
+ * provisioned at once. The worker is bound to the workflow context of its component.
+ *
+ * @author julien.boubechtoula
+ */
+public class ComponentBulk {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String REJECTED = "REJECTED";
+
+    private static final long POLL_MS = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(ComponentBulk.class);
+
+    /**
+     * Component to create (name, title, description and metadata 'groupPath') with the content of its API file
+     */
+    public static class Item {
+        private Component component;
+        private String openApi;
+
+        public Component getComponent() {
+            return component;
+        }
+
+        public void setComponent(Component component) {
+            this.component = component;
+        }
+
+        public Item component(Component component) {
+            this.component = component;
+            return this;
+        }
+
+        public String getOpenApi() {
+            return openApi;
+        }
+
+        public void setOpenApi(String openApi) {
+            this.openApi = openApi;
+        }
+
+        public Item openApi(String openApi) {
+            this.openApi = openApi;
+            return this;
+        }
+    }
+
+    public static class Result {
+        private final String name;
+        private final String status;
+        private final String error;
+        private final Component component;
+
+        private Result(String name, String status, String error, Component component) {
+            this.name = name;
+            this.status = status;
+            this.error = error;
+            this.component = component;
+        }
+
+        static Result accepted(Component component) {
+            return new Result(component.getName(), ACCEPTED, null, component);
+        }
+
+        static Result rejected(String name, Exception e) {
+            return new Result(name, REJECTED, e.getMessage(), null);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Component added (status PENDING), null if rejected
+         */
+        public Component getComponent() {
+            return component;
+        }
+    }
+
+    private static class Checked {
+        private final int position;
+        private final Component component;
+        private final Group group;
+        private final File apiFile;
+
+        Checked(int position, Component component, Group group, File apiFile) {
+            this.position = position;
+            this.component = component;
+            this.group = group;
+            this.apiFile = apiFile;
+        }
+    }
+
+    private final ComponentService componentService;
+    private final ApiVersionService apiVersionService;
+    private final KathraSessionManager kathraSessionManager;
+    private final WorkQueue workQueue;
+    private final int maxItems;
+    private final long itemTimeoutMs;
+
+    public ComponentBulk(ServiceInjection serviceInjection) {
+        this(serviceInjection.getService(ComponentService.class),
+                serviceInjection.getService(ApiVersionService.class),
+                serviceInjection.getSessionManager(),
+                WorkQueue.getDefault(),
+                serviceInjection.getConfig().getBulkMaxItems(),
+                serviceInjection.getConfig().getBulkItemTimeoutMs());
+    }
+
+    public ComponentBulk(ComponentService componentService, ApiVersionService apiVersionService, KathraSessionManager kathraSessionManager, WorkQueue workQueue, int maxItems, long itemTimeoutMs) {
+        this.componentService = componentService;
+        this.apiVersionService = apiVersionService;
+        this.kathraSessionManager = kathraSessionManager;
+        this.workQueue = workQueue;
+        this.maxItems = maxItems;
+        this.itemTimeoutMs = itemTimeoutMs;
+    }
+
+    /**
+     * Check the batch, add the components' records and schedule their downstream work
+     * @return result of each item, in the order of the items
+     */
+    public List<Result> create(List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        } else if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Too many items (" + items.size() + "), at most " + maxItems + " per batch");
+        }
+        final Result[] results = new Result[items.size()];
+        final List<Checked> checked = new ArrayList<>();
+        final Set<String> components = new HashSet<>();
+        final Set<String> artifacts = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            final Item item = items.get(i);
+            final Component component = item == null ? null : item.getComponent();
+            File apiFile = null;
+            try {
+                if (component == null) {
+                    throw new IllegalArgumentException("Component is null");
+                } else if (component.getMetadata() == null || !(component.getMetadata().get(ComponentService.METADATA_GROUP_PATH) instanceof String)) {
+                    throw new IllegalArgumentException("Metadata " + ComponentService.METADATA_GROUP_PATH + " should be defined into Component");
+                }
+                final String groupPath = (String) component.getMetadata().get(ComponentService.METADATA_GROUP_PATH);
+                final Group group = componentService.checkNew(component, groupPath);
+                if (!components.add(groupPath + "/" + component.getName())) {
+                    throw new IllegalArgumentException("Component '" + component.getName() + "' defined twice in the batch");
+                }
+                if (StringUtils.isNotEmpty(item.getOpenApi())) {
+                    apiFile = Files.createTempFile("bulk-", "-" + ApiVersionService.API_FILENAME).toFile();
+                    Files.write(apiFile.toPath(), item.getOpenApi().getBytes(StandardCharsets.UTF_8));
+                    ApiVersion apiVersion = apiVersionService.checkNew(apiFile, component.getName());
+                    if (!artifacts.add(apiVersion.getMetadata().get(ApiVersionService.METADATA_API_GROUP_ID) + ":" + apiVersion.getMetadata().get(ApiVersionService.METADATA_API_ARTIFACT_NAME))) {
+                        throw new IllegalArgumentException("Artifact of '" + component.getName() + "' defined twice in the batch");
+                    }
+                }
+                checked.add(new Checked(i, component, group, apiFile));
+            } catch (ApiException | IOException | RuntimeException e) {
+                delete(apiFile);
+                results[i] = Result.rejected(component == null ? null : component.getName(), e);
+            }
+        }
+
+        for (Checked item : checked) {
+            final Component componentAdded;
+            try {
+                componentAdded = componentService.add(item.component, item.group);
+            } catch (ApiException | RuntimeException e) {
+                delete(item.apiFile);
+                results[item.position] = Result.rejected(item.component.getName(), e);
+                continue;
+            }
+            results[item.position] = Result.accepted(componentAdded);
+            final String workflowId = componentService.getWorkflowId(componentAdded);
+            workQueue.submit(kathraSessionManager, "component " + componentAdded.getId(), () -> {
+                // the batch's workflows share the session, reads of this item go through its own context
+                WorkflowContext.bind(workflowId);
+                try {
+                    provision(componentAdded, item.apiFile);
+                } finally {
+                    WorkflowContext.unbind();
+                    delete(item.apiFile);
+                }
+            });
+        }
+        return Arrays.asList(results);
+    }
+
+    private void provision(Component componentAdded, File apiFile) throws Exception {
+        final CompletableFuture<Void> componentReady = new CompletableFuture<>();
+        componentService.provision(componentAdded, () -> componentReady.complete(null));
+        if (!await(componentReady, componentService, componentAdded.getId())) {
+            logger.warn("Component '" + componentAdded.getId() + "' isn't READY, its API version isn't created");
+            return;
+        }
+        if (apiFile != null) {
+            final CompletableFuture<Void> apiVersionReady = new CompletableFuture<>();
+            ApiVersion apiVersion = apiVersionService.create(componentAdded, apiFile, () -> apiVersionReady.complete(null));
+            await(apiVersionReady, apiVersionService, apiVersion.getId());
+        }
+    }
+
+    /**
+     * Wait for the READY callback, the resource is checked periodically to stop waiting once in ERROR
+     * @return true if READY
+     */
+    private boolean await(CompletableFuture<Void> ready, AbstractResourceService<? extends Resource> service, String id) throws Exception {
+        final long deadline = System.currentTimeMillis() + itemTimeoutMs;
+        for (long remaining = itemTimeoutMs; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+            try {
+                ready.get(Math.min(POLL_MS, remaining), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                Optional<? extends Resource> resource = service.getById(id);
+                if (resource != null && resource.isPresent() && Resource.StatusEnum.ERROR.equals(resource.get().getStatus())) {
+                    return false;
+                }
+            }
+        }
+        logger.warn("Resource '" + id + "' not READY after " + itemTimeoutMs + " ms, next item");
+        return false;
+    }
+
+    private void delete(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.StringUtils;
+import org.kathra.appmanager.apiversion.ApiVersionService;
+import org.kathra.appmanager.implementation.ImplementationService;
+import org.kathra.appmanager.implementationversion.ImplementationVersionService;
+import org.kathra.appmanager.library.LibraryService;
+import org.kathra.appmanager.pipeline.PipelineService;
+import org.kathra.appmanager.service.Joins;
+import org.kathra.appmanager.service.ServiceInjection;
+import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
+import org.kathra.core.model.*;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Projection of a component with the requested relations, resolved in one call.
+ *
+ * Relations are resolved level by level : the batches of a level run in parallel, each batch reads every id once
+ * ({@link org.kathra.appmanager.service.AbstractResourceService#getByIds}, bounded by the fetch concurrency). Source
+ * repositories and pipelines referenced by several resources of the tree are read once.
+ *
+ * @author julien.boubechtoula
+ */
+public class ComponentGraph {
+
+    public static final String VERSIONS = "versions";
+    public static final String API_REPOSITORY = "apiRepository";
+    public static final String LIBRARIES = "libraries";
+    public static final String LIBRARIES_SOURCE_REPOSITORY = "libraries.sourceRepository";
+    public static final String LIBRARIES_PIPELINE = "libraries.pipeline";
+    public static final String IMPLEMENTATIONS = "implementations";
+    public static final String IMPLEMENTATIONS_VERSIONS = "implementations.versions";
+    public static final String IMPLEMENTATIONS_SOURCE_REPOSITORY = "implementations.sourceRepository";
+    public static final String IMPLEMENTATIONS_PIPELINE = "implementations.pipeline";
+
+    public static final List<String> RELATIONS = ImmutableList.of(VERSIONS, API_REPOSITORY, LIBRARIES, LIBRARIES_SOURCE_REPOSITORY,
+            LIBRARIES_PIPELINE, IMPLEMENTATIONS, IMPLEMENTATIONS_VERSIONS, IMPLEMENTATIONS_SOURCE_REPOSITORY, IMPLEMENTATIONS_PIPELINE);
+    private static final Set<String> DEFAULT_RELATIONS = ImmutableSet.of(VERSIONS, LIBRARIES, IMPLEMENTATIONS);
+    private static final String ALL = "*";
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "component-graph");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FunctionalInterface
+    public interface Batch<X> {
+        List<X> load(Collection<String> ids) throws ApiException;
+    }
+
+    private final ComponentService componentService;
+    private final Batch<ApiVersion> apiVersions;
+    private final Batch<Library> libraries;
+    private final Batch<Implementation> implementations;
+    private final Batch<ImplementationVersion> implementationVersions;
+    private final Batch<Pipeline> pipelines;
+    private final Batch<SourceRepository> sourceRepositories;
+    private final KathraSessionManager kathraSessionManager;
+
+    public ComponentGraph(ServiceInjection serviceInjection) {
+        this(serviceInjection.getService(ComponentService.class),
+                serviceInjection.getService(ApiVersionService.class)::getByIds,
+                serviceInjection.getService(LibraryService.class)::getByIds,
+                serviceInjection.getService(ImplementationService.class)::getByIds,
+                serviceInjection.getService(ImplementationVersionService.class)::getByIds,
+                serviceInjection.getService(PipelineService.class)::getByIds,
+                serviceInjection.getService(SourceRepositoryService.class)::getByIds,
+                serviceInjection.getSessionManager());
+    }
+
+    public ComponentGraph(ComponentService componentService, Batch<ApiVersion> apiVersions, Batch<Library> libraries, Batch<Implementation> implementations, Batch<ImplementationVersion> implementationVersions, Batch<Pipeline> pipelines, Batch<SourceRepository> sourceRepositories, KathraSessionManager kathraSessionManager) {
+        this.componentService = componentService;
+        this.apiVersions = apiVersions;
+        this.libraries = libraries;
+        this.implementations = implementations;
+        this.implementationVersions = implementationVersions;
+        this.pipelines = pipelines;
+        this.sourceRepositories = sourceRepositories;
+        this.kathraSessionManager = kathraSessionManager;
+    }
+
+    /**
+     * Parse the relations selection, eg. 'versions,implementations.versions,libraries.pipeline' ('*' for all). Nested
+     * relations include their parent, the first level relations are selected by default.
+     */
+    public static Set<String> relations(String include) {
+        if (StringUtils.isBlank(include)) {
+            return DEFAULT_RELATIONS;
+        }
+        if (ALL.equals(include.trim())) {
+            return new LinkedHashSet<>(RELATIONS);
+        }
+        Set<String> relations = new LinkedHashSet<>();
+        for (String relation : include.split(",")) {
+            relation = relation.trim();
+            if (relation.isEmpty()) {
+                continue;
+            }
+            if (!RELATIONS.contains(relation)) {
+                throw new IllegalArgumentException("Unknown relation '" + relation + "', expected one of " + RELATIONS);
+            }
+            if (relation.contains(".")) {
+                relations.add(relation.substring(0, relation.indexOf('.')));
+            }
+            relations.add(relation);
+        }
+        return relations;
+    }
+
+    /**
+     * Component with the selected relations resolved, relations not found are left as returned by the resource manager
+     */
+    public Optional<Component> get(String componentId, Set<String> relations) throws ApiException {
+        final Optional<Component> found = componentService.getById(componentId);
+        if (found.isEmpty()) {
+            return found;
+        }
+        final Component component = found.get();
+        final Session session = kathraSessionManager.getCurrentSession();
+
+        // first level
+        CompletableFuture<Map<String, ApiVersion>> versionsRead = read(session, apiVersions, relations.contains(VERSIONS) ? stream(component.getVersions()) : Stream.empty());
+        CompletableFuture<Map<String, Library>> librariesRead = read(session, libraries, relations.contains(LIBRARIES) ? stream(component.getLibraries()) : Stream.empty());
+        CompletableFuture<Map<String, Implementation>> implementationsRead = read(session, implementations, relations.contains(IMPLEMENTATIONS) ? stream(component.getImplementations()) : Stream.empty());
+        if (relations.contains(VERSIONS)) {
+            component.setVersions(resolve(component.getVersions(), join(versionsRead)));
+        }
+        if (relations.contains(LIBRARIES)) {
+            component.setLibraries(resolve(component.getLibraries(), join(librariesRead)));
+        }
+        if (relations.contains(IMPLEMENTATIONS)) {
+            component.setImplementations(resolve(component.getImplementations(), join(implementationsRead)));
+        }
+        final List<Library> componentLibraries = relations.contains(LIBRARIES) ? stream(component.getLibraries()).collect(Collectors.toList()) : ImmutableList.of();
+        final List<Implementation> componentImplementations = relations.contains(IMPLEMENTATIONS) ? stream(component.getImplementations()).collect(Collectors.toList()) : ImmutableList.of();
+
+        // second level, repositories and pipelines shared by the resources of the tree are read once
+        Stream<SourceRepository> repositoriesToRead = Stream.concat(
+                relations.contains(API_REPOSITORY) ? Stream.of(component.getApiRepository()) : Stream.empty(),
+                Stream.concat(
+                        relations.contains(LIBRARIES_SOURCE_REPOSITORY) ? componentLibraries.stream().map(Library::getSourceRepository) : Stream.empty(),
+                        relations.contains(IMPLEMENTATIONS_SOURCE_REPOSITORY) ? componentImplementations.stream().map(Implementation::getSourceRepository) : Stream.empty()));
+        Stream<Pipeline> pipelinesToRead = Stream.concat(
+                relations.contains(LIBRARIES_PIPELINE) ? componentLibraries.stream().map(Library::getPipeline) : Stream.empty(),
+                relations.contains(IMPLEMENTATIONS_PIPELINE) ? componentImplementations.stream().map(Implementation::getPipeline) : Stream.empty());
+        Stream<ImplementationVersion> implementationVersionsToRead = relations.contains(IMPLEMENTATIONS_VERSIONS) ? componentImplementations.stream().flatMap(implementation -> stream(implementation.getVersions())) : Stream.empty();
+
+        CompletableFuture<Map<String, SourceRepository>> repositoriesRead = read(session, sourceRepositories, repositoriesToRead);
+        CompletableFuture<Map<String, Pipeline>> pipelinesRead = read(session, pipelines, pipelinesToRead);
+        CompletableFuture<Map<String, ImplementationVersion>> implementationVersionsRead = read(session, implementationVersions, implementationVersionsToRead);
+        final Map<String, SourceRepository> repositoriesById = join(repositoriesRead);
+        final Map<String, Pipeline> pipelinesById = join(pipelinesRead);
+        final Map<String, ImplementationVersion> implementationVersionsById = join(implementationVersionsRead);
+
+        if (relations.contains(API_REPOSITORY)) {
+            component.setApiRepository(resolve(component.getApiRepository(), repositoriesById));
+        }
+        for (Library library : componentLibraries) {
+            if (relations.contains(LIBRARIES_SOURCE_REPOSITORY)) {
+                library.setSourceRepository(resolve(library.getSourceRepository(), repositoriesById));
+            }
+            if (relations.contains(LIBRARIES_PIPELINE)) {
+                library.setPipeline(resolve(library.getPipeline(), pipelinesById));
+            }
+        }
+        for (Implementation implementation : componentImplementations) {
+            if (relations.contains(IMPLEMENTATIONS_VERSIONS)) {
+                implementation.setVersions(resolve(implementation.getVersions(), implementationVersionsById));
+            }
+            if (relations.contains(IMPLEMENTATIONS_SOURCE_REPOSITORY)) {
+                implementation.setSourceRepository(resolve(implementation.getSourceRepository(), repositoriesById));
+            }
+            if (relations.contains(IMPLEMENTATIONS_PIPELINE)) {
+                implementation.setPipeline(resolve(implementation.getPipeline(), pipelinesById));
+            }
+        }
+        return Optional.of(component);
+    }
+
+    private <X extends Resource> CompletableFuture<Map<String, X>> read(Session session, Batch<X> batch, Stream<? extends Resource> references) {
+        final Set<String> ids = references.filter(Objects::nonNull).map(Resource::getId).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            kathraSessionManager.handleSession(session);
+            try {
+                return Joins.index(batch.load(ids), Resource::getId);
+            } catch (ApiException e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    private <X> X join(CompletableFuture<X> future) throws ApiException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static <X> Stream<X> stream(List<X> references) {
+        return references == null ? Stream.empty() : references.stream().filter(Objects::nonNull);
+    }
+
+    private static <X extends Resource> X resolve(X reference, Map<String, X> resolved) {
+        return reference == null || reference.getId() == null ? reference : resolved.getOrDefault(reference.getId(), reference);
+    }
+
+    private static <X extends Resource> List<X> resolve(List<X> references, Map<String, X> resolved) {
+        return references == null ? null : references.stream().map(reference -> resolve(reference, resolved)).collect(Collectors.toList());
+    }
+}
@@ -25,6 +25,10 @@ import org.kathra.appmanager.implementation.ImplementationService;
 import org.kathra.appmanager.library.LibraryService;
 import org.kathra.appmanager.service.AbstractResourceService;
 import org.kathra.appmanager.service.ImplementationsService;
+import org.kathra.appmanager.service.JsonArrayStream;
+import org.kathra.appmanager.service.ListQuery;
+import org.kathra.appmanager.service.Page;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.*;
@@ -37,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
@@ -55,6 +60,7 @@ public class ComponentService extends AbstractResourceService<Component> {
     public static final String METADATA_API_ARTIFACT_NAME = "artifact-artifactName";
 
     private static final Pattern PATTERN_NAME = Pattern.compile("^[0-9A-Za-z_\\-]+$");
+    private static final String INDEX_NAME_GROUP_PATH = "name-groupPath";
 
     private GroupService groupsService;
     private SourceRepositoryService sourceRepositoryService;
@@ -62,6 +68,7 @@ public class ComponentService extends AbstractResourceService<Component> {
     private ComponentsClient componentsClient;
     private ApiVersionService apiVersionService;
     private ImplementationService implementationService;
+    private ResourceIndex<Component> componentIndex;
 
     private Logger logger = LoggerFactory.getLogger(ComponentService.class);
 
@@ -71,12 +78,13 @@ public class ComponentService extends AbstractResourceService<Component> {
 
     public void configure(ServiceInjection service){
         super.configure(service);
-        this.componentsClient = new ComponentsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.componentsClient = service.getClient(ComponentsClient.class, service.getConfig().getResourceManagerUrl());
         this.sourceRepositoryService = service.getService(SourceRepositoryService.class);
         this.libraryService =  service.getService(LibraryService.class);
         this.groupsService = service.getService(GroupService.class);
         this.apiVersionService = service.getService(ApiVersionService.class);
         this.implementationService = service.getService(ImplementationService.class);
+        this.componentIndex = buildIndex(service.getConfig().getIndexResyncIntervalMs());
     }
 
     public ComponentService(ComponentsClient componentsClient, SourceRepositoryService sourceRepositoryService, ApiVersionService apiVersionService, LibraryService libraryService, GroupService groupsService, KathraSessionManager kathraSessionManager, ImplementationService implementationService) {
@@ -87,6 +95,12 @@ public class ComponentService extends AbstractResourceService<Component> {
         this.groupsService = groupsService;
         this.apiVersionService = apiVersionService;
         super.kathraSessionManager = kathraSessionManager;
+        this.componentIndex = buildIndex(0);
+    }
+
+    private ResourceIndex<Component> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<Component>("Component", () -> componentsClient.getComponents(), kathraSessionManager, resyncIntervalMs)
+                .addKey(INDEX_NAME_GROUP_PATH, item -> item.getMetadata() == null ? null : ResourceIndex.compositeKey(item.getName(), item.getMetadata().get(METADATA_GROUP_PATH)));
     }
 
 
@@ -102,6 +116,26 @@ public class ComponentService extends AbstractResourceService<Component> {
 
     public Component create(@NotNull Component component, @NotNull String groupPath, Runnable callback) throws ApiException {
 
+        final Group group = checkNew(component, groupPath);
+        try {
+            final Component componentAdded = add(component, group);
+            final Session session = kathraSessionManager.getCurrentSession();
+            CompletableFuture.runAsync(() -> {
+                kathraSessionManager.handleSession(session);
+                provision(componentAdded, callback);
+            });
+            return componentAdded;
+        } catch(Exception e) {
+            manageError(component, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Check that the component can be created into the group (indexed views only)
+     * @return group of the component
+     */
+    public Group checkNew(Component component, String groupPath) throws ApiException {
         if (StringUtils.isEmpty(groupPath)) {
             throw new IllegalArgumentException("GroupPath should be defined");
         }
@@ -119,58 +153,65 @@ public class ComponentService extends AbstractResourceService<Component> {
         if (getByNameAndGroupPath(component.getName(), groupPath).isPresent()) {
             throw new IllegalArgumentException("Component already exists");
         }
+        return group.get();
+    }
+
+    /**
+     * Add the component's record (status PENDING) and open its workflow, the downstream resources are created by
+     * {@link #provision}
+     */
+    public Component add(Component component, Group group) throws ApiException {
         // CREATE COMPONENT
         Component componentToAdd = new Component().name(component.getName())
                                                 .title(component.getTitle())
                                                 .description(component.getDescription())
-                                                .putMetadataItem(METADATA_GROUP_ID, group.get().getId())
-                                                .putMetadataItem(METADATA_GROUP_PATH, group.get().getPath())
+                                                .putMetadataItem(METADATA_GROUP_ID, group.getId())
+                                                .putMetadataItem(METADATA_GROUP_PATH, group.getPath())
                                                 .status(Resource.StatusEnum.PENDING);
-        try {
 
-            final Component componentAdded = componentsClient.addComponent(componentToAdd, group.get().getPath());
-            try {
-                if (StringUtils.isEmpty(componentAdded.getId())) {
-                    throw new IllegalStateException("Component'id should be defined");
-                } else if (StringUtils.isEmpty((CharSequence) componentAdded.getMetadata().get("groupId"))) {
-                    throw new IllegalStateException("Metadata '" + METADATA_GROUP_ID + "' of component should be defined");
-                } else if (StringUtils.isEmpty((CharSequence) componentAdded.getMetadata().get("groupPath"))) {
-                    throw new IllegalStateException("Metadata '" + METADATA_GROUP_PATH + "' of component should be defined");
-                }
-            } catch(Exception e) {
-                manageError(componentAdded, e);
-                throw e;
+        final Component componentAdded = componentsClient.addComponent(componentToAdd, group.getPath());
+        componentIndex.put(componentAdded);
+        try {
+            if (StringUtils.isEmpty(componentAdded.getId())) {
+                throw new IllegalStateException("Component'id should be defined");
+            } else if (StringUtils.isEmpty((CharSequence) componentAdded.getMetadata().get("groupId"))) {
+                throw new IllegalStateException("Metadata '" + METADATA_GROUP_ID + "' of component should be defined");
+            } else if (StringUtils.isEmpty((CharSequence) componentAdded.getMetadata().get("groupPath"))) {
+                throw new IllegalStateException("Metadata '" + METADATA_GROUP_PATH + "' of component should be defined");
             }
-
-            final Session session = kathraSessionManager.getCurrentSession();
-            CompletableFuture.runAsync(() -> {
-                try {
-                    kathraSessionManager.handleSession(session);
-                    // CREATE API REPOSITORY
-                    SourceRepository sourceRepositoryApi = createSourceRepositoryApi(componentAdded, callback);
-
-                    // CREATE COMPONENT LIBRARIES FOR EACH PROGRAMMING LANGUAGES AND LIBRARIES TYPES
-                    for(Library.LanguageEnum languageProgramming : Library.LanguageEnum.values()){
-                        for(Library.TypeEnum libraryType : Library.TypeEnum.values()) {
-                            Thread.sleep(200);
-                            createLibrary(componentAdded, languageProgramming, libraryType, callback);
-                        }
-                    }
-                } catch (Exception e) {
-                    manageError(componentAdded, e);
-                } finally {
-                    //kathraSessionManager.deleteSession();
-                }
-            });
-            return componentAdded;
         } catch(Exception e) {
-            manageError(component, e);
+            manageError(componentAdded, e);
             throw e;
         }
+
+        openWorkflow(componentAdded);
+        return componentAdded;
+    }
+
+    /**
+     * Create the API repository and the libraries of an added component, the callback is called once the component is
+     * READY. Runs in the caller's thread.
+     */
+    public void provision(Component componentAdded, Runnable callback) {
+        try {
+            // CREATE API REPOSITORY
+            SourceRepository sourceRepositoryApi = createSourceRepositoryApi(componentAdded, callback);
+
+            // CREATE COMPONENT LIBRARIES FOR EACH PROGRAMMING LANGUAGES AND LIBRARIES TYPES
+            for(Library.LanguageEnum languageProgramming : Library.LanguageEnum.values()){
+                for(Library.TypeEnum libraryType : Library.TypeEnum.values()) {
+                    Thread.sleep(200);
+                    createLibrary(componentAdded, languageProgramming, libraryType, callback);
+                }
+            }
+        } catch (Exception e) {
+            manageError(componentAdded, e);
+        }
     }
 
 
     public void delete(Component component, boolean force, boolean purge) throws ApiException {
+        flushPatches(component.getId());
         Component componentToDeleted = componentsClient.getComponent(component.getId());
         if (isDeleted(componentToDeleted)) {
             return;
@@ -220,6 +261,8 @@ public class ComponentService extends AbstractResourceService<Component> {
             }
 
             componentsClient.deleteComponent(componentToDeleted.getId());
+            invalidate(componentToDeleted.getId());
+            componentIndex.remove(componentToDeleted.getId());
             component.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(component, e);
@@ -237,7 +280,11 @@ public class ComponentService extends AbstractResourceService<Component> {
             boolean librariesReady = checkLibraryIsReady(componentUpdated);
             logger.info("validate component id=" + componentUpdated.getId() + ", apiRepositoryReady=" + apiRepositoryReady + ", librariesReady=" + librariesReady);
             if (apiRepositoryReady && librariesReady) {
-                updateStatus(componentUpdated, Resource.StatusEnum.READY);
+                try {
+                    updateStatus(componentUpdated, Resource.StatusEnum.READY);
+                } finally {
+                    closeWorkflow(componentUpdated);
+                }
                 if (callback != null) {
                     callback.run();
                 }
@@ -266,16 +313,16 @@ public class ComponentService extends AbstractResourceService<Component> {
             logger.info("All libraries are not initialized : " + component.getLibraries().size());
             return false;
         }
-        for(Library item:component.getLibraries()){
-            if (item.getId() == null){
-                return false;
-            }
-            Optional<Library> library = libraryService.getById(item.getId());
-            if (library.isPresent()) {
-                throwExceptionIfError(library.get());
-            }
-            if (!library.isPresent() || !isReady(library.get())){
-                logger.info("Library '"+item.getId()+"' is not ready or not exist.");
+        final List<String> ids = component.getLibraries().stream().map(Library::getId).collect(Collectors.toList());
+        if (ids.contains(null)) {
+            return false;
+        }
+        final Map<String, Library> libraries = libraryService.getByIds(ids).stream().collect(Collectors.toMap(Library::getId, library -> library));
+        for (String id : ids) {
+            Library library = libraries.get(id);
+            throwExceptionIfError(library);
+            if (!isReady(library)){
+                logger.info("Library '"+id+"' is not ready or not exist.");
                 return false;
             }
         }
@@ -284,6 +331,8 @@ public class ComponentService extends AbstractResourceService<Component> {
 
     public void patch(Component component) throws ApiException {
         componentsClient.updateComponentAttributes(component.getId(), component);
+        invalidate(component.getId());
+        componentIndex.merge(component);
     }
 
     private Library createLibrary(Component component, Library.LanguageEnum languageProgramming, Library.TypeEnum typeLibrary, Runnable afterReadyCallBack) throws ApiException {
@@ -299,28 +348,51 @@ public class ComponentService extends AbstractResourceService<Component> {
         SourceRepository sourceRepositoryApi =  sourceRepositoryService.create(component.getName(), groupPathApi, deploysKeys, () -> validate(component, afterReadyCallBack));
 
         component.setApiRepository(sourceRepositoryApi);
-        componentsClient.updateComponentAttributes(component.getId(), new Component().id(component.getId()).apiRepository(sourceRepositoryApi));
+        bufferPatch(new Component().id(component.getId()).apiRepository(sourceRepositoryApi));
         return sourceRepositoryApi;
     }
 
     @Override
     public Optional<Component> getById(String componentId) throws ApiException {
-        Component component = componentsClient.getComponent(componentId);
+        Component component = readThrough(componentId, componentsClient::getComponent);
         return component == null ? Optional.empty() : Optional.of(component);
     }
 
     public Optional<Component> getByNameAndGroupPath(String componentName, String groupPath) throws ApiException {
-        return componentsClient .getComponents()
-                .stream()
-                .filter(existingComponent -> componentName != null && componentName.equals(existingComponent.getName()) &&
-                        groupPath != null && groupPath.equals(existingComponent.getMetadata().get(METADATA_GROUP_PATH)))
-                .findFirst();
+        return componentIndex.findFirst(INDEX_NAME_GROUP_PATH, ResourceIndex.compositeKey(componentName, groupPath));
     }
 
     public List<Component> getAllComponentsWithApiVersions() throws ApiException {
 
+        return fillWithApiVersions(componentsClient.getComponents());
+    }
+
+    /**
+     * Components with their ApiVersions, each component is completed while the response is streamed
+     */
+    public JsonArrayStream<Component> streamComponentsWithApiVersions() throws ApiException, IOException {
         List<Component> components = componentsClient.getComponents();
+        if (components == null || components.isEmpty()) return JsonArrayStream.of(new ArrayList<Component>());
+
+        Map<String, List<ApiVersion>> apiVersionsByComponent = apiVersionService.getAll().stream()
+                .filter(apiVersion -> apiVersion.getComponent() != null && apiVersion.getComponent().getId() != null)
+                .collect(Collectors.groupingBy(apiVersion -> apiVersion.getComponent().getId()));
+        return new JsonArrayStream<>(components.iterator(), component -> {
+            component.setVersions(new LinkedList<>(apiVersionsByComponent.getOrDefault(component.getId(), Collections.emptyList())));
+            return component;
+        });
+    }
+
+    /**
+     * Page of components (indexed view) with their ApiVersions
+     */
+    public Page<Component> getComponentsWithApiVersions(ListQuery query) throws ApiException {
+        Page<Component> page = componentIndex.page(query, ListQuery.resourceFields());
+        fillWithApiVersions(page.getItems());
+        return page;
+    }
 
+    private List<Component> fillWithApiVersions(List<Component> components) throws ApiException {
         if (components == null || components.isEmpty()) return new ArrayList<>();
 
         // Cleaning the default provided apiversions
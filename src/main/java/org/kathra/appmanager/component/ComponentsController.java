@@ -20,9 +20,12 @@
 package org.kathra.appmanager.component;
 
 import com.google.common.collect.ImmutableList;
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.apiversion.ApiVersionService;
 import org.kathra.appmanager.service.ComponentsService;
+import org.kathra.appmanager.service.JsonArrayStream;
+import org.kathra.appmanager.service.ListQuery;
+import org.kathra.appmanager.service.Page;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.core.model.ApiVersion;
 import org.kathra.core.model.Component;
@@ -32,7 +35,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.kathra.core.model.Resource;
 
 import javax.inject.Named;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author julien.boubechtoula
@@ -44,16 +50,25 @@ public class ComponentsController implements ComponentsService {
     private ServiceInjection serviceInjection;
     private ComponentService componentService;
     private ApiVersionService apiVersionService;
+    private ComponentGraph componentGraph;
+    private ComponentBulk componentBulk;
 
     public ComponentsController(ComponentService componentService, ApiVersionService apiVersionService) {
         this.componentService = componentService;
         this.apiVersionService = apiVersionService;
     }
 
+    public ComponentsController(ComponentService componentService, ApiVersionService apiVersionService, ComponentGraph componentGraph) {
+        this(componentService, apiVersionService);
+        this.componentGraph = componentGraph;
+    }
+
     public ComponentsController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.componentService = serviceInjection.getService(ComponentService.class);
         this.apiVersionService = serviceInjection.getService(ApiVersionService.class);
+        this.componentGraph = new ComponentGraph(serviceInjection);
+        this.componentBulk = new ComponentBulk(serviceInjection);
     }
 
     @Override
@@ -68,6 +83,13 @@ public class ComponentsController implements ComponentsService {
 
     }
 
+    /**
+     * Create several components with their first API version, see {@link ComponentBulk}
+     */
+    public List<ComponentBulk.Result> createComponents(ComponentBulk.Item[] items) throws Exception {
+        return componentBulk.create(items == null ? null : Arrays.asList(items));
+    }
+
     @Override
     public Component deleteComponentById(String componentId) throws Exception {
         if (StringUtils.isEmpty(componentId)) throw new IllegalArgumentException("componentId must be specified");
@@ -95,4 +117,26 @@ public class ComponentsController implements ComponentsService {
     public List<Component> getComponents() throws Exception {
         return componentService.getAllComponentsWithApiVersions();
     }
+
+    /**
+     * Page of components, see {@link ListQuery} for the parameters
+     */
+    public Page<Component> getComponentsPage(Map<String, Object> parameters) throws Exception {
+        return componentService.getComponentsWithApiVersions(ListQuery.of(parameters).filters(parameters, ListQuery.resourceFields().keySet()));
+    }
+
+    /**
+     * Components with their ApiVersions, streamed as a JSON array
+     */
+    public InputStream getComponentsStream() throws Exception {
+        return componentService.streamComponentsWithApiVersions();
+    }
+
+    /**
+     * Component with the relations selected by 'include', see {@link ComponentGraph#relations}
+     */
+    public Component getComponentGraph(String componentId, String include) throws Exception {
+        if (StringUtils.isEmpty(componentId)) throw new IllegalArgumentException("componentId must be specified");
+        return componentGraph.get(componentId, ComponentGraph.relations(include)).orElseThrow(() -> new NotFoundException("Component not found"));
+    }
 }
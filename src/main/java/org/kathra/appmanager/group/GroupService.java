@@ -21,6 +21,8 @@ package org.kathra.appmanager.group;
 
 import org.kathra.appmanager.Config;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.DownstreamClients;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.SecurityService;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.core.model.Group;
@@ -29,9 +31,9 @@ import org.kathra.utils.ApiException;
 import org.kathra.utils.KathraException;
 import org.kathra.utils.KathraSessionManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * @author julien.boubechtoula
@@ -40,33 +42,47 @@ public class GroupService extends AbstractResourceService<Group> {
 
     private GroupsClient resourceManager;
     private SecurityService securityService;
+    private ResourceIndex<Group> groupIndex;
+
+    private static final String INDEX_PATH = "path";
 
     public GroupService() {
 
     }
 
     public void configure(ServiceInjection serviceInjection) {
-        this.resourceManager = new GroupsClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
-        this.securityService = new SecurityService(serviceInjection.getSessionManager());
+        super.configure(serviceInjection);
+        this.resourceManager = serviceInjection.getClient(GroupsClient.class, serviceInjection.getConfig().getResourceManagerUrl());
+        this.securityService = new SecurityService(serviceInjection.getSessionManager(), serviceInjection.getConfig().getUserInfoCacheMaxTtlMs(), serviceInjection.getConfig().getUserInfoCacheSize());
+        this.groupIndex = buildIndex(serviceInjection.getSessionManager(), serviceInjection.getConfig().getIndexResyncIntervalMs());
     }
 
     public GroupService(GroupsClient resourceManager, SecurityService securityService) {
         this.resourceManager = resourceManager;
         this.securityService = securityService;
+        this.groupIndex = buildIndex(null, 0);
     }
 
     public GroupService(Config config, KathraSessionManager sessionManager) {
-        this.resourceManager = new GroupsClient(config.getResourceManagerUrl(), sessionManager);
+        this.resourceManager = DownstreamClients.get(GroupsClient.class, config.getResourceManagerUrl(), sessionManager);
+        this.groupIndex = buildIndex(sessionManager, config.getIndexResyncIntervalMs());
+    }
+
+    private ResourceIndex<Group> buildIndex(KathraSessionManager sessionManager, long resyncIntervalMs) {
+        return new ResourceIndex<Group>("Group", () -> resourceManager.getGroups(), sessionManager, resyncIntervalMs)
+                .addKey(INDEX_PATH, Group::getPath);
     }
 
     @Override
     protected void patch(Group object) throws ApiException {
         this.resourceManager.updateGroupAttributes(object.getId(), object);
+        invalidate(object.getId());
+        groupIndex.merge(object);
     }
 
     @Override
     public Optional<Group> getById(String id) throws ApiException {
-        return Optional.ofNullable(resourceManager.getGroup(id));
+        return Optional.ofNullable(readThrough(id, resourceManager::getGroup));
     }
 
     @Override
@@ -75,16 +91,23 @@ public class GroupService extends AbstractResourceService<Group> {
     }
 
     public Optional<Group> findByPath(String path) throws ApiException {
-        return resourceManager.getGroups().parallelStream().filter(group -> group.getPath().equals(path)).findFirst();
+        return groupIndex.findFirst(INDEX_PATH, path);
     }
 
     public List<Group> getGroupsFromCurrentUser() throws KathraException {
         try {
             List<String> groupsFromToken = (List<String>) securityService.getUserInfo(SecurityService.UserInformation.GROUPS);
-            List<Group> groupsExisting = resourceManager.getGroups();
-            groupsFromToken.stream().filter(groupToken -> groupsExisting.stream().noneMatch(group -> group.getPath().equals(groupToken))).forEach(groupToken ->
-                logger.warn("Group '" + groupToken + "' from token no existing in db"));
-            return groupsExisting.stream().filter(group -> groupsFromToken.contains(group.getPath())).collect(Collectors.toList());
+            // path -> group lookups through the index, loaded once per caller and resync interval
+            List<Group> groups = new ArrayList<>();
+            for (String groupToken : groupsFromToken) {
+                Optional<Group> group = findByPath(groupToken);
+                if (group.isPresent()) {
+                    groups.add(group.get());
+                } else {
+                    logger.warn("Group '" + groupToken + "' from token no existing in db");
+                }
+            }
+            return groups;
         } catch (Exception e) {
             super.logger.error("Error getMyGroups", e);
             throw new KathraException("Error getMyGroups", e, KathraException.ErrorCode.INTERNAL_SERVER_ERROR);
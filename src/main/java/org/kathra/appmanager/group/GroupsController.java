@@ -19,9 +19,8 @@
  */
 package org.kathra.appmanager.group;
 
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.service.GroupsService;
-import org.kathra.appmanager.service.ServiceInjection;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.core.model.Group;
 import org.apache.camel.cdi.ContextName;
 
@@ -38,7 +37,7 @@ public class GroupsController implements GroupsService {
     private final GroupService groupService;
 
     public GroupsController() {
-        this.groupService = new ServiceInjection(new Config(), getSessionManager()).getService(GroupService.class);
+        this.groupService = ServiceContainer.get(getSessionManager()).getService(GroupService.class);
     }
 
     @Override
@@ -31,6 +31,9 @@ import org.kathra.appmanager.model.CatalogEntryTemplate;
 import org.kathra.appmanager.model.CatalogEntryTemplateArgument;
 import org.kathra.appmanager.pipeline.PipelineService;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.ListQuery;
+import org.kathra.appmanager.service.Page;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.*;
@@ -47,6 +50,7 @@ import javax.validation.constraints.NotNull;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -66,6 +70,9 @@ public class ImplementationService extends AbstractResourceService<Implementatio
     private static final Pattern PATTERN_NAME = Pattern.compile("^[0-9A-Za-z_\\-]+$");
 
     private static final String FIRST_VERSION = "1.0.0";
+    private static final String INDEX_NAME = "name";
+    private static final String INDEX_PIPELINE = "pipeline";
+    private static final String INDEX_SOURCE_REPOSITORY = "sourceRepository";
 
     // Clients and Services
     private ApiVersionService apiVersionService;
@@ -79,6 +86,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
     private GroupService groupService;
     private CatalogEntryService catalogEntryService;
     private String imageRegistryHost;
+    private ResourceIndex<Implementation> implementationIndex;
 
     public ImplementationService() {
 
@@ -86,7 +94,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
 
     public void configure(ServiceInjection serviceInjection) {
         super.configure(serviceInjection);
-        this.resourceManager = new ImplementationsClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
+        this.resourceManager = serviceInjection.getClient(ImplementationsClient.class, serviceInjection.getConfig().getResourceManagerUrl());
         this.componentService = serviceInjection.getService(ComponentService.class);
         this.apiVersionService = serviceInjection.getService(ApiVersionService.class);
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
@@ -96,6 +104,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
         this.groupService = serviceInjection.getService(GroupService.class);
         this.imageRegistryHost = serviceInjection.getConfig().getImageRegistryHost();
         this.binaryRepositoryService = serviceInjection.getService(BinaryRepositoryService.class);
+        this.implementationIndex = buildIndex(serviceInjection.getConfig().getIndexResyncIntervalMs());
     }
 
 
@@ -112,6 +121,14 @@ public class ImplementationService extends AbstractResourceService<Implementatio
         this.groupService = groupService;
         this.imageRegistryHost = imageRegistryHost;
         this.binaryRepositoryService = binaryRepositoryService;
+        this.implementationIndex = buildIndex(0);
+    }
+
+    private ResourceIndex<Implementation> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<Implementation>("Implementation", () -> resourceManager.getImplementations(), kathraSessionManager, resyncIntervalMs)
+                .addKey(INDEX_NAME, Implementation::getName)
+                .addKey(INDEX_PIPELINE, implementation -> implementation.getPipeline() == null ? null : implementation.getPipeline().getId())
+                .addKey(INDEX_SOURCE_REPOSITORY, implementation -> implementation.getSourceRepository() == null ? null : implementation.getSourceRepository().getId());
     }
 
     public Implementation create(@NotNull String name, Implementation.LanguageEnum language, ApiVersion apiVersion, String description) throws ApiException {
@@ -124,7 +141,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
             throw new IllegalArgumentException("Language is null.");
         } else if (apiVersion == null) {
             throw new IllegalArgumentException("ApiVersion is null.");
-        } else if (getAll().parallelStream().anyMatch(impl -> impl.getName().equals(name))) {
+        } else if (implementationIndex.exists(INDEX_NAME, name)) {
             throw new IllegalArgumentException("Implementation's name already exists.");
         }
         ApiVersion apiVersionWithDetails = apiVersionService.getById(apiVersion.getId()).orElseThrow(() -> new IllegalArgumentException("Unable to find ApiVersion with id : '" + apiVersion.getId() + "'"));
@@ -164,6 +181,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
                 .putMetadataItem(METADATA_GROUP_PATH, componentWithDetails.getMetadata().get(ComponentService.METADATA_GROUP_PATH))
                 .putMetadataItem(METADATA_ARTIFACT_NAME, artifactName)
                 .putMetadataItem(METADATA_ARTIFACT_GROUP_ID, artifactGroupId));
+        implementationIndex.put(impl);
 
 
 
@@ -226,7 +244,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
         try {
             String[] deployKeys = {(String) implementation.getMetadata().get(METADATA_DEPLOY_KEY)};
             SourceRepository src = sourceRepositoryService.create("impl-" + implementation.getName(), (String) implementation.getMetadata().get(METADATA_PATH), deployKeys, onRepositoryReady);
-            patch(new Implementation().id(implementation.getId()).sourceRepository(src));
+            bufferPatch(new Implementation().id(implementation.getId()).sourceRepository(src));
         } catch (Exception e) {
             manageError(implementation, e);
         }
@@ -242,7 +260,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
             sourceRepository = sourceRepositoryService.getById(implementation.getSourceRepository().getId()).orElseThrow(() -> new IllegalStateException("Unable to find SourceRepository '" + implementation.getSourceRepository().getId() + "'"));
             Map<String, Object> args = ImmutableMap.of("dockerBinaryRepositoryHost", this.imageRegistryHost);
             Pipeline pipeline = pipelineService.create(implementation.getName(), pathPipeline, sourceRepository, template, credentialId, callback, args);
-            patch(new Implementation().id(implementation.getId()).pipeline(pipeline));
+            bufferPatch(new Implementation().id(implementation.getId()).pipeline(pipeline));
         } catch (Exception e) {
             manageError(implementation, e);
         }
@@ -298,7 +316,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
                 .addArgumentsItem(new CatalogEntryTemplateArgument().key("IMPLEMENTATION_VERSION").value(FIRST_VERSION));
         CatalogEntry catalogEntry = this.catalogEntryService.create(template);
         implementation.addCatalogEntriesItem(catalogEntry);
-        patch(new Implementation().id(implementation.getId()).addCatalogEntriesItem(catalogEntry));
+        bufferPatch(new Implementation().id(implementation.getId()).addCatalogEntriesItem(catalogEntry));
     }
 
 
@@ -310,15 +328,31 @@ public class ImplementationService extends AbstractResourceService<Implementatio
     }
 
 
+    /**
+     * Implementations owning the pipeline, among those the caller can see (indexed per caller)
+     */
+    public List<Implementation> getByPipeline(String pipelineId) throws ApiException {
+        return implementationIndex.find(INDEX_PIPELINE, pipelineId);
+    }
+
+    /**
+     * Implementations owning the source repository, among those the caller can see (indexed per caller)
+     */
+    public List<Implementation> getBySourceRepository(String sourceRepositoryId) throws ApiException {
+        return implementationIndex.find(INDEX_SOURCE_REPOSITORY, sourceRepositoryId);
+    }
+
     @Override
     public Optional<Implementation> getById(String implemId) throws ApiException {
-        Implementation implem = resourceManager.getImplementation(implemId);
+        Implementation implem = readThrough(implemId, resourceManager::getImplementation);
         return implem == null ? Optional.empty() : Optional.of(implem);
     }
 
     @Override
     public void patch(Implementation implem) throws ApiException {
         resourceManager.updateImplementationAttributes(implem.getId(), implem);
+        invalidate(implem.getId());
+        implementationIndex.merge(implem);
     }
 
 
@@ -331,6 +365,15 @@ public class ImplementationService extends AbstractResourceService<Implementatio
         return implementations;
     }
 
+    /**
+     * Page of implementations (indexed view), filterable on language
+     */
+    public Page<Implementation> getPage(ListQuery query) throws ApiException {
+        Map<String, Function<Implementation, String>> fields = ListQuery.resourceFields();
+        fields.put("language", implementation -> implementation.getLanguage() == null ? null : implementation.getLanguage().toString());
+        return implementationIndex.page(query, fields);
+    }
+
     public List<Implementation> fillImplementationWithVersions(List<Implementation> implementations, List<ImplementationVersion> implementationVersions) throws ApiException {
         if (implementations == null || implementations.isEmpty()) return new ArrayList<>();
 
@@ -356,6 +399,7 @@ public class ImplementationService extends AbstractResourceService<Implementatio
 
     public void delete(Implementation implementation, boolean purge) throws ApiException {
         try {
+            flushPatches(implementation.getId());
             Implementation implementationToDelete = resourceManager.getImplementation(implementation.getId());
             if (isDeleted(implementationToDelete)) {
                 return;
@@ -380,6 +424,8 @@ public class ImplementationService extends AbstractResourceService<Implementatio
                 sourceRepositoryService.delete(implementation.getSourceRepository(), purge);
             }
             resourceManager.deleteImplementation(implementation.getId());
+            invalidate(implementation.getId());
+            implementationIndex.remove(implementation.getId());
             implementation.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(implementation, e);
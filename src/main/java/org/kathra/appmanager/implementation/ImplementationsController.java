@@ -21,13 +21,16 @@ package org.kathra.appmanager.implementation;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.apiversion.ApiVersionService;
 import org.kathra.appmanager.component.ComponentService;
 import org.kathra.appmanager.implementationversion.ImplementationVersionService;
 import org.kathra.appmanager.model.ImplementationParameters;
 import org.kathra.appmanager.pipeline.PipelineService;
 import org.kathra.appmanager.service.ImplementationsService;
+import org.kathra.appmanager.service.JsonArrayStream;
+import org.kathra.appmanager.service.ListQuery;
+import org.kathra.appmanager.service.Page;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.ApiVersion;
@@ -39,8 +42,14 @@ import org.apache.camel.cdi.ContextName;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.inject.Named;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -58,7 +67,7 @@ public class ImplementationsController implements ImplementationsService {
     private final ApiVersionService apiVersionService;
 
     public ImplementationsController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.apiVersionService = serviceInjection.getService(ApiVersionService.class);
         this.implementationService = serviceInjection.getService(ImplementationService.class);
         this.implementationVersionService = serviceInjection.getService(ImplementationVersionService.class);
@@ -145,6 +154,29 @@ public class ImplementationsController implements ImplementationsService {
 
     }
 
+    /**
+     * Page of implementations with their versions, see {@link ListQuery} for the parameters ('language' filter)
+     */
+    public Page<Implementation> getImplementationsPage(Map<String, Object> parameters) throws Exception {
+        ListQuery query = ListQuery.of(parameters).filters(parameters, ListQuery.resourceFields().keySet()).filter("language", parameters == null ? null : parameters.get("language"));
+        Page<Implementation> page = implementationService.getPage(query);
+        List<ImplementationVersion> implementationVersions = implementationVersionService.getImplementationVersions(page.getItems());
+        return new Page<>(implementationService.fillImplementationWithVersions(page.getItems(), implementationVersions), page.getNextCursor(), page.getTotal());
+    }
 
-
-}
\ No newline at end of file
+    /**
+     * Implementations with their versions, each implementation is completed while the response is streamed
+     */
+    public InputStream getImplementationsStream() throws Exception {
+        List<Implementation> implementations = implementationService.getAll();
+        if (implementations == null || implementations.isEmpty()) return JsonArrayStream.of(new ArrayList<Implementation>());
+
+        Map<String, List<ImplementationVersion>> versionsByImplementation = implementationVersionService.getImplementationVersions(implementations).stream()
+                .filter(implementationVersion -> implementationVersion.getImplementation() != null && implementationVersion.getImplementation().getId() != null)
+                .collect(Collectors.groupingBy(implementationVersion -> implementationVersion.getImplementation().getId()));
+        return new JsonArrayStream<>(implementations.iterator(), implementation -> {
+            implementation.setVersions(new LinkedList<>(versionsByImplementation.getOrDefault(implementation.getId(), Collections.emptyList())));
+            return implementation;
+        });
+    }
+}
@@ -21,6 +21,7 @@ package org.kathra.appmanager.implementationversion;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.kathra.appmanager.apiversion.ApiSpec;
 import org.kathra.appmanager.apiversion.ApiVersionService;
 import org.kathra.appmanager.component.ComponentService;
 import org.kathra.appmanager.implementation.ImplementationService;
@@ -67,6 +68,7 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
     private Logger logger = LoggerFactory.getLogger(ImplementationVersionService.class);
 
     private String imageRegistryHost;
+    private ResourceIndex<ImplementationVersion> implementationVersionIndex;
 
     public ImplementationVersionService() {
         imageRegistryHost = null;
@@ -82,23 +84,31 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
         super.kathraSessionManager = kathraSessionManager;
         this.pipelineService = pipelineService;
         this.imageRegistryHost = config.getImageRegistryHost();
+        this.implementationVersionIndex = buildIndex(0);
     }
 
     public void configure(ServiceInjection serviceInjection) {
         super.configure(serviceInjection);
-        this.implementationVersionsClient = new ImplementationVersionsClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
+        this.implementationVersionsClient = serviceInjection.getClient(ImplementationVersionsClient.class, serviceInjection.getConfig().getResourceManagerUrl());
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
         this.implementationService = serviceInjection.getService(ImplementationService.class);
         this.pipelineService = serviceInjection.getService(PipelineService.class);
-        this.codegenClient = new CodegenClient(serviceInjection.getConfig().getCodegenUrl(), serviceInjection.getSessionManager());
+        this.codegenClient = serviceInjection.getClient(CodegenClient.class, serviceInjection.getConfig().getCodegenUrl());
         this.componentService = serviceInjection.getService(ComponentService.class);
         this.apiVersionService = serviceInjection.getService(ApiVersionService.class);
         this.imageRegistryHost = serviceInjection.getConfig().getImageRegistryHost();
+        this.implementationVersionIndex = buildIndex(serviceInjection.getConfig().getIndexResyncIntervalMs());
+    }
+
+    private ResourceIndex<ImplementationVersion> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<ImplementationVersion>("ImplementationVersion", () -> implementationVersionsClient.getImplementationVersions(), kathraSessionManager, resyncIntervalMs);
     }
 
     @Override
     protected void patch(ImplementationVersion object) throws ApiException {
         implementationVersionsClient.updateImplementationVersionAttributes(object.getId(), object);
+        invalidate(object.getId());
+        implementationVersionIndex.merge(object);
     }
 
     /**
@@ -109,13 +119,12 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
     public List<ImplementationVersion> getImplementationVersions(List<Implementation> implementations) throws ApiException {
         if (implementations == null || implementations.isEmpty())
             return new ArrayList<>();
-        return this.implementationVersionsClient.getImplementationVersions()
-                .stream().filter(implementationVersion -> implementations.stream().anyMatch(implementation -> implementationVersion.getImplementation().getId().equals(implementation.getId()))).collect(Collectors.toList());
+        return Joins.semiJoin(this.implementationVersionsClient.getImplementationVersions(), implementationVersion -> implementationVersion.getImplementation() == null ? null : implementationVersion.getImplementation().getId(), implementations, Implementation::getId);
     }
 
     @Override
     public Optional<ImplementationVersion> getById(String id) throws ApiException {
-        ImplementationVersion result = implementationVersionsClient.getImplementationVersion(id);
+        ImplementationVersion result = readThrough(id, implementationVersionsClient::getImplementationVersion);
         return result == null ? Optional.empty() : Optional.of(result);
     }
 
@@ -174,6 +183,7 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
         }
 
         ImplementationVersion implVersion = implementationVersionsClient.addImplementationVersion(new ImplementationVersion().name(implementation.getName()+":"+versionImpl).apiVersion(apiVersion).implementation(implementation).version(versionImpl).status(Resource.StatusEnum.PENDING));
+        implementationVersionIndex.put(implVersion);
         final Session session = kathraSessionManager.getCurrentSession();
         CompletableFuture.runAsync(() -> {
             try {
@@ -198,7 +208,7 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
         final String artifactGroup = (String) implVersion.getImplementation().getMetadata().get(ImplementationService.METADATA_ARTIFACT_GROUP_ID);
         final String artifactName = (String) implVersion.getImplementation().getMetadata().get(ImplementationService.METADATA_ARTIFACT_NAME);
         try {
-            final String content = new String ( java.nio.file.Files.readAllBytes( java.nio.file.Paths.get(apiFile.getAbsolutePath()) ) );
+            final String content = ApiSpec.of(apiFile).asString();
             return new CodeGenTemplate().name("SERVER_"+implVersion.getImplementation().getLanguage().toString()+"_REST")
                                         .addArgumentsItem(new CodeGenTemplateArgument().key("NAME").value(artifactName))
                                         .addArgumentsItem(new CodeGenTemplateArgument().key("GROUP").value(artifactGroup))
@@ -271,17 +281,20 @@ public class ImplementationVersionService extends AbstractResourceService<Implem
     private Build build(ImplementationVersion implementationVersion, Pipeline pipeline, Runnable callback) throws ApiException {
         Build build = pipelineService.build(pipeline, implementationVersion.getVersion(), ImmutableMap.of("DOCKER_URL", this.imageRegistryHost), callback);
         implementationVersion.putMetadataItem(METADATA_LAST_BUILD_NUMBER, build.getBuildNumber());
-        implementationVersionsClient.updateImplementationVersionAttributes(implementationVersion.getId(), new ImplementationVersion().metadata(implementationVersion.getMetadata()));
+        bufferPatch(new ImplementationVersion().id(implementationVersion.getId()).metadata(implementationVersion.getMetadata()));
         return build;
     }
 
     public void delete(ImplementationVersion version, boolean purge) throws ApiException {
         try {
+            flushPatches(version.getId());
             ImplementationVersion versionToDelete = implementationVersionsClient.getImplementationVersion(version.getId());
             if (isDeleted(versionToDelete)) {
                 return;
             }
             implementationVersionsClient.deleteImplementationVersion(versionToDelete.getId());
+            invalidate(versionToDelete.getId());
+            implementationVersionIndex.remove(versionToDelete.getId());
             version.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(version, e);
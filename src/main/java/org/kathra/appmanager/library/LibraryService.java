@@ -56,7 +56,7 @@ public class LibraryService extends AbstractResourceService<Library> {
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
         this.pipelineService = serviceInjection.getService(PipelineService.class);
         this.componentService = serviceInjection.getService(ComponentService.class);
-        this.resourceManager = new LibrariesClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
+        this.resourceManager = serviceInjection.getClient(LibrariesClient.class, serviceInjection.getConfig().getResourceManagerUrl());
     }
 
     public LibraryService(LibrariesClient resourceManager, ComponentService componentService, PipelineService pipelineService, SourceRepositoryService sourceRepositoryService, KathraSessionManager kathraSessionManager) {
@@ -122,7 +122,7 @@ public class LibraryService extends AbstractResourceService<Library> {
                     kathraSessionManager.handleSession(session);
                     SourceRepository sourceRepository = sourceRepositoryService.createLibraryRepository(library, () -> validationSourceRepositoryReady(library, callback));
                     // Patch library with new source repository
-                    this.patch(new Library().id(library.getId()).sourceRepository(sourceRepository));
+                    bufferPatch(new Library().id(library.getId()).sourceRepository(sourceRepository));
                 } catch (Exception e) {
                     manageError(library, e);
                     if (callback != null) {
@@ -243,11 +243,17 @@ public class LibraryService extends AbstractResourceService<Library> {
     @Override
     public void patch(Library object) throws ApiException {
         resourceManager.updateLibraryAttributes(object.getId(), object);
+        written(object);
+    }
+
+    @Override
+    protected boolean isMemoizedInWorkflow() {
+        return true;
     }
 
     @Override
     public Optional<Library> getById(String id) throws ApiException {
-        Library lib = resourceManager.getLibrary(id);
+        Library lib = readThrough(id, resourceManager::getLibrary);
         return lib == null ? Optional.empty() : Optional.of(lib);
     }
 
@@ -258,6 +264,7 @@ public class LibraryService extends AbstractResourceService<Library> {
 
     public void delete(Library library, boolean force, boolean purge) throws ApiException {
         try {
+            flushPatches(library.getId());
             Library libraryToDeleted = resourceManager.getLibrary(library.getId());
             if (isDeleted(libraryToDeleted)) {
                 return;
@@ -269,6 +276,7 @@ public class LibraryService extends AbstractResourceService<Library> {
                 sourceRepositoryService.delete(libraryToDeleted.getSourceRepository(), purge);
             }
             resourceManager.deleteLibrary(library.getId());
+            invalidate(library.getId());
             library.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(library, e);
@@ -21,6 +21,7 @@ package org.kathra.appmanager.libraryapiversion;
 
 import javassist.NotFoundException;
 import org.apache.commons.lang3.StringUtils;
+import org.kathra.appmanager.apiversion.ApiSpec;
 import org.kathra.appmanager.apiversion.ApiVersionService;
 import org.kathra.appmanager.library.LibraryService;
 import org.kathra.appmanager.pipeline.PipelineService;
@@ -63,11 +64,11 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
 
     public void configure(ServiceInjection serviceInjection) {
         super.configure(serviceInjection);
-        this.resourceManager = new LibraryApiVersionsClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
+        this.resourceManager = serviceInjection.getClient(LibraryApiVersionsClient.class, serviceInjection.getConfig().getResourceManagerUrl());
         sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
         pipelineService = serviceInjection.getService(PipelineService.class);
         libraryService = serviceInjection.getService(LibraryService.class);
-        codegenClient = new CodegenClient(serviceInjection.getConfig().getCodegenUrl(), serviceInjection.getSessionManager());
+        codegenClient = serviceInjection.getClient(CodegenClient.class, serviceInjection.getConfig().getCodegenUrl());
         apiVersionService = serviceInjection.getService(ApiVersionService.class);
     }
 
@@ -84,11 +85,12 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
     @Override
     protected void patch(LibraryApiVersion object) throws ApiException {
         resourceManager.updateLibraryApiVersionAttributes(object.getId(), object);
+        invalidate(object.getId());
     }
 
     @Override
     public Optional<LibraryApiVersion> getById(String id) throws ApiException {
-        LibraryApiVersion libraryApiVersion = resourceManager.getLibraryApiVersion(id);
+        LibraryApiVersion libraryApiVersion = readThrough(id, resourceManager::getLibraryApiVersion);
         return libraryApiVersion == null ? Optional.empty() : Optional.of(libraryApiVersion);
     }
 
@@ -217,7 +219,7 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
 
 
 
-        patch(new LibraryApiVersion().id(libraryApiVersionWithDetails.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.UPDATING).status(Resource.StatusEnum.UPDATING));
+        bufferPatch(new LibraryApiVersion().id(libraryApiVersionWithDetails.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.UPDATING).status(Resource.StatusEnum.UPDATING));
 
         final Session session = kathraSessionManager.getCurrentSession();
         CompletableFuture.runAsync(() -> {
@@ -244,7 +246,7 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
         final String artifactGroup = (String) libraryApiVersion.getApiVersion().getMetadata().get(ApiVersionService.METADATA_API_GROUP_ID);
         final String artifactName = (String) libraryApiVersion.getApiVersion().getMetadata().get(ApiVersionService.METADATA_API_ARTIFACT_NAME);
         try {
-            final String content = new String ( java.nio.file.Files.readAllBytes( java.nio.file.Paths.get(apiFile.getAbsolutePath()) ) );
+            final String content = ApiSpec.of(apiFile).asString();
             return new CodeGenTemplate().name("LIBRARY_"+libraryApiVersion.getLibrary().getLanguage().toString()+"_REST_"+libraryApiVersion.getLibrary().getType())
                                         .addArgumentsItem(new CodeGenTemplateArgument().key("NAME").value(artifactName))
                                         .addArgumentsItem(new CodeGenTemplateArgument().key("GROUP").value(artifactGroup))
@@ -274,12 +276,12 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
                     throw e;
                 }
             }
-            this.patch(new LibraryApiVersion().id(libraryApiVersion.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.READY));
+            bufferPatch(new LibraryApiVersion().id(libraryApiVersion.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.READY));
             if (callback != null) {
                 callback.run();
             }
         } catch(Exception e){
-            patch(new LibraryApiVersion().id(libraryApiVersion.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.ERROR));
+            bufferPatch(new LibraryApiVersion().id(libraryApiVersion.getId()).apiRepositoryStatus(LibraryApiVersion.ApiRepositoryStatusEnum.ERROR));
             throw e;
         }
     }
@@ -313,7 +315,7 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
         Build build = pipelineService.build(pipeline.get(), apiVersionWithDetails.getVersion(), null, callbackIfBuildIsFinished);
         libraryApiVersionWithDetails.setPipelineStatus(LibraryApiVersion.PipelineStatusEnum.PENDING);
         libraryApiVersionWithDetails.putMetadataItem(METADATA_LAST_BUILD_NUMBER, build.getBuildNumber());
-        patch(libraryApiVersionWithDetails);
+        bufferPatch(libraryApiVersionWithDetails);
         return build;
     }
 
@@ -339,7 +341,7 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
                 case SUCCESS:
                     logger.info("LibraryApiVersion '" + libraryApiVersion.getId() + "' '" + libraryApiVersion.getName() + "' has been build");
                     libraryApiVersion.pipelineStatus(LibraryApiVersion.PipelineStatusEnum.READY);
-                    patch(new LibraryApiVersion().id(libraryApiVersion.getId()).pipelineStatus(LibraryApiVersion.PipelineStatusEnum.READY));
+                    bufferPatch(new LibraryApiVersion().id(libraryApiVersion.getId()).pipelineStatus(LibraryApiVersion.PipelineStatusEnum.READY));
                     if (!isReady(libraryApiVersion)) {
                         updateStatus(libraryApiVersion, Resource.StatusEnum.READY);
                     }
@@ -348,7 +350,7 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
                     }
                     return true;
                 case FAILED:
-                    patch(new LibraryApiVersion().id(libraryApiVersion.getId()).pipelineStatus(LibraryApiVersion.PipelineStatusEnum.ERROR));
+                    bufferPatch(new LibraryApiVersion().id(libraryApiVersion.getId()).pipelineStatus(LibraryApiVersion.PipelineStatusEnum.ERROR));
                     throw new Exception("An error occurred during building libraryApiVersion '" + libraryApiVersion.getId() + "' '" + libraryApiVersion.getName());
                 default:
                     throw new IllegalStateException("LibraryApiVersion '" + libraryApiVersion.getId() + "' '" + libraryApiVersion.getName() + " building have not implemented status "+build.getStatus());
@@ -364,9 +366,11 @@ public class LibraryApiVersionService extends AbstractResourceService<LibraryApi
 
     public void delete(LibraryApiVersion libApiVersion, boolean purge) throws ApiException {
         try {
+            flushPatches(libApiVersion.getId());
             LibraryApiVersion libApiVersionToDeleted = resourceManager.getLibraryApiVersion(libApiVersion.getId());
             if (!isDeleted(libApiVersionToDeleted)) {
                 resourceManager.deleteLibraryApiVersion(libApiVersionToDeleted.getId());
+                invalidate(libApiVersionToDeleted.getId());
                 libApiVersion.status(Resource.StatusEnum.DELETED);
             }
         } catch (ApiException e) {
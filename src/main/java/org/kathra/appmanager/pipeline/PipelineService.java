@@ -23,6 +23,7 @@ import org.kathra.appmanager.component.ComponentService;
 import org.kathra.appmanager.library.LibraryService;
 import org.kathra.appmanager.service.AbstractResourceService;
 import org.kathra.appmanager.service.ServiceInjection;
+import org.kathra.appmanager.service.resilience.RetryPolicy;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
 import org.kathra.core.model.*;
 import org.kathra.pipelinemanager.client.PipelineManagerClient;
@@ -65,8 +66,8 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
 
     public void configure(ServiceInjection serviceInjection) {
         super.configure(serviceInjection);
-        this.resourceManager = new PipelinesClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
-        this.pipelineManagerClient = new PipelineManagerClient(serviceInjection.getConfig().getPipelineManagerUrl(), serviceInjection.getSessionManager());
+        this.resourceManager = serviceInjection.getClient(PipelinesClient.class, serviceInjection.getConfig().getResourceManagerUrl());
+        this.pipelineManagerClient = serviceInjection.getClient(PipelineManagerClient.class, serviceInjection.getConfig().getPipelineManagerUrl());
         this.libraryService = serviceInjection.getService(LibraryService.class);
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
         this.componentService = serviceInjection.getService(ComponentService.class);
@@ -176,6 +177,10 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
                             throw new NotImplementedException("Build status not implemented " + buildWithStatus.getStatus());
                     }
                 } catch(ApiException exception) {
+                    // transient errors wait for the next check, others can't recover
+                    if (!RetryPolicy.getDefault().isRetryable(exception)) {
+                        throw exception;
+                    }
                     logger.warn(exception.getMessage(), exception);
                 }
             }
@@ -290,8 +295,8 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
                 throw e;
             }
         }
-        patch.status(Resource.StatusEnum.READY);
-        resourceManager.updatePipelineAttributes(pipeline.getId(), patch);
+        patch.id(pipeline.getId()).status(Resource.StatusEnum.READY);
+        bufferPatch(patch);
     }
 
     public Pipeline createLibraryPipeline(Library library, Runnable callback) throws ApiException {
@@ -347,7 +352,7 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
         }
 
         Pipeline pipeline = create(library.getName(), path, sourceRepository, template, credentialId, callback);
-        libraryService.patch(new Library().id(library.getId()).pipeline(pipeline));
+        libraryService.bufferPatch(new Library().id(library.getId()).pipeline(pipeline));
         return pipeline;
     }
 
@@ -358,10 +363,11 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
     @Override
     protected void patch(Pipeline object) throws ApiException {
         resourceManager.updatePipelineAttributes(object.getId(), object);
+        invalidate(object.getId());
     }
 
     public Optional<Pipeline> getById(String id) throws ApiException {
-        Pipeline pipeline = resourceManager.getPipeline(id);
+        Pipeline pipeline = readThrough(id, resourceManager::getPipeline);
         return pipeline == null ? Optional.of(null) : Optional.of(pipeline);
     }
 
@@ -376,6 +382,7 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
 
     public void delete(Pipeline pipeline, boolean purge) throws ApiException {
         try {
+            flushPatches(pipeline.getId());
             Pipeline pipelineToDeleted = resourceManager.getPipeline(pipeline.getId());
             if (isDeleted(pipelineToDeleted)) {
                 return;
@@ -386,6 +393,7 @@ public class PipelineService extends AbstractResourceService<Pipeline> {
             }
 
             resourceManager.deletePipeline(pipelineToDeleted.getId());
+            invalidate(pipelineToDeleted.getId());
             pipeline.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(pipeline, e);
@@ -19,9 +19,9 @@
  */
 package org.kathra.appmanager.pipeline;
 
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.implementation.ImplementationService;
 import org.kathra.appmanager.service.PipelinesService;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.core.model.Build;
 import org.kathra.core.model.Pipeline;
@@ -50,7 +50,7 @@ public class PipelinesController implements PipelinesService {
     }
 
     public PipelinesController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.pipelineService = serviceInjection.getService(PipelineService.class);
         this.implementationService = serviceInjection.getService(ImplementationService.class);
     }
@@ -68,7 +68,7 @@ public class PipelinesController implements PipelinesService {
 
     private Pipeline getPipeline(String pipelineId) throws ApiException, KathraException {
         Pipeline pipeline = pipelineService.getById(pipelineId).orElseThrow(() -> new KathraException("Pipeline "+pipelineId+" not found", null,KathraException.ErrorCode.NOT_FOUND));
-        boolean pipelineImplementationAuthorized = implementationService.getAll().stream().anyMatch(implementation -> implementation.getPipeline() != null && implementation.getPipeline().getId() != null && implementation.getPipeline().getId().equals(pipelineId));
+        boolean pipelineImplementationAuthorized = !implementationService.getByPipeline(pipelineId).isEmpty();
         if (!pipelineImplementationAuthorized) {
             throw new KathraException("Pipeline's implementation '"+pipelineId+"' forbidden", null,KathraException.ErrorCode.FORBIDDEN);
         }
@@ -22,15 +22,12 @@ package org.kathra.appmanager.service;
 import org.kathra.core.model.Resource;
 import org.kathra.utils.ApiException;
 import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -40,11 +37,270 @@ public abstract class AbstractResourceService<X extends Resource> implements Inj
 
     protected Logger logger = LoggerFactory.getLogger(this.getClass());
     protected KathraSessionManager kathraSessionManager;
+    private EntityCache<X> entityCache;
+    private long workflowContextTtlMs;
+    private int fetchConcurrency;
+    private PatchBuffer<X> patchBuffer;
+
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "resource-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
 
 
 
     public void configure(ServiceInjection serviceInjection) {
         kathraSessionManager = serviceInjection.getSessionManager();
+        if (serviceInjection.getConfig().getEntityCacheSize() > 0) {
+            entityCache = new EntityCache<>(getResourceType(), serviceInjection.getConfig().getEntityCacheSize(), serviceInjection.getConfig().getEntityCacheTtlMs());
+        }
+        workflowContextTtlMs = serviceInjection.getConfig().getWorkflowContextTtlMs();
+        fetchConcurrency = serviceInjection.getConfig().getFetchConcurrency();
+        patchBuffer = new PatchBuffer<>(getResourceType(), serviceInjection.getConfig().getPatchWindowMs(), this::patch, this::manageError, kathraSessionManager);
+    }
+
+    private String getResourceType() {
+        return getClass().getSimpleName().replace("Service", "");
+    }
+
+    private Session getCurrentSession() {
+        return kathraSessionManager == null ? null : kathraSessionManager.getCurrentSession();
+    }
+
+    private String getScope(Session session) {
+        return session == null || session.getCallerName() == null ? "" : session.getCallerName();
+    }
+
+    /**
+     * Resources memoized by the workflow contexts, only resources whose writes all go through this service
+     */
+    protected boolean isMemoizedInWorkflow() {
+        return false;
+    }
+
+    /**
+     * Open the workflow context of a resource for the current session (when enabled)
+     * @param resource resource created by the workflow, with id
+     */
+    protected final void openWorkflow(X resource) {
+        WorkflowContext.open(getCurrentSession(), getWorkflowId(resource), workflowContextTtlMs);
+    }
+
+    /**
+     * Close the workflow context of a resource, other workflows of the session are left opened
+     */
+    protected final void closeWorkflow(X resource) {
+        WorkflowContext.close(getWorkflowId(resource));
+    }
+
+    /**
+     * Id of the workflow context of a resource, to {@link WorkflowContext#bind} a thread working on it
+     */
+    public final String getWorkflowId(X resource) {
+        return resource == null || resource.getId() == null ? null : getResourceType() + " " + resource.getId();
+    }
+
+    /**
+     * Load a resource through the entity cache (when enabled)
+     * @param id resource's id
+     * @param loader call to the resource manager
+     * @return resource or null
+     */
+    protected final X readThrough(String id, EntityCache.Loader<X> loader) throws ApiException {
+        flushBeforeRead(id);
+        final Session session = getCurrentSession();
+        final EntityCache.Loader<X> cachedLoader = entityCache == null ? loader : i -> entityCache.get(getScope(session), i, loader);
+        WorkflowContext workflowContext = isMemoizedInWorkflow() ? WorkflowContext.of(session) : null;
+        return workflowContext == null ? cachedLoader.load(id) : workflowContext.read(getResourceType(), id, cachedLoader);
+    }
+
+    /**
+     * Get several resources, each id once. Cached resources are served directly, the others are fetched with
+     * {@link #getById} by up to 'fetchConcurrency' workers (sequentially when the concurrency isn't configured).
+     * @param ids resources' ids
+     * @return resources found, in the order of the ids
+     * @throws ApiException first failure of a fetch, the other fetches are stopped
+     */
+    public final List<X> getByIds(Collection<String> ids) throws ApiException {
+        return getByIds(ids, this::fetch);
+    }
+
+    /**
+     * Get several resources like {@link #getByIds(Collection)}, a resource that can't be fetched is logged and skipped
+     * without failing the others
+     * @param ids resources' ids
+     * @return resources fetched, in the order of the ids
+     */
+    public final List<X> getAvailableByIds(Collection<String> ids) {
+        return getByIds(ids, this::fetchAvailable);
+    }
+
+    @FunctionalInterface
+    private interface Fetcher<X, E extends Exception> {
+        void fetch(Queue<String> toFetch, Map<String, X> found) throws E;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> List<X> getByIds(Collection<String> ids, Fetcher<X, E> fetcher) throws E {
+        final Session session = getCurrentSession();
+        final List<String> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        final Map<String, X> found = new ConcurrentHashMap<>();
+        final Queue<String> toFetch = new ConcurrentLinkedQueue<>();
+        // the workflow context is more recent than the entity cache
+        final boolean peekCache = entityCache != null && (!isMemoizedInWorkflow() || WorkflowContext.of(session) == null);
+        for (String id : distinctIds) {
+            X cached = peekCache ? entityCache.peek(getScope(session), id) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                toFetch.add(id);
+            }
+        }
+
+        final List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 1; i < Math.min(fetchConcurrency, toFetch.size()); i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                // pooled thread, its session is restored for the next task
+                final Session previous = kathraSessionManager.getCurrentSession();
+                kathraSessionManager.handleSession(session);
+                try {
+                    fetcher.fetch(toFetch, found);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    kathraSessionManager.handleSession(previous);
+                }
+            }, FETCH_EXECUTOR));
+        }
+        // the caller is a worker too
+        try {
+            fetcher.fetch(toFetch, found);
+        } finally {
+            for (CompletableFuture<Void> worker : workers) {
+                try {
+                    worker.join();
+                } catch (CompletionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    // workers only throw what the fetcher declares
+                    throw (E) cause;
+                }
+            }
+        }
+        return distinctIds.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private void fetch(Queue<String> toFetch, Map<String, X> found) throws ApiException {
+        String id;
+        while ((id = toFetch.poll()) != null) {
+            try {
+                final Optional<X> resource = getById(id);
+                if (resource != null && resource.isPresent()) {
+                    found.put(id, resource.get());
+                }
+            } catch (ApiException | RuntimeException e) {
+                // stop the other workers
+                toFetch.clear();
+                throw e;
+            }
+        }
+    }
+
+    private void fetchAvailable(Queue<String> toFetch, Map<String, X> found) {
+        String id;
+        while ((id = toFetch.poll()) != null) {
+            try {
+                final Optional<X> resource = getById(id);
+                if (resource != null && resource.isPresent()) {
+                    found.put(id, resource.get());
+                }
+            } catch (ApiException | RuntimeException e) {
+                logger.error("Unable to get " + getResourceType() + " '" + id + "'", e);
+            }
+        }
+    }
+
+    /**
+     * Patch a resource through the patch buffer (when enabled) : patches of the same resource are merged and written
+     * later, in submission order. Every patch of the resource goes through here, a write failing in background sets
+     * the resource in error.
+     * @param patch patch with id
+     */
+    public final void bufferPatch(X patch) throws ApiException {
+        if (patchBuffer == null) {
+            patch(patch);
+        } else {
+            patchBuffer.submit(patch);
+        }
+    }
+
+    /**
+     * Write the buffered patches of a resource, to call before reading or deleting it
+     * @param id resource's id
+     */
+    protected final void flushPatches(String id) throws ApiException {
+        if (patchBuffer != null) {
+            patchBuffer.flush(id);
+        }
+    }
+
+    /**
+     * Write the pending patch before reading the resource. A failed write is queued again by the buffer and reported
+     * by its writer, the read goes on with the resource as stored.
+     */
+    private void flushBeforeRead(String id) {
+        try {
+            flushPatches(id);
+        } catch (ApiException | RuntimeException e) {
+            logger.warn("Pending patch of " + getResourceType() + " '" + id + "' not written before read : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evict a resource from the entity cache and the workflow context, to call after each write
+     * @param id resource's id
+     */
+    protected final void invalidate(String id) {
+        if (entityCache != null) {
+            entityCache.invalidate(id);
+        }
+        for (WorkflowContext workflowContext : WorkflowContext.all(getCurrentSession())) {
+            workflowContext.forget(getResourceType(), id);
+        }
+    }
+
+    /**
+     * Write the pending patch before reading the resource. A failed write is queued again by the buffer and reported
+     * by its writer, the read goes on with the resource as stored.
+     */
+    private void flushBeforeRead(String id) {
+        try {
+            flushPatches(id);
+        } catch (ApiException | RuntimeException e) {
+            logger.warn("Pending patch of " + getResourceType() + " '" + id + "' not written before read : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evict a resource from the entity cache and merge the patch into the workflow context, to call after each patch
+     * @param patch patch sent, with id
+     */
+    protected final void written(X patch) {
+        if (entityCache != null) {
+            entityCache.invalidate(patch.getId());
+        }
+        if (isMemoizedInWorkflow()) {
+            for (WorkflowContext workflowContext : WorkflowContext.all(getCurrentSession())) {
+                workflowContext.write(getResourceType(), patch);
+            }
+        }
     }
 
     public boolean isReady(Resource resource) {
@@ -73,7 +329,8 @@ public abstract class AbstractResourceService<X extends Resource> implements Inj
                 patched.setId(object.getId());
                 object.setStatus(status);
                 patched.setStatus(status);
-                patch(patched);
+                bufferPatch(patched);
+                written(patched);
                 logger.info("Resource " + object.getId() + " has status " + status);
             }
         } catch(Exception e){
@@ -83,26 +340,30 @@ public abstract class AbstractResourceService<X extends Resource> implements Inj
 
     protected abstract void patch(X object) throws ApiException;
 
+    /**
+     * Set the resource in error, its detail is kept by the {@link ErrorStore}, the resource only carries the error code
+     * and the fingerprint of the detail. The workflow of the resource ends.
+     */
     protected void manageError(X object, Exception exception) {
         logger.error("Error occurred for resource " + object.getClass() + " with id "+object.getId(), exception);
-        StringWriter writer = new StringWriter();
-        PrintWriter printWriter= new PrintWriter(writer);
-        exception.printStackTrace(printWriter);
         try {
             if (object.getId() != null) {
+                ErrorStore.Detail detail = ErrorStore.getDefault().record(object.getId(), id -> getById(id).isPresent(), exception);
                 X patched = (X) object.getClass().getConstructors()[0].newInstance();
                 patched.setId(object.getId());
                 object.setStatus(Resource.StatusEnum.ERROR);
                 patched.setStatus(Resource.StatusEnum.ERROR);
-                patched.putMetadataItem("error-stack-trace", writer.toString());
-                patch(patched);
-                logger.info("Resource " + object.getId() + " has status " + Resource.StatusEnum.ERROR);
+                patched.putMetadataItem(ErrorStore.METADATA_ERROR_CODE, detail.getCode());
+                patched.putMetadataItem(ErrorStore.METADATA_ERROR_FINGERPRINT, detail.getFingerprint());
+                bufferPatch(patched);
+                flushPatches(patched.getId());
+                written(patched);
+                logger.info("Resource " + object.getId() + " has status " + Resource.StatusEnum.ERROR + " (error " + detail.getFingerprint() + ")");
             }
         } catch(Exception e){
             logger.error("Unable to change resource " + object.getId() + " status to " + Resource.StatusEnum.ERROR, e);
         } finally {
-            printWriter.flush();
-            exception.printStackTrace();
+            closeWorkflow(object);
         }
     }
 
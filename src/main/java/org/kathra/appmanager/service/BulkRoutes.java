@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.kathra.appmanager.component.ComponentBulk;
+
+/**
+ * Bulk endpoints : several resources created in one call, eg. 'POST /bulk/components' with
+ * '[{"component": {"name": "...", "metadata": {"groupPath": "..."}}, "openApi": "swagger: '2.0' ..."}]'
+ *
+ * @author julien.boubechtoula
+ */
+public class BulkRoutes extends RouteBuilder {
+
+    @Override
+    public void configure() {
+        rest("/bulk")
+                .post("/components").type(ComponentBulk.Item[].class).to("bean:ComponentsController?method=createComponents");
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.Proxy;
+import javassist.util.proxy.ProxyFactory;
+import org.kathra.appmanager.service.resilience.Downstream;
+import org.kathra.appmanager.service.resilience.Hedger;
+import org.kathra.appmanager.service.resilience.RetryPolicy;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of downstream clients (resource manager, source manager, pipeline manager, codegen, catalog
+ * manager...).
+ *
+ * A client is built once per (client type, url, session manager) and shared by every service and controller, instead
+ * of one client instance (and its decoration) per service. Clients hold their session manager, so they are kept until
+ * {@link #release} : session managers are expected to be long-lived (one per controller, one per reconciled user).
+ *
+ * Calls of the clients (public methods throwing exceptions) go through the {@link RetryPolicy} and the
+ * {@link Downstream} of their host : retries, bulkhead and circuit breaker. Calls are idempotent by name (get*, *Get,
+ * update*, delete*), the others (add*, create*...) are only retried when the request couldn't be sent. Reads of hosts
+ * with a {@link Hedger} are hedged. Only the outermost call is decorated, the calls a client method makes to other public methods of the client
+ * (eg. xxx() to xxxWithHttpInfo()) run as part of it.
+ *
+ * @author julien.boubechtoula
+ */
+public final class DownstreamClients {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamClients.class);
+    private static final Map<KathraSessionManager, Map<String, Object>> CLIENTS = new IdentityHashMap<>();
+    private static final MethodFilter API_CALLS = method -> Modifier.isPublic(method.getModifiers()) && method.getExceptionTypes().length > 0;
+
+    private DownstreamClients() {
+    }
+
+    /**
+     * Shared client for the url, built with the constructor (String url, KathraSessionManager) or (String url) when
+     * there is no session manager
+     */
+    public static <T> T get(Class<T> clientClass, String url, KathraSessionManager sessionManager) {
+        final String key = clientClass.getName() + " " + url;
+        final String metric = "downstream." + getHost(url);
+        synchronized (CLIENTS) {
+            Map<String, Object> clients = CLIENTS.computeIfAbsent(sessionManager, s -> new HashMap<>());
+            Object client = clients.get(key);
+            if (client != null) {
+                Metrics.increment(metric + ".client-instance-shared");
+                return clientClass.cast(client);
+            }
+            try {
+                T created = build(clientClass, url, sessionManager);
+                clients.put(key, created);
+                Metrics.increment(metric + ".client-instance-created");
+                return created;
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Unable to build client " + clientClass.getSimpleName() + " for " + url, e);
+            }
+        }
+    }
+
+    /**
+     * Drop the clients built for the session manager
+     */
+    public static void release(KathraSessionManager sessionManager) {
+        synchronized (CLIENTS) {
+            CLIENTS.remove(sessionManager);
+        }
+    }
+
+    static int size() {
+        synchronized (CLIENTS) {
+            return CLIENTS.size();
+        }
+    }
+
+    private static <T> T build(Class<T> clientClass, String url, KathraSessionManager sessionManager) throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
+        Class<?> proxyClass;
+        try {
+            ProxyFactory factory = new ProxyFactory();
+            factory.setSuperclass(clientClass);
+            factory.setFilter(API_CALLS);
+            proxyClass = factory.createClass();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to decorate client " + clientClass.getSimpleName() + ", calls to " + url + " are not protected", e);
+            proxyClass = clientClass;
+        }
+        Object client = sessionManager == null ? proxyClass.getConstructor(String.class).newInstance(url)
+                                               : proxyClass.getConstructor(String.class, KathraSessionManager.class).newInstance(url, sessionManager);
+        if (client instanceof Proxy) {
+            final String host = getHost(url);
+            final Downstream downstream = Downstream.of(host);
+            final Hedger hedger = Hedger.of(host);
+            // set on the thread running a decorated call of this client
+            final ThreadLocal<Boolean> inCall = new ThreadLocal<>();
+            ((Proxy) client).setHandler((self, method, proceed, args) -> {
+                if (inCall.get() != null) {
+                    // nested call, already retried and counted by the outer one
+                    return invoke(proceed, self, args);
+                }
+                Downstream.Call<Object> call = () -> downstream.call(() -> {
+                    inCall.set(Boolean.TRUE);
+                    try {
+                        return invoke(proceed, self, args);
+                    } finally {
+                        inCall.remove();
+                    }
+                });
+                if (hedger != null && method.getName().startsWith("get")) {
+                    call = hedged(hedger, call, sessionManager);
+                }
+                return RetryPolicy.getDefault().call(host, isIdempotent(method), call);
+            });
+        }
+        return clientClass.cast(client);
+    }
+
+    static boolean isIdempotent(Method method) {
+        final String name = method.getName();
+        return name.startsWith("get") || name.endsWith("Get") || name.startsWith("update") || name.startsWith("delete");
+    }
+
+    private static Object invoke(Method proceed, Object self, Object[] args) throws Throwable {
+        try {
+            return proceed.invoke(self, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads (get*) are idempotent and can be hedged, hedged requests run on other threads with the caller's session
+     */
+    private static Downstream.Call<Object> hedged(Hedger hedger, Downstream.Call<Object> call, KathraSessionManager sessionManager) {
+        final Session session = sessionManager == null ? null : sessionManager.getCurrentSession();
+        return () -> hedger.call(() -> {
+            if (session != null) {
+                sessionManager.handleSession(session);
+            }
+            return call.call();
+        });
+    }
+
+    /**
+     * Host of the url, with its port when set : downstreams on the same host are distinct
+     */
+    static String getHost(String url) {
+        try {
+            URI uri = URI.create(url);
+            String host = uri.getHost();
+            return host == null ? url : uri.getPort() < 0 ? host : host + ":" + uri.getPort();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return String.valueOf(url);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.model.ToDefinition;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conditional GET on the REST endpoints, including the generated routes : the response carries an ETag, the hash of
+ * the body actually served, and a request whose 'If-None-Match' matches is answered 304 without the body.
+ *
+ * The controller is always called, the ETag can't be older than the response : it saves the transfer of unchanged
+ * responses, not their computation.
+ *
+ * @author julien.boubechtoula
+ */
+public class ETagRoutes extends RouteBuilder {
+
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String GET = "GET";
+    private static final Pattern PATTERN_BEAN_URI = Pattern.compile("^bean:([^?]+)\\?(?:.*&)?method=([A-Za-z0-9_]+)");
+    private static final ObjectWriter WRITER = new ObjectMapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    @Override
+    public void configure() {
+        getContext().addInterceptStrategy((context, definition, target, nextTarget) -> FieldsRoutes.isRestController(definition) ? conditional(((ToDefinition) definition).getUri(), target) : target);
+    }
+
+    static Processor conditional(String uri, Processor controller) {
+        final Matcher matcher = PATTERN_BEAN_URI.matcher(String.valueOf(uri));
+        final String name = matcher.find() ? matcher.group(1) + "." + matcher.group(2) : "rest";
+        return exchange -> {
+            final boolean get = GET.equals(exchange.getIn().getHeader(Exchange.HTTP_METHOD, String.class));
+            final String ifNoneMatch = exchange.getIn().getHeader(HEADER_IF_NONE_MATCH, String.class);
+            // the selected fields change the representation
+            final Object fields = exchange.getIn().getHeader(Fields.PARAM_FIELDS);
+            controller.process(exchange);
+            if (!get || exchange.getException() != null) {
+                return;
+            }
+            Message response = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+            final String etag = etag(response.getBody(), fields);
+            if (etag == null) {
+                return;
+            }
+            response.setHeader(HEADER_ETAG, etag);
+            if (matches(ifNoneMatch, etag)) {
+                Metrics.increment("etag." + name + ".not-modified");
+                response.setBody(null);
+                response.setHeader(Exchange.HTTP_RESPONSE_CODE, 304);
+            }
+        };
+    }
+
+    /**
+     * Strong validator of a response : hash of its JSON serialization (map entries sorted) and of the selected fields
+     * @return null if the body isn't a JSON response (stream, empty...)
+     */
+    static String etag(Object body, Object fields) throws NoSuchAlgorithmException {
+        if (body == null || !(Fields.isPrunable(body) || body instanceof RawValue)) {
+            return null;
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try {
+            digest.update(WRITER.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        digest.update((byte) 0);
+        digest.update((fields == null ? "" : fields.toString()).getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        byte[] hash = digest.digest();
+        for (int i = 0; i < 12; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return "\"" + hex + "\"";
+    }
+
+    /**
+     * 'If-None-Match' comparison : weak comparison of each listed ETag, '*' matches any
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || (value.startsWith("W/") ? value.substring(2) : value).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.kathra.utils.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded read-through cache of resources by id, with a short TTL as safety net.
+ *
+ * Entries are scoped (by caller) because the resource manager filters resources according to the caller's rights.
+ * Concurrent loads of the same entry are de-duplicated. Resources are mutable, so each reader gets its own copy.
+ *
+ * @author julien.boubechtoula
+ */
+public class EntityCache<X> {
+
+    @FunctionalInterface
+    public interface Loader<X> {
+        X load(String id) throws ApiException;
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    private static final String SEPARATOR = "\u0000";
+
+    private final Logger logger = LoggerFactory.getLogger(EntityCache.class);
+
+    private final String type;
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, Entry<X>> entries;
+    private final Map<String, CompletableFuture<X>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private static class Entry<X> {
+        final X value;
+        final long expireAt;
+
+        Entry(X value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    public EntityCache(String type, int maxSize, long ttlMs) {
+        this.type = type;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<String, Entry<X>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<X>> eldest) {
+                return size() > EntityCache.this.maxSize;
+            }
+        };
+    }
+
+    public X get(String scope, String id, Loader<X> loader) throws ApiException {
+        if (id == null) {
+            return loader.load(id);
+        }
+        final String key = id + SEPARATOR + scope;
+        synchronized (entries) {
+            Entry<X> entry = entries.get(key);
+            if (entry != null && entry.expireAt > System.currentTimeMillis()) {
+                Metrics.increment("entity-cache." + type + ".hit");
+                return copy(entry.value);
+            }
+        }
+        Metrics.increment("entity-cache." + type + ".miss");
+
+        CompletableFuture<X> load = new CompletableFuture<>();
+        CompletableFuture<X> pending = loading.putIfAbsent(key, load);
+        if (pending != null) {
+            Metrics.increment("entity-cache." + type + ".shared-load");
+            try {
+                return copy(await(pending));
+            } catch (IllegalArgumentException e) {
+                return loader.load(id);
+            }
+        }
+        final long loadGeneration = generation.get();
+        try {
+            X value = loader.load(id);
+            if (value != null && loadGeneration == generation.get()) {
+                store(key, value, loadGeneration);
+            }
+            load.complete(value);
+            return value;
+        } catch (ApiException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * Cached copy of the entry, without loading it
+     * @return resource or null if not cached or expired
+     */
+    public X peek(String scope, String id) {
+        if (id == null) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry<X> entry = entries.get(id + SEPARATOR + scope);
+            if (entry == null || entry.expireAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            Metrics.increment("entity-cache." + type + ".hit");
+            return copy(entry.value);
+        }
+    }
+
+    /**
+     * Drop all entries of this id, whatever the scope, and discard loads in progress
+     */
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (entries) {
+            Iterator<String> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(id + SEPARATOR)) {
+                    keys.remove();
+                }
+            }
+        }
+        Metrics.increment("entity-cache." + type + ".invalidation");
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void store(String key, X value, long loadGeneration) {
+        final X cached;
+        try {
+            cached = copy(value);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unable to copy " + type + " '" + key.substring(0, key.indexOf(SEPARATOR)) + "', not cached", e);
+            return;
+        }
+        synchronized (entries) {
+            if (loadGeneration == generation.get()) {
+                entries.put(key, new Entry<>(cached, System.currentTimeMillis() + ttlMs));
+            }
+        }
+    }
+
+    private X await(CompletableFuture<X> pending) throws ApiException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T copy(T value) {
+        return value == null ? null : MAPPER.convertValue(value, (Class<T>) value.getClass());
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.kathra.utils.ApiException;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Local store of error details, so that resources only carry a short error code and a fingerprint.
+ *
+ * Errors are deduplicated by fingerprint : the hash of the exception classes and stack frames (messages excluded), the
+ * detail is kept once with its occurrences count. Each resource keeps its last occurrences in a ring buffer. Both
+ * indexes are bounded, the least recently used entries are evicted first.
+ *
+ * The store is local to the instance, details of errors raised by another instance or before a restart are unknown.
+ * Occurrences and details are served to the callers allowed to read their resource (one of them for a detail), checked
+ * by the service that recorded them.
+ *
+ * @author julien.boubechtoula
+ */
+public class ErrorStore {
+
+    public static final String METADATA_ERROR_CODE = "error-code";
+    public static final String METADATA_ERROR_FINGERPRINT = "error-fingerprint";
+
+    private static final int RESOURCES_PER_FINGERPRINT = 10;
+
+    private static volatile ErrorStore defaultStore = new ErrorStore(1000, 10000, 10);
+
+    private final int maxFingerprints;
+    private final int maxResources;
+    private final int occurrencesPerResource;
+    private final LinkedHashMap<String, Detail> details;
+    private final LinkedHashMap<String, Deque<Occurrence>> occurrences;
+    private final Map<String, Visibility> owners = new HashMap<>();
+
+    /**
+     * Whether the current caller can read the resource
+     */
+    @FunctionalInterface
+    public interface Visibility {
+        boolean isVisible(String resourceId) throws Exception;
+    }
+
+    public static class Detail {
+        private final String fingerprint;
+        private final String code;
+        private final String stackTrace;
+        private final long firstSeen;
+        private long lastSeen;
+        private long count;
+        // last resources in error, their owners tell who can read the detail
+        private final Deque<String> resources = new ArrayDeque<>();
+
+        Detail(String fingerprint, String code, String stackTrace, long at) {
+            this.fingerprint = fingerprint;
+            this.code = code;
+            this.stackTrace = stackTrace;
+            this.firstSeen = at;
+            this.lastSeen = at;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Stack trace of the first occurrence
+         */
+        public String getStackTrace() {
+            return stackTrace;
+        }
+
+        public long getFirstSeen() {
+            return firstSeen;
+        }
+
+        public synchronized long getLastSeen() {
+            return lastSeen;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        synchronized void occurred(long at, String resourceId) {
+            lastSeen = at;
+            count++;
+            if (resourceId != null) {
+                resources.remove(resourceId);
+                resources.addLast(resourceId);
+                if (resources.size() > RESOURCES_PER_FINGERPRINT) {
+                    resources.removeFirst();
+                }
+            }
+        }
+    }
+
+    public static class Occurrence {
+        private final String fingerprint;
+        private final String code;
+        private final String message;
+        private final long at;
+
+        Occurrence(String fingerprint, String code, String message, long at) {
+            this.fingerprint = fingerprint;
+            this.code = code;
+            this.message = message;
+            this.at = at;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getAt() {
+            return at;
+        }
+    }
+
+    public ErrorStore(int maxFingerprints, int maxResources, int occurrencesPerResource) {
+        this.maxFingerprints = maxFingerprints;
+        this.maxResources = maxResources;
+        this.occurrencesPerResource = occurrencesPerResource;
+        this.details = new LinkedHashMap<>(16, 0.75f, true);
+        this.occurrences = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static ErrorStore getDefault() {
+        return defaultStore;
+    }
+
+    /**
+     * Replace the default store when its limits change, details already stored are lost
+     */
+    public static synchronized void configure(int maxFingerprints, int maxResources, int occurrencesPerResource) {
+        ErrorStore current = defaultStore;
+        if (maxFingerprints <= 0 || maxResources <= 0 || occurrencesPerResource <= 0 || (current.maxFingerprints == maxFingerprints
+                && current.maxResources == maxResources && current.occurrencesPerResource == occurrencesPerResource)) {
+            return;
+        }
+        defaultStore = new ErrorStore(maxFingerprints, maxResources, occurrencesPerResource);
+    }
+
+    /**
+     * Short error code : HTTP status of API calls, exception class otherwise
+     */
+    public static String code(Throwable exception) {
+        return exception instanceof ApiException ? "HTTP-" + ((ApiException) exception).getCode() : exception.getClass().getSimpleName();
+    }
+
+    /**
+     * Hash of the exception classes and stack frames of the exception and its causes, messages are excluded
+     */
+    public static String fingerprint(Throwable exception) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Throwable cause = exception; cause != null && seen.add(cause); cause = cause.getCause()) {
+                digest.update(cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+                for (StackTraceElement frame : cause.getStackTrace()) {
+                    digest.update((frame.getClassName() + "#" + frame.getMethodName() + ":" + frame.getLineNumber()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Store an error of a resource, its occurrences are only served by {@link #getVisibleOccurrences}
+     * @return stored detail, shared by the errors with the same fingerprint
+     */
+    public Detail record(String resourceId, Throwable exception) {
+        return record(resourceId, null, exception);
+    }
+
+    /**
+     * Store an error of a resource
+     * @param owner visibility check of the service owning the resource
+     * @return stored detail, shared by the errors with the same fingerprint
+     */
+    public Detail record(String resourceId, Visibility owner, Throwable exception) {
+        final String fingerprint = fingerprint(exception);
+        final String code = code(exception);
+        final long now = System.currentTimeMillis();
+        Detail detail;
+        synchronized (this) {
+            detail = details.get(fingerprint);
+            if (detail == null) {
+                detail = new Detail(fingerprint, code, stackTrace(exception), now);
+                details.put(fingerprint, detail);
+                evict(details, maxFingerprints);
+            }
+            if (resourceId != null) {
+                Deque<Occurrence> ring = occurrences.computeIfAbsent(resourceId, id -> new ArrayDeque<>());
+                if (ring.size() >= occurrencesPerResource) {
+                    ring.removeFirst();
+                }
+                ring.addLast(new Occurrence(fingerprint, code, exception.getMessage(), now));
+                if (owner != null) {
+                    owners.put(resourceId, owner);
+                }
+                evict(occurrences, maxResources, owners::remove);
+            }
+        }
+        detail.occurred(now, resourceId);
+        return detail;
+    }
+
+    public synchronized Optional<Detail> getDetail(String fingerprint) {
+        return Optional.ofNullable(fingerprint == null ? null : details.get(fingerprint));
+    }
+
+    /**
+     * Last occurrences of the resource's errors, the most recent first
+     */
+    public synchronized List<Occurrence> getOccurrences(String resourceId) {
+        Deque<Occurrence> ring = resourceId == null ? null : occurrences.get(resourceId);
+        if (ring == null) {
+            return new ArrayList<>();
+        }
+        List<Occurrence> result = new ArrayList<>(ring);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Detail of the error if the current caller can read one of the last resources in this error, as unknown otherwise
+     */
+    public Optional<Detail> getVisibleDetail(String fingerprint) {
+        final Optional<Detail> detail = getDetail(fingerprint);
+        if (!detail.isPresent()) {
+            return detail;
+        }
+        final List<String> resources;
+        synchronized (detail.get()) {
+            resources = new ArrayList<>(detail.get().resources);
+        }
+        for (String resourceId : resources) {
+            if (isVisible(resourceId)) {
+                return detail;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Last occurrences of the resource's errors if the current caller can read the resource, as unknown otherwise
+     */
+    public List<Occurrence> getVisibleOccurrences(String resourceId) {
+        return isVisible(resourceId) ? getOccurrences(resourceId) : new ArrayList<>();
+    }
+
+    private boolean isVisible(String resourceId) {
+        final Visibility owner;
+        synchronized (this) {
+            owner = resourceId == null ? null : owners.get(resourceId);
+        }
+        try {
+            return owner != null && owner.isVisible(resourceId);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public synchronized int size() {
+        return details.size();
+    }
+
+    private static void evict(LinkedHashMap<String, ?> entries, int maxSize) {
+        evict(entries, maxSize, key -> {
+        });
+    }
+
+    private static void evict(LinkedHashMap<String, ?> entries, int maxSize, Consumer<String> onEvicted) {
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            onEvicted.accept(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static String stackTrace(Throwable exception) {
+        StringWriter writer = new StringWriter();
+        try (PrintWriter printWriter = new PrintWriter(writer)) {
+            exception.printStackTrace(printWriter);
+        }
+        return writer.toString();
+    }
+}
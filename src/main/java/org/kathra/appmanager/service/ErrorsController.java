@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import javassist.NotFoundException;
+import org.apache.camel.cdi.ContextName;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.inject.Named;
+import java.util.List;
+
+/**
+ * Details of the errors referenced by the 'error-fingerprint' metadata of resources, see {@link ErrorStore}
+ *
+ * @author julien.boubechtoula
+ */
+@Named("ErrorsController")
+@ContextName("AppManager")
+public class ErrorsController {
+
+    /**
+     * Detail of an error, not found unless the caller can read one of the resources in this error
+     */
+    public ErrorStore.Detail getError(String fingerprint) throws Exception {
+        if (StringUtils.isEmpty(fingerprint)) throw new IllegalArgumentException("fingerprint must be specified");
+        return ErrorStore.getDefault().getVisibleDetail(fingerprint).orElseThrow(() -> new NotFoundException("Error not found"));
+    }
+
+    /**
+     * Last errors of a resource, the most recent first, empty when the caller can't read the resource
+     */
+    public List<ErrorStore.Occurrence> getResourceErrors(String resourceId) throws Exception {
+        if (StringUtils.isEmpty(resourceId)) throw new IllegalArgumentException("resourceId must be specified");
+        return ErrorStore.getDefault().getVisibleOccurrences(resourceId);
+    }
+}
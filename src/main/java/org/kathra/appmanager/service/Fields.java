@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.google.common.collect.ImmutableSet;
+import org.kathra.core.model.Resource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Sparse fieldsets of read endpoints, selected by the 'fields' parameter : comma separated paths relative to each
+ * resource, eg. 'fields=id,name,versions.id,metadata.groupPath'.
+ *
+ * Unselected properties are skipped while serializing, their values are never written. Without 'fields' the compact
+ * view is returned : everything but the heavy metadata keys ({@link #HEAVY_METADATA}), which are only returned when
+ * named explicitly or with 'fields=*'.
+ *
+ * The selection is written once, as raw JSON copied verbatim by any ObjectMapper (REST binding included), no tree of
+ * the response is built.
+ *
+ * @author julien.boubechtoula
+ */
+public class Fields {
+
+    public static final String PARAM_FIELDS = "fields";
+    public static final String ALL = "*";
+    public static final Set<String> HEAVY_METADATA = ImmutableSet.of("error-stack-trace");
+
+    private static final String FILTER = "fields";
+    private static final String METADATA = "metadata";
+    private static final String SEPARATOR = ".";
+
+    @JsonFilter(FILTER)
+    private static abstract class Filtered {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().addMixIn(Object.class, Filtered.class);
+
+    private final Set<String> paths;
+    private final boolean full;
+    private final ObjectWriter writer;
+
+    private Fields(Set<String> paths, boolean full) {
+        this.paths = paths;
+        this.full = full;
+        this.writer = MAPPER.writer(new SimpleFilterProvider().addFilter(FILTER, new Filter()));
+    }
+
+    /**
+     * Selection from the 'fields' parameter, compact view when it is empty
+     */
+    public static Fields of(Object parameter) {
+        final String value = parameter == null ? "" : parameter.toString().trim();
+        if (value.isEmpty()) {
+            return new Fields(null, false);
+        }
+        if (ALL.equals(value)) {
+            return new Fields(null, true);
+        }
+        Set<String> paths = new LinkedHashSet<>();
+        for (String path : value.split(",")) {
+            if (!path.trim().isEmpty()) {
+                paths.add(path.trim());
+            }
+        }
+        return new Fields(paths.isEmpty() ? null : paths, false);
+    }
+
+    /**
+     * Resources, lists and pages are pruned, other responses are left untouched
+     */
+    public static boolean isPrunable(Object body) {
+        return body instanceof Resource || body instanceof Collection || body instanceof Page;
+    }
+
+    /**
+     * Compact view : nothing to prune unless the response holds heavy metadata
+     */
+    public boolean isCompact() {
+        return paths == null && !full;
+    }
+
+    /**
+     * Serialize the selected fields only
+     * @return JSON of the selected fields, pages keep their cursor and total
+     */
+    public RawValue write(Object body) throws IOException {
+        if (body instanceof Page) {
+            Page<?> page = (Page<?>) body;
+            StringWriter json = new StringWriter();
+            try (JsonGenerator generator = MAPPER.getFactory().createGenerator(json)) {
+                generator.writeStartObject();
+                generator.writeFieldName("items");
+                generator.writeRawValue(writer.writeValueAsString(page.getItems()));
+                generator.writeObjectField("nextCursor", page.getNextCursor());
+                generator.writeObjectField("total", page.getTotal());
+                generator.writeEndObject();
+            }
+            return new RawValue(json.toString());
+        }
+        return new RawValue(writer.writeValueAsString(body));
+    }
+
+    /**
+     * Whether a resource of the response, nested ones included, has a heavy metadata key
+     */
+    public static boolean hasHeavyMetadata(Object body) {
+        if (body instanceof Page) {
+            return hasHeavyMetadata(((Page<?>) body).getItems());
+        }
+        if (body instanceof Collection) {
+            for (Object item : (Collection<?>) body) {
+                if (hasHeavyMetadata(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!(body instanceof Resource)) {
+            return false;
+        }
+        Map<String, Object> metadata = ((Resource) body).getMetadata();
+        if (metadata != null && !Collections.disjoint(metadata.keySet(), HEAVY_METADATA)) {
+            return true;
+        }
+        for (Method getter : NESTED.get(body.getClass())) {
+            try {
+                if (hasHeavyMetadata(getter.invoke(body))) {
+                    return true;
+                }
+            } catch (ReflectiveOperationException e) {
+                // unreadable property, pruned to be safe
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getters of the properties that may hold resources
+     */
+    private static final ClassValue<List<Method>> NESTED = new ClassValue<List<Method>>() {
+        @Override
+        protected List<Method> computeValue(Class<?> type) {
+            List<Method> getters = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getName().startsWith("get") && method.getParameterCount() == 0
+                        && (Resource.class.isAssignableFrom(method.getReturnType()) || Collection.class.isAssignableFrom(method.getReturnType()))) {
+                    getters.add(method);
+                }
+            }
+            return getters;
+        }
+    };
+
+    /**
+     * Selected paths, their descendants and the ancestors containing them
+     */
+    boolean isSelected(String path) {
+        if (paths == null) {
+            return true;
+        }
+        for (String selected : paths) {
+            if (selected.equals(path) || path.startsWith(selected + SEPARATOR) || selected.startsWith(path + SEPARATOR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isSelectedKey(String mapPath, String key) {
+        final String path = mapPath + SEPARATOR + key;
+        if (HEAVY_METADATA.contains(key) && mapPath.endsWith(METADATA)) {
+            return full || (paths != null && paths.contains(path));
+        }
+        return isSelected(path);
+    }
+
+    private static String path(String parent, String name) {
+        return parent.isEmpty() ? name : parent + SEPARATOR + name;
+    }
+
+    /**
+     * Path of the object being written, array levels are transparent
+     */
+    private static String parentPath(JsonStreamContext context) {
+        Deque<String> names = new ArrayDeque<>();
+        for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.inObject() && parent.getCurrentName() != null) {
+                names.addFirst(parent.getCurrentName());
+            }
+        }
+        return String.join(SEPARATOR, names);
+    }
+
+    private class Filter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider, PropertyWriter property) throws Exception {
+            final String parent = parentPath(generator.getOutputContext());
+            final boolean selected = pojo instanceof Map ? isSelectedKey(parent, property.getName()) : isSelected(path(parent, property.getName()));
+            if (!selected) {
+                if (!generator.canOmitFields()) {
+                    property.serializeAsOmittedField(pojo, generator, provider);
+                }
+            } else if (METADATA.equals(property.getName()) && pojo instanceof Resource && ((Resource) pojo).getMetadata() != null) {
+                // keys of the metadata map are selected as well
+                final String metadataPath = path(parent, METADATA);
+                Map<String, Object> metadata = new LinkedHashMap<>();
+                ((Resource) pojo).getMetadata().forEach((key, value) -> {
+                    if (isSelectedKey(metadataPath, key)) {
+                        metadata.put(key, value);
+                    }
+                });
+                generator.writeFieldName(METADATA);
+                provider.defaultSerializeValue(metadata, generator);
+            } else {
+                property.serializeAsField(pojo, generator, provider);
+            }
+        }
+    }
+}
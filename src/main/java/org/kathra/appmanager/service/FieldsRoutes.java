@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.ProcessorDefinitionHelper;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.ToDefinition;
+
+/**
+ * Sparse fieldsets ({@link Fields}) on every GET endpoint : the response of the controller is pruned before the REST
+ * binding serializes it, including the generated routes. Compact responses without heavy metadata are left to the
+ * binding as they are.
+ *
+ * @author julien.boubechtoula
+ */
+public class FieldsRoutes extends RouteBuilder {
+
+    private static final String GET = "GET";
+
+    @Override
+    public void configure() {
+        getContext().addInterceptStrategy((context, definition, target, nextTarget) -> isRestController(definition) ? prune(target) : target);
+    }
+
+    static boolean isRestController(ProcessorDefinition<?> definition) {
+        if (!(definition instanceof ToDefinition) || !String.valueOf(((ToDefinition) definition).getUri()).startsWith("bean:")) {
+            return false;
+        }
+        RouteDefinition route = ProcessorDefinitionHelper.getRoute(definition);
+        return route != null && Boolean.TRUE.equals(route.isRest());
+    }
+
+    static Processor prune(Processor controller) {
+        return exchange -> {
+            final boolean get = GET.equals(exchange.getIn().getHeader(Exchange.HTTP_METHOD, String.class));
+            final Object fields = exchange.getIn().getHeader(Fields.PARAM_FIELDS);
+            controller.process(exchange);
+            if (!get || exchange.getException() != null) {
+                return;
+            }
+            Message response = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+            final Fields selection = Fields.of(fields);
+            if (Fields.isPrunable(response.getBody()) && (!selection.isCompact() || Fields.hasHeavyMetadata(response.getBody()))) {
+                response.setBody(selection.write(response.getBody()));
+            }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory hash joins used to enrich lists : the build side is hashed once by key, then each row of the probe side
+ * looks its key up, O(N+M) instead of nested loops.
+ *
+ * Rows with a null key never match. Key extractors are null-safe, they return null when a relation on the way is
+ * missing.
+ *
+ * @author julien.boubechtoula
+ */
+public final class Joins {
+
+    private Joins() {
+    }
+
+    /**
+     * Unique index by key, the first row wins
+     */
+    public static <T, K> Map<K, T> index(Collection<T> rows, Function<T, K> key) {
+        Map<K, T> index = new HashMap<>();
+        if (rows != null) {
+            for (T row : rows) {
+                K value = extract(key, row);
+                if (value != null) {
+                    index.putIfAbsent(value, row);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * One-to-many grouping by key, in rows order
+     */
+    public static <T, K> Map<K, List<T>> group(Collection<T> rows, Function<T, K> key) {
+        Map<K, List<T>> groups = new HashMap<>();
+        if (rows != null) {
+            for (T row : rows) {
+                K value = extract(key, row);
+                if (value != null) {
+                    groups.computeIfAbsent(value, k -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Probe rows having a match in the build rows
+     */
+    public static <P, B, K> List<P> semiJoin(Collection<P> probe, Function<P, K> probeKey, Collection<B> build, Function<B, K> buildKey) {
+        final Set<K> keys = keys(build, buildKey);
+        return filter(probe, row -> {
+            K value = extract(probeKey, row);
+            return value != null && keys.contains(value);
+        });
+    }
+
+    /**
+     * Probe rows without match in the build rows
+     */
+    public static <P, B, K> List<P> antiJoin(Collection<P> probe, Function<P, K> probeKey, Collection<B> build, Function<B, K> buildKey) {
+        final Set<K> keys = keys(build, buildKey);
+        return filter(probe, row -> {
+            K value = extract(probeKey, row);
+            return value == null || !keys.contains(value);
+        });
+    }
+
+    private static <T, K> Set<K> keys(Collection<T> rows, Function<T, K> key) {
+        Set<K> keys = new HashSet<>();
+        if (rows != null) {
+            for (T row : rows) {
+                K value = extract(key, row);
+                if (value != null) {
+                    keys.add(value);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static <T> List<T> filter(Collection<T> rows, Predicate<T> predicate) {
+        return rows == null ? new ArrayList<>() : rows.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private static <T, K> K extract(Function<T, K> key, T row) {
+        return row == null ? null : key.apply(row);
+    }
+}
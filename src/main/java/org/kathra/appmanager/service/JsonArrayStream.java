@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * JSON array serialized incrementally while the response is read : each element is produced (and possibly completed)
+ * when the previous one has been sent, and written by a streaming generator into a buffer reused for every element.
+ *
+ * The memory held by a response is its source and one serialized element, instead of the whole serialized array.
+ * Elements are produced on the thread reading the stream, so they must not need the caller's session.
+ *
+ * @author julien.boubechtoula
+ */
+public class JsonArrayStream<X> extends InputStream {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Iterator<X> source;
+    private final Function<X, ?> producer;
+    private final ExposedBuffer buffer = new ExposedBuffer();
+    private final JsonGenerator generator;
+    private int position;
+    private boolean ended;
+
+    /**
+     * @param producer element to serialize for each source element (eg. completed with its relations)
+     */
+    public JsonArrayStream(Iterator<X> source, Function<X, ?> producer) throws IOException {
+        this.source = source;
+        this.producer = producer;
+        this.generator = MAPPER.getFactory().createGenerator(buffer);
+        generator.writeStartArray();
+        generator.flush();
+    }
+
+    public static <X> JsonArrayStream<X> of(Iterable<X> source) throws IOException {
+        return new JsonArrayStream<>(source.iterator(), Function.identity());
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (position >= buffer.size()) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int count = Math.min(length, buffer.size() - position);
+        System.arraycopy(buffer.bytes(), position, destination, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.size() - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ended = true;
+        generator.close();
+    }
+
+    /**
+     * Serialize the next element into the buffer
+     * @return false at the end of the array
+     */
+    private boolean fill() throws IOException {
+        if (ended) {
+            return false;
+        }
+        buffer.reset();
+        position = 0;
+        if (source.hasNext()) {
+            generator.writeObject(producer.apply(source.next()));
+        } else {
+            generator.writeEndArray();
+            ended = true;
+        }
+        generator.flush();
+        return true;
+    }
+
+    private static class ExposedBuffer extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.kathra.core.model.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cursor pagination, filters and sort of list endpoints, computed over the collection in memory.
+ *
+ * Query parameters :
+ * <ul>
+ *     <li>'limit' : page size (default 20, max 500)</li>
+ *     <li>'sort' : field to sort on, '-' prefix for descending order (default 'name')</li>
+ *     <li>'cursor' : 'nextCursor' of the previous page</li>
+ *     <li>any field name : exact filter on the field (eg. 'groupPath', 'status', 'language')</li>
+ * </ul>
+ *
+ * Cursors hold the sort value and the id of the last returned resource (keyset), so that pages stay consistent when
+ * resources are added or removed between two requests.
+ *
+ * @author julien.boubechtoula
+ */
+public class ListQuery {
+
+    public static final String PARAM_LIMIT = "limit";
+    public static final String PARAM_SORT = "sort";
+    public static final String PARAM_CURSOR = "cursor";
+    public static final String FIELD_ID = "id";
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_STATUS = "status";
+    public static final String FIELD_GROUP_PATH = "groupPath";
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+    private static final String CURSOR_SEPARATOR = "\u0000";
+    private static final Comparator<String> VALUES = Comparator.nullsLast(Comparator.naturalOrder());
+
+    private final int limit;
+    private final String sortField;
+    private final boolean descending;
+    private final String cursor;
+    private final Map<String, String> filters = new LinkedHashMap<>();
+
+    private ListQuery(int limit, String sortField, boolean descending, String cursor) {
+        this.limit = limit;
+        this.sortField = sortField;
+        this.descending = descending;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Query from the request parameters (Camel headers), unknown parameters are filters
+     */
+    public static ListQuery of(Map<String, Object> parameters) {
+        Map<String, Object> params = parameters == null ? Collections.emptyMap() : parameters;
+        int limit = DEFAULT_LIMIT;
+        if (params.get(PARAM_LIMIT) != null) {
+            try {
+                limit = Integer.parseInt(params.get(PARAM_LIMIT).toString());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameter '" + PARAM_LIMIT + "' should be a number");
+            }
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Parameter '" + PARAM_LIMIT + "' should be between 1 and " + MAX_LIMIT);
+        }
+        String sort = params.get(PARAM_SORT) == null ? FIELD_NAME : params.get(PARAM_SORT).toString();
+        boolean descending = sort.startsWith("-");
+        return new ListQuery(limit, descending ? sort.substring(1) : sort, descending, params.get(PARAM_CURSOR) == null ? null : params.get(PARAM_CURSOR).toString());
+    }
+
+    /**
+     * Add an exact filter on a field, ignored when the value is empty
+     */
+    public ListQuery filter(String field, Object value) {
+        if (value != null && !value.toString().isEmpty()) {
+            filters.put(field, value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Filter with the parameters that are fields
+     */
+    public ListQuery filters(Map<String, Object> parameters, Collection<String> fields) {
+        if (parameters != null) {
+            fields.forEach(field -> filter(field, parameters.get(field)));
+        }
+        return this;
+    }
+
+    /**
+     * Fields of all resources : id, name, status and groupPath (metadata)
+     */
+    public static <X extends Resource> Map<String, Function<X, String>> resourceFields() {
+        Map<String, Function<X, String>> fields = new LinkedHashMap<>();
+        fields.put(FIELD_ID, Resource::getId);
+        fields.put(FIELD_NAME, Resource::getName);
+        fields.put(FIELD_STATUS, resource -> resource.getStatus() == null ? null : resource.getStatus().toString());
+        fields.put(FIELD_GROUP_PATH, resource -> resource.getMetadata() == null || resource.getMetadata().get(FIELD_GROUP_PATH) == null ? null : resource.getMetadata().get(FIELD_GROUP_PATH).toString());
+        return fields;
+    }
+
+    /**
+     * Filter, sort and cut the page
+     * @param resources whole collection, not modified
+     * @param fields fields that can be filtered and sorted
+     */
+    public <X extends Resource> Page<X> apply(List<X> resources, Map<String, Function<X, String>> fields) {
+        final Function<X, String> sortKey = fields.get(sortField);
+        if (sortKey == null) {
+            throw new IllegalArgumentException("Unable to sort on '" + sortField + "', fields: " + fields.keySet());
+        }
+        for (String field : filters.keySet()) {
+            if (!fields.containsKey(field)) {
+                throw new IllegalArgumentException("Unable to filter on '" + field + "', fields: " + fields.keySet());
+            }
+        }
+        Comparator<X> order = Comparator.comparing(sortKey, VALUES).thenComparing(Resource::getId, VALUES);
+        if (descending) {
+            order = order.reversed();
+        }
+        List<X> matching = resources.stream()
+                .filter(resource -> filters.entrySet().stream().allMatch(filter -> filter.getValue().equals(fields.get(filter.getKey()).apply(resource))))
+                .sorted(order)
+                .collect(Collectors.toList());
+
+        int from = 0;
+        if (cursor != null) {
+            // first resource after the cursor's position
+            String[] position = decode(cursor);
+            for (X resource : matching) {
+                if (compare(sortKey, resource, position) > 0) {
+                    break;
+                }
+                from++;
+            }
+        }
+        int to = Math.min(matching.size(), from + limit);
+        List<X> items = new ArrayList<>(matching.subList(from, to));
+        String next = to < matching.size() ? encode(sortKey.apply(items.get(items.size() - 1)), items.get(items.size() - 1).getId()) : null;
+        return new Page<>(items, next, matching.size());
+    }
+
+    private <X extends Resource> int compare(Function<X, String> sortKey, X resource, String[] position) {
+        int result = VALUES.compare(sortKey.apply(resource), position[0]);
+        if (result == 0) {
+            result = VALUES.compare(resource.getId(), position[1]);
+        }
+        return descending ? -result : result;
+    }
+
+    private static String encode(String sortValue, String id) {
+        String position = (sortValue == null ? "" : "+" + sortValue) + CURSOR_SEPARATOR + (id == null ? "" : id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String sortValue = position.substring(0, separator);
+            String id = position.substring(separator + 1);
+            return new String[]{sortValue.isEmpty() ? null : sortValue.substring(1), id.isEmpty() ? null : id};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + "'");
+        }
+    }
+}
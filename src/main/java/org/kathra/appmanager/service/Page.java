@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import java.util.List;
+
+/**
+ * One page of a list endpoint, with the cursor of the next page (null on the last page)
+ *
+ * @author julien.boubechtoula
+ */
+public class Page<X> {
+
+    private final List<X> items;
+    private final String nextCursor;
+    private final int total;
+
+    public Page(List<X> items, String nextCursor, int total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+    }
+
+    public List<X> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Resources matching the filters, on all pages
+     */
+    public int getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * Paginated list endpoints, query parameters are described by {@link ListQuery}, eg.
+ * 'GET /pages/components?groupPath=/kathra/team&amp;sort=-name&amp;limit=20&amp;cursor=...'
+ *
+ * @author julien.boubechtoula
+ */
+public class PageRoutes extends RouteBuilder {
+
+    @Override
+    public void configure() {
+        rest("/pages")
+                .get("/components").to("bean:ComponentsController?method=getComponentsPage(${headers})")
+                .get("/implementations").to("bean:ImplementationsController?method=getImplementationsPage(${headers})")
+                .get("/catalogEntries").to("bean:CatalogEntriesController?method=getCatalogEntriesPage(${headers})")
+                .get("/catalogEntryPackages").to("bean:CatalogEntriesController?method=getCatalogEntryPackagesPage(${headers})");
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-resource buffer of attribute patches.
+ *
+ * Patches of the same resource submitted within the window are merged field by field (the last value wins, metadata
+ * are merged by key) and written with a single call. Writes of a resource are serialized, so they reach the resource
+ * manager in submission order. Pending patches are written when the window elapses or at explicit flush points.
+ * Explicit values are kept, empty ones included, only absent (null) fields don't override the pending patch.
+ *
+ * A failed flush throws to its caller and its patch is queued again, to be written in the background (or by the next
+ * flush). A failed background write is reported to the failure handler.
+ *
+ * Without window, each patch is written immediately by the caller.
+ *
+ * @author julien.boubechtoula
+ */
+public class PatchBuffer<X extends Resource> {
+
+    @FunctionalInterface
+    public interface Writer<X> {
+        void write(X patch) throws ApiException;
+    }
+
+    @FunctionalInterface
+    public interface FailureHandler<X> {
+        void failed(X patch, Exception exception);
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final ScheduledExecutorService FLUSHER = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "patch-buffer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerFactory.getLogger(PatchBuffer.class);
+
+    private final String type;
+    private final long windowMs;
+    private final Writer<X> writer;
+    private final FailureHandler<X> failureHandler;
+    private final KathraSessionManager sessionManager;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private class Slot {
+        // held while writing, so that writes of a resource never overlap
+        final Object writeLock = new Object();
+        X pending;
+        Session session;
+        boolean retired;
+    }
+
+    public PatchBuffer(String type, long windowMs, Writer<X> writer, KathraSessionManager sessionManager) {
+        this(type, windowMs, writer, null, sessionManager);
+    }
+
+    public PatchBuffer(String type, long windowMs, Writer<X> writer, FailureHandler<X> failureHandler, KathraSessionManager sessionManager) {
+        this.type = type;
+        this.windowMs = windowMs;
+        this.writer = writer;
+        this.failureHandler = failureHandler;
+        this.sessionManager = sessionManager;
+    }
+
+    /**
+     * Merge the patch into the pending patch of the resource, or write it immediately without window
+     */
+    public void submit(X patch) throws ApiException {
+        Metrics.increment("patch-buffer." + type + ".submitted");
+        if (windowMs <= 0 || patch.getId() == null) {
+            writer.write(patch);
+            Metrics.increment("patch-buffer." + type + ".written");
+            return;
+        }
+        final Session session = sessionManager == null ? null : sessionManager.getCurrentSession();
+        while (true) {
+            Slot slot = slots.computeIfAbsent(patch.getId(), id -> new Slot());
+            synchronized (slot) {
+                if (slot.retired) {
+                    continue;
+                }
+                // callers may keep modifying the patch, the buffer keeps its own copy
+                X merged = merge(slot.pending, patch);
+                if (merged != null) {
+                    if (slot.pending == null) {
+                        FLUSHER.schedule(() -> flushInBackground(patch.getId()), windowMs, TimeUnit.MILLISECONDS);
+                    } else {
+                        Metrics.increment("patch-buffer." + type + ".merged");
+                    }
+                    slot.pending = merged;
+                    slot.session = session;
+                    return;
+                }
+            }
+            // not mergeable, written after the pending patch (if any)
+            flush(patch.getId());
+            writer.write(patch);
+            Metrics.increment("patch-buffer." + type + ".written");
+            return;
+        }
+    }
+
+    /**
+     * Write the pending patch of the resource, if any, and wait for writes in progress
+     */
+    public void flush(String id) throws ApiException {
+        write(id, false);
+    }
+
+    public void flushAll() throws ApiException {
+        for (String id : new ArrayList<>(slots.keySet())) {
+            flush(id);
+        }
+    }
+
+    public int getPendingCount() {
+        return slots.size();
+    }
+
+    private void flushInBackground(String id) {
+        try {
+            write(id, true);
+        } catch (ApiException | RuntimeException e) {
+            // reported by write()
+        }
+    }
+
+    private void write(String id, boolean background) throws ApiException {
+        if (id == null) {
+            return;
+        }
+        Slot slot = slots.get(id);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot.writeLock) {
+            final X toWrite;
+            final Session session;
+            synchronized (slot) {
+                toWrite = slot.pending;
+                session = slot.session;
+                slot.pending = null;
+            }
+            try {
+                if (toWrite != null) {
+                    if (background && session != null) {
+                        sessionManager.handleSession(session);
+                    }
+                    writer.write(toWrite);
+                    Metrics.increment("patch-buffer." + type + ".written");
+                }
+            } catch (ApiException | RuntimeException e) {
+                Metrics.increment("patch-buffer." + type + ".failed");
+                logger.error("Unable to write patch of " + type + " '" + id + "'", e);
+                if (background) {
+                    if (failureHandler != null) {
+                        failureHandler.failed(toWrite, e);
+                    }
+                } else {
+                    requeue(slot, toWrite, session, e);
+                }
+                throw e;
+            } finally {
+                synchronized (slot) {
+                    if (slot.pending == null) {
+                        // the next patch of this resource gets a new slot, written after this one
+                        slot.retired = true;
+                        slots.remove(id, slot);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Put back a patch whose foreground write failed, before the patches submitted since
+     */
+    private void requeue(Slot slot, X failed, Session session, Exception exception) {
+        synchronized (slot) {
+            if (slot.pending == null) {
+                slot.pending = failed;
+                slot.session = session;
+            } else {
+                X merged = merge(failed, slot.pending);
+                if (merged == null) {
+                    if (failureHandler != null) {
+                        failureHandler.failed(failed, exception);
+                    }
+                    return;
+                }
+                slot.pending = merged;
+            }
+        }
+        Metrics.increment("patch-buffer." + type + ".requeued");
+        FLUSHER.schedule(() -> flushInBackground(failed.getId()), Math.max(windowMs, 1), TimeUnit.MILLISECONDS);
+    }
+
+    private X merge(X pending, X patch) {
+        try {
+            if (pending == null) {
+                return EntityCache.copy(patch);
+            }
+            Map<String, Object> metadata = new HashMap<>();
+            if (pending.getMetadata() != null) {
+                metadata.putAll(pending.getMetadata());
+            }
+            if (patch.getMetadata() != null) {
+                metadata.putAll(patch.getMetadata());
+            }
+            JsonNode tree = MAPPER.valueToTree(patch);
+            X merged = MAPPER.readerForUpdating(EntityCache.copy(pending)).readValue(tree);
+            if (!metadata.isEmpty()) {
+                merged.setMetadata(metadata);
+            }
+            return merged;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Unable to merge patches of " + type + " '" + patch.getId() + "'", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory hash index over a collection of resources, keyed by named attributes.
+ *
+ * The collection is loaded lazily on first lookup and reloaded once older than the resync interval
+ * (0 reloads on every lookup). Local writes are applied through {@link #put}, {@link #merge} and {@link #remove}
+ * so that lookups stay current between two resyncs. Lookups return copies, indexed resources are only modified by
+ * these writes.
+ *
+ * Resource manager collections depend on the caller's rights, so one partition is kept per session caller. A new
+ * resource is only added to the partition of the caller who wrote it, the other callers see it once their partition
+ * is resynchronized (if their rights allow it). Updates and removals apply to every partition already holding the
+ * resource.
+ *
+ * The {@link #version} of a partition is derived from its content only : the sum of a 64-bit hash per indexed
+ * resource, kept up to date by every write, and the number of resources. Two instances holding the same content issue
+ * the same version, a write or a resync changes it only when the content changes.
+ *
+ * @author julien.boubechtoula
+ */
+public class ResourceIndex<X extends Resource> {
+
+    @FunctionalInterface
+    public interface Loader<X> {
+        List<X> load() throws ApiException;
+    }
+
+    private static final String KEY_SEPARATOR = "\u0000";
+    private static final String ANONYMOUS = "";
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final ObjectWriter HASH_WRITER = MAPPER.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final Logger logger = LoggerFactory.getLogger(ResourceIndex.class);
+
+    private final String name;
+    private final Loader<X> loader;
+    private final KathraSessionManager sessionManager;
+    private final long resyncIntervalMs;
+    private final Map<String, Function<X, String>> keyExtractors = new LinkedHashMap<>();
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public ResourceIndex(String name, Loader<X> loader, KathraSessionManager sessionManager, long resyncIntervalMs) {
+        this.name = name;
+        this.loader = loader;
+        this.sessionManager = sessionManager;
+        this.resyncIntervalMs = resyncIntervalMs;
+    }
+
+    public long getResyncIntervalMs() {
+        return resyncIntervalMs;
+    }
+
+    /**
+     * Declare an indexed key, the extractor returns null when the resource should not be indexed for this key
+     */
+    public ResourceIndex<X> addKey(String keyName, Function<X, String> extractor) {
+        keyExtractors.put(keyName, extractor);
+        return this;
+    }
+
+    /**
+     * Build a key from several attributes, null if one of them is null
+     */
+    public static String compositeKey(Object... parts) {
+        StringJoiner joiner = new StringJoiner(KEY_SEPARATOR);
+        for (Object part : parts) {
+            if (part == null) {
+                return null;
+            }
+            joiner.add(part.toString());
+        }
+        return joiner.toString();
+    }
+
+    public List<X> find(String keyName, String value) throws ApiException {
+        if (!keyExtractors.containsKey(keyName)) {
+            throw new IllegalArgumentException("Key '" + keyName + "' is not indexed by " + name);
+        }
+        if (value == null) {
+            return new ArrayList<>();
+        }
+        Partition partition = getLoadedPartition();
+        synchronized (partition) {
+            Set<String> ids = partition.byKey.get(keyName).getOrDefault(value, Collections.emptySet());
+            return ids.stream().map(partition.byId::get).filter(Objects::nonNull).map(this::copy).collect(Collectors.toList());
+        }
+    }
+
+    public Optional<X> findFirst(String keyName, String value) throws ApiException {
+        return find(keyName, value).stream().findFirst();
+    }
+
+    public boolean exists(String keyName, String value) throws ApiException {
+        return !find(keyName, value).isEmpty();
+    }
+
+    /**
+     * Page of the indexed collection, the resources of the page are copies that the caller can modify
+     */
+    public Page<X> page(ListQuery query, Map<String, Function<X, String>> fields) throws ApiException {
+        Partition partition = getLoadedPartition();
+        List<X> resources;
+        synchronized (partition) {
+            resources = new ArrayList<>(partition.byId.values());
+        }
+        Page<X> page = query.apply(resources, fields);
+        return new Page<>(page.getItems().stream().map(this::copy).collect(Collectors.toList()), page.getNextCursor(), page.getTotal());
+    }
+
+    /**
+     * Version of the collection for the current caller, cheaper than the collection itself : it is maintained by the
+     * writes and the resyncs
+     */
+    public String version() throws ApiException {
+        Partition partition = getLoadedPartition();
+        synchronized (partition) {
+            return Long.toHexString(partition.contentHash) + "-" + partition.byId.size();
+        }
+    }
+
+    /**
+     * Write-through of a full resource (creation or reload) : added to the current caller's partition, replaced in the
+     * other partitions already holding it
+     */
+    public void put(X resource) {
+        if (resource == null) {
+            return;
+        }
+        final X indexed = copy(resource);
+        final String partitionKey = getPartitionKey();
+        for (Map.Entry<String, Partition> partition : partitions.entrySet()) {
+            synchronized (partition.getValue()) {
+                if (partition.getValue().loadedAt > 0 && (partition.getKey().equals(partitionKey) || (indexed.getId() != null && partition.getValue().byId.containsKey(indexed.getId())))) {
+                    partition.getValue().index(indexed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write-through of a partial resource (patch) : its non-null attributes are merged into a new version of the
+     * indexed resource, in every partition holding it
+     */
+    public void merge(X patch) {
+        if (patch == null || patch.getId() == null) {
+            return;
+        }
+        final JsonNode patchTree = MAPPER.valueToTree(patch);
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                X existing = partition.byId.get(patch.getId());
+                if (existing != null) {
+                    partition.index(merge(existing, patchTree));
+                }
+            }
+        }
+    }
+
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                partition.unindex(id);
+            }
+        }
+    }
+
+    /**
+     * Force a reload of every partition on next lookup
+     */
+    public void invalidate() {
+        partitions.clear();
+    }
+
+    private Partition getLoadedPartition() throws ApiException {
+        Partition partition = partitions.computeIfAbsent(getPartitionKey(), k -> new Partition());
+        synchronized (partition) {
+            long now = System.currentTimeMillis();
+            if (partition.loadedAt == 0 || now - partition.loadedAt >= resyncIntervalMs) {
+                List<X> resources = loader.load();
+                partition.clear();
+                if (resources != null) {
+                    resources.forEach(partition::index);
+                }
+                partition.loadedAt = now;
+                logger.debug("Index " + name + " resynchronized with " + partition.byId.size() + " resources");
+            }
+        }
+        return partition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private X merge(X existing, JsonNode patch) {
+        try {
+            ObjectNode merged = MAPPER.valueToTree(existing);
+            merge(merged, patch);
+            return (X) MAPPER.treeToValue(merged, existing.getClass());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to merge " + name + " " + existing.getId(), e);
+        }
+    }
+
+    private static void merge(ObjectNode target, JsonNode patch) {
+        patch.fields().forEachRemaining(field -> {
+            JsonNode value = field.getValue();
+            JsonNode current = target.get(field.getKey());
+            if (value == null || value.isNull() || (value.isArray() && value.size() == 0)) {
+                // not patched : default-initialized collections of a partial resource are empty
+                return;
+            } else if (value.isObject() && current != null && current.isObject()) {
+                merge((ObjectNode) current, value);
+            } else {
+                target.set(field.getKey(), value);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private X copy(X resource) {
+        try {
+            return (X) MAPPER.readValue(MAPPER.writeValueAsBytes(resource), resource.getClass());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to copy " + name + " " + resource.getId(), e);
+        }
+    }
+
+    /**
+     * 64-bit hash of the serialized resource, map entries sorted so that equal resources have equal hashes
+     */
+    private long hash(X resource) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(HASH_WRITER.writeValueAsBytes(resource))).getLong();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            // not serializable, a new version whenever it is indexed
+            return System.nanoTime();
+        }
+    }
+
+    private String getPartitionKey() {
+        Session session = sessionManager == null ? null : sessionManager.getCurrentSession();
+        return (session == null || session.getCallerName() == null) ? ANONYMOUS : session.getCallerName();
+    }
+
+    private class Partition {
+        private long loadedAt;
+        // order-independent : sum of the hashes of the indexed resources
+        private long contentHash;
+        private final Map<String, X> byId = new HashMap<>();
+        private final Map<String, Long> hashById = new HashMap<>();
+        private final Map<String, Map<String, Set<String>>> byKey = new HashMap<>();
+        private final Map<String, Map<String, String>> keysById = new HashMap<>();
+
+        Partition() {
+            clear();
+        }
+
+        void clear() {
+            byId.clear();
+            hashById.clear();
+            contentHash = 0;
+            byKey.clear();
+            keysById.clear();
+            keyExtractors.keySet().forEach(key -> {
+                byKey.put(key, new HashMap<>());
+                keysById.put(key, new HashMap<>());
+            });
+        }
+
+        void index(X resource) {
+            // resources without identifier are still indexed (eg. partial objects), under a synthetic id
+            String id = resource.getId() != null ? resource.getId() : "@" + System.identityHashCode(resource);
+            unindex(id);
+            byId.put(id, resource);
+            long hash = hash(resource);
+            hashById.put(id, hash);
+            contentHash += hash;
+            for (Map.Entry<String, Function<X, String>> key : keyExtractors.entrySet()) {
+                String value = key.getValue().apply(resource);
+                if (value != null) {
+                    byKey.get(key.getKey()).computeIfAbsent(value, v -> new LinkedHashSet<>()).add(id);
+                    keysById.get(key.getKey()).put(id, value);
+                }
+            }
+        }
+
+        void unindex(String id) {
+            if (byId.remove(id) == null) {
+                return;
+            }
+            Long hash = hashById.remove(id);
+            if (hash != null) {
+                contentHash -= hash;
+            }
+            for (String key : keyExtractors.keySet()) {
+                String value = keysById.get(key).remove(id);
+                if (value != null) {
+                    unlink(key, value, id);
+                }
+            }
+        }
+
+        void unlink(String key, String value, String id) {
+            Set<String> ids = byKey.get(key).get(value);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    byKey.get(key).remove(value);
+                }
+            }
+        }
+    }
+}
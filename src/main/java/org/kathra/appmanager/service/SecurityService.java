@@ -19,15 +19,34 @@
  */
 package org.kathra.appmanager.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.kathra.utils.KathraSessionManager;
 import org.kathra.utils.security.KeycloakUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
+ * User information from the identity provider, cached per access token until the token expires (bounded by the
+ * maximum TTL, so that membership changes are eventually seen).
+ *
+ * The expiration is read from the token without verifying it : it only bounds the lifetime of a response the identity
+ * provider returned for this exact token, an altered token has another cache key and is sent to the identity provider.
+ *
  * @author julien.boubechtoula
  */
 public class SecurityService {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private KathraSessionManager sessionManager;
+    private final long maxTtlMs;
+    private final int maxSize;
+    private final Map<String, CachedUserInfo> userInfos = new ConcurrentHashMap<>();
 
     public enum UserInformation {
         GROUPS("groups");
@@ -38,12 +57,69 @@ public class SecurityService {
         }
     }
 
+    private static class CachedUserInfo {
+        final Object value;
+        final long expireAt;
+
+        CachedUserInfo(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
     public SecurityService(KathraSessionManager sessionManager){
+        this(sessionManager, 0, 0);
+    }
+
+    public SecurityService(KathraSessionManager sessionManager, long maxTtlMs, int maxSize) {
         this.sessionManager = sessionManager;
+        this.maxTtlMs = maxTtlMs;
+        this.maxSize = maxSize;
     }
 
     public Object getUserInfo(UserInformation userInformation) throws Exception {
-        return KeycloakUtils.getUserInfos(sessionManager.getCurrentSession().getAccessToken()).get(userInformation.key);
+        final String token = sessionManager.getCurrentSession().getAccessToken();
+        final long now = System.currentTimeMillis();
+        final long expireAt = Math.min(getExpiration(token), now + maxTtlMs);
+        if (maxTtlMs <= 0 || maxSize <= 0 || expireAt <= now) {
+            return fetchUserInfo(token, userInformation);
+        }
+        final String key = sha256(token) + userInformation.key;
+        CachedUserInfo cached = userInfos.get(key);
+        if (cached != null && cached.expireAt > now) {
+            return cached.value;
+        }
+        Object value = fetchUserInfo(token, userInformation);
+        if (userInfos.size() >= maxSize) {
+            userInfos.values().removeIf(entry -> entry.expireAt <= now);
+        }
+        if (userInfos.size() < maxSize) {
+            userInfos.put(key, new CachedUserInfo(value, expireAt));
+        }
+        return value;
+    }
+
+    protected Object fetchUserInfo(String token, UserInformation userInformation) throws Exception {
+        return KeycloakUtils.getUserInfos(token).get(userInformation.key);
     }
 
+    /**
+     * Expiration of a JWT ('exp' claim) in milliseconds, 0 when the token isn't a JWT
+     */
+    static long getExpiration(String token) {
+        String[] parts = token == null ? new String[0] : token.split("\\.");
+        if (parts.length < 2) {
+            return 0;
+        }
+        try {
+            JsonNode exp = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000 : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static String sha256(String token) throws Exception {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.kathra.appmanager.Config;
+import org.kathra.appmanager.apiversion.ApiVersionService;
+import org.kathra.appmanager.binaryrepository.BinaryRepositoryService;
+import org.kathra.appmanager.catalogentry.CatalogEntryService;
+import org.kathra.appmanager.catalogentrypackage.CatalogEntryPackageService;
+import org.kathra.appmanager.codegen.CodeGenProxyService;
+import org.kathra.appmanager.component.ComponentService;
+import org.kathra.appmanager.group.GroupService;
+import org.kathra.appmanager.implementation.ImplementationService;
+import org.kathra.appmanager.implementationversion.ImplementationVersionService;
+import org.kathra.appmanager.library.LibraryService;
+import org.kathra.appmanager.libraryapiversion.LibraryApiVersionService;
+import org.kathra.appmanager.pipeline.PipelineService;
+import org.kathra.appmanager.service.resilience.Downstream;
+import org.kathra.appmanager.service.resilience.Hedger;
+import org.kathra.appmanager.service.resilience.RetryPolicy;
+import org.kathra.appmanager.sourcerepository.SourceRepositoryService;
+import org.kathra.utils.KathraSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application-scoped services shared by all controllers.
+ *
+ * The whole graph of services is built once, when the first controller is created at Camel context startup, instead
+ * of one graph per controller. Services are singletons resolving the caller of each request through the session
+ * manager, which holds the current session of the request's thread.
+ *
+ * Process-wide settings (metrics reporter, downstream resilience, error store, work queue) are applied once, before
+ * the first container is built.
+ *
+ * @author julien.boubechtoula
+ */
+public final class ServiceContainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceContainer.class);
+    private static final List<Class<? extends Injectable>> SERVICES = ImmutableList.of(
+            GroupService.class,
+            ComponentService.class,
+            SourceRepositoryService.class,
+            LibraryService.class,
+            ApiVersionService.class,
+            LibraryApiVersionService.class,
+            PipelineService.class,
+            ImplementationService.class,
+            ImplementationVersionService.class,
+            BinaryRepositoryService.class,
+            CatalogEntryService.class,
+            CatalogEntryPackageService.class,
+            CodeGenProxyService.class);
+    private static final Map<KathraSessionManager, ServiceInjection> CONTAINERS = new IdentityHashMap<>();
+    private static boolean started;
+
+    private ServiceContainer() {
+    }
+
+    /**
+     * Container of the session manager, built with all its services on first call
+     */
+    public static ServiceInjection get(KathraSessionManager sessionManager) {
+        synchronized (CONTAINERS) {
+            ServiceInjection container = CONTAINERS.get(sessionManager);
+            if (container == null) {
+                final Config config = new Config();
+                if (!started) {
+                    start(config);
+                    started = true;
+                }
+                container = build(config, sessionManager);
+                CONTAINERS.put(sessionManager, container);
+            }
+            return container;
+        }
+    }
+
+    /**
+     * Drop the container of the session manager and its downstream clients, eg. once a reconciled user is gone
+     */
+    public static void release(KathraSessionManager sessionManager) {
+        synchronized (CONTAINERS) {
+            CONTAINERS.remove(sessionManager);
+        }
+        DownstreamClients.release(sessionManager);
+    }
+
+    private static void start(Config config) {
+        Metrics.startReporter(config.getMetricsReportIntervalMs());
+        Downstream.configure(new Downstream.Settings()
+                .bulkhead(config.getBulkheadMaxConcurrentCalls(), config.getBulkheadMaxWaitMs())
+                .circuitBreaker(config.getCircuitFailureRate(), config.getCircuitWindowSize(), config.getCircuitMinimumCalls(), config.getCircuitOpenMs(), config.getCircuitHalfOpenProbes()));
+        if (config.getResourceManagerUrl() != null) {
+            Hedger.enable(DownstreamClients.getHost(config.getResourceManagerUrl()), config.getHedgePercentile(), config.getHedgeBudgetPercent());
+        }
+        RetryPolicy.configure(config.getRetryMaxAttempts(), config.getRetryBaseDelayMs(), config.getRetryMaxDelayMs(), config.getRetryBudgetPercent(), config.getRetryBudgetMinPerSecond());
+        ErrorStore.configure(config.getErrorStoreMaxFingerprints(), config.getErrorStoreMaxResources(), config.getErrorStoreOccurrencesPerResource());
+        WorkQueue.configure(config.getBulkConcurrency());
+    }
+
+    static ServiceInjection build(Config config, KathraSessionManager sessionManager) {
+        final long heapBefore = getUsedHeap();
+        final long start = System.nanoTime();
+        ServiceInjection container = new ServiceInjection(config, sessionManager);
+        SERVICES.forEach(container::getService);
+        final long elapsedMs = (System.nanoTime() - start) / 1000000;
+        final long heapAfter = getUsedHeap();
+        logger.info("Service container built in " + elapsedMs + " ms with " + container.getServicesCount() + " services, heap used " + (heapBefore >> 20) + " MB -> " + (heapAfter >> 20) + " MB");
+        Metrics.counter("service-container.build-ms").add(elapsedMs);
+        Metrics.counter("service-container.build-heap-bytes").add(Math.max(0, heapAfter - heapBefore));
+        return container;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
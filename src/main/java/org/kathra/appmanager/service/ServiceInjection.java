@@ -26,10 +26,15 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ServiceInjection {
 
-    private final Map<Class,Injectable> instancesServices = new HashMap<>();
+    // configured services, read without lock
+    private final Map<Class,Injectable> instancesServices = new ConcurrentHashMap<>();
+    // services being configured, visible to the services of the same graph only
+    private final Map<Class,Injectable> servicesInConfiguration = new HashMap<>();
+    private int configurationDepth;
 
     Config config;
     KathraSessionManager kathraSessionManager;
@@ -39,23 +44,49 @@ public class ServiceInjection {
         this.kathraSessionManager = sessionManager;
     }
 
-    public synchronized <T extends Injectable> T getService(Class<T> clazz) {
+    public <T extends Injectable> T getService(Class<T> clazz) {
+        Injectable instance = instancesServices.get(clazz);
+        return instance != null ? (T) instance : createService(clazz);
+    }
+
+    private synchronized <T extends Injectable> T createService(Class<T> clazz) {
 
         Injectable instance = instancesServices.get(clazz);
         if (instance == null) {
+            instance = servicesInConfiguration.get(clazz);
+        }
+        if (instance == null) {
+            configurationDepth++;
             try {
                 Constructor<T> defaultConstructor = clazz.getConstructor();
                 instance = defaultConstructor.newInstance();
-                instancesServices.put(clazz, instance);
+                servicesInConfiguration.put(clazz, instance);
                 instance.configure(this);
             } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
                 e.printStackTrace();
+            } finally {
+                if (--configurationDepth == 0) {
+                    // the whole graph is configured, publish it
+                    instancesServices.putAll(servicesInConfiguration);
+                    servicesInConfiguration.clear();
+                }
             }
         }
 
         return (T) instance;
     }
 
+    public int getServicesCount() {
+        return instancesServices.size();
+    }
+
+    /**
+     * Downstream client shared by all services using the same session manager
+     */
+    public <T> T getClient(Class<T> clazz, String url) {
+        return DownstreamClients.get(clazz, url, kathraSessionManager);
+    }
+
     public KathraSessionManager getSessionManager() {
         return this.kathraSessionManager;
     }
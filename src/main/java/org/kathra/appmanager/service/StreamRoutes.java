@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.model.rest.RestBindingMode;
+
+/**
+ * Streamed list endpoints : the JSON array is written while the response is sent ({@link JsonArrayStream}), without
+ * marshalling the whole list. Only lists whose elements can be completed one at a time are exposed, catalog entry
+ * packages are merged from several sources before any of them can be sent.
+ *
+ * @author julien.boubechtoula
+ */
+public class StreamRoutes extends RouteBuilder {
+
+    private static final String JSON = "application/json";
+
+    @Override
+    public void configure() {
+        rest("/streams")
+                .get("/components").bindingMode(RestBindingMode.off).produces(JSON)
+                    .to("bean:ComponentsController?method=getComponentsStream")
+                .get("/implementations").bindingMode(RestBindingMode.off).produces(JSON)
+                    .to("bean:ImplementationsController?method=getImplementationsStream");
+    }
+}
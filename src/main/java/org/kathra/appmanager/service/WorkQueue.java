@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared queue of background work : tasks run in submission order by at most 'concurrency' workers, the others wait
+ * in the queue. A task runs with the session of its submitter.
+ *
+ * @author julien.boubechtoula
+ */
+public class WorkQueue {
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private static volatile WorkQueue defaultQueue = new WorkQueue("work-queue", 2);
+
+    private final Logger logger = LoggerFactory.getLogger(WorkQueue.class);
+
+    private final String name;
+    private final int concurrency;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    public WorkQueue(String name, int concurrency) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static WorkQueue getDefault() {
+        return defaultQueue;
+    }
+
+    /**
+     * Replace the default queue when its concurrency changes, tasks already queued still run
+     */
+    public static synchronized void configure(int concurrency) {
+        WorkQueue current = defaultQueue;
+        if (concurrency <= 0 || current.concurrency == concurrency) {
+            return;
+        }
+        defaultQueue = new WorkQueue(current.name, concurrency);
+        current.executor.shutdown();
+    }
+
+    /**
+     * Queue a task
+     * @param description task's description, for the logs
+     * @return completion of the task
+     */
+    public CompletableFuture<Void> submit(KathraSessionManager sessionManager, String description, Task task) {
+        final Session session = sessionManager == null ? null : sessionManager.getCurrentSession();
+        Metrics.increment(name + ".submitted");
+        return CompletableFuture.runAsync(() -> {
+            if (session != null) {
+                sessionManager.handleSession(session);
+            }
+            try {
+                task.run();
+                Metrics.increment(name + ".completed");
+            } catch (Exception e) {
+                Metrics.increment(name + ".failed");
+                logger.error("Task '" + description + "' failed", e);
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+}
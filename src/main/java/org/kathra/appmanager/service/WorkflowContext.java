@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memoization context of a creation workflow (eg. a component and its repositories, libraries and pipelines).
+ *
+ * Contexts are keyed by workflow id and belong to the workflow's {@link Session}, which travels through the asynchronous
+ * callback chain. Reads of memoized resources are served from the context, writes done by the session are merged into
+ * the memoized resources of its contexts, and anything the context hasn't seen is loaded from the services.
+ *
+ * A session running several workflows at once only reads through the context bound to the current thread
+ * ({@link #bind}), other reads aren't memoized. Contexts are closed at the end of their workflow and expire after their
+ * TTL.
+ *
+ * @author julien.boubechtoula
+ */
+public final class WorkflowContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowContext.class);
+    private static final Map<String, WorkflowContext> OPENED = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> BOUND = new ThreadLocal<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final WeakReference<Session> session;
+    private final String id;
+    private final long expireAt;
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    private final AtomicInteger localReads = new AtomicInteger();
+    private final AtomicInteger downstreamReads = new AtomicInteger();
+
+    private WorkflowContext(Session session, String id, long ttlMs) {
+        this.session = new WeakReference<>(session);
+        this.id = id;
+        this.expireAt = System.currentTimeMillis() + ttlMs;
+    }
+
+    /**
+     * Open the context of a workflow for the session, or return it if the workflow already opened it
+     */
+    public static WorkflowContext open(Session session, String id, long ttlMs) {
+        if (session == null || id == null || ttlMs <= 0) {
+            return null;
+        }
+        return OPENED.compute(id, (key, existing) -> {
+            if (existing != null && existing.session.get() == session && existing.expireAt >= System.currentTimeMillis()) {
+                return existing;
+            }
+            logger.debug("Workflow context opened : " + id);
+            return new WorkflowContext(session, id, ttlMs);
+        });
+    }
+
+    /**
+     * Context of the workflow bound to the current thread, otherwise the only context opened for the session, null if
+     * none or ambiguous
+     */
+    public static WorkflowContext of(Session session) {
+        if (session == null || OPENED.isEmpty()) {
+            return null;
+        }
+        String bound = BOUND.get();
+        if (bound != null) {
+            WorkflowContext context = OPENED.get(bound);
+            if (context != null && context.isAlive() && context.session.get() == session) {
+                return context;
+            }
+        }
+        List<WorkflowContext> found = all(session);
+        return found.size() == 1 ? found.get(0) : null;
+    }
+
+    /**
+     * All contexts opened for the session
+     */
+    static List<WorkflowContext> all(Session session) {
+        List<WorkflowContext> found = new ArrayList<>();
+        if (session == null) {
+            return found;
+        }
+        for (WorkflowContext context : OPENED.values()) {
+            if (!context.isAlive()) {
+                OPENED.remove(context.id, context);
+            } else if (context.session.get() == session) {
+                found.add(context);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Serve the reads of the current thread from the workflow's context, until {@link #unbind}
+     */
+    public static void bind(String id) {
+        BOUND.set(id);
+    }
+
+    public static void unbind() {
+        BOUND.remove();
+    }
+
+    public static void close(String id) {
+        WorkflowContext context = id == null ? null : OPENED.remove(id);
+        if (context != null) {
+            logger.info("Workflow context closed : " + context.id + ", reads served locally=" + context.localReads.get() + ", downstream=" + context.downstreamReads.get());
+        }
+    }
+
+    private boolean isAlive() {
+        return session.get() != null && expireAt >= System.currentTimeMillis();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <X extends Resource> X read(String type, String id, EntityCache.Loader<X> loader) throws ApiException {
+        if (id == null) {
+            return loader.load(id);
+        }
+        X memoized = (X) resources.get(type + ":" + id);
+        if (memoized != null) {
+            localReads.incrementAndGet();
+            Metrics.increment("workflow." + type + ".local-read");
+            return EntityCache.copy(memoized);
+        }
+        downstreamReads.incrementAndGet();
+        Metrics.increment("workflow." + type + ".downstream-read");
+        X value = loader.load(id);
+        if (value != null) {
+            try {
+                resources.put(type + ":" + id, EntityCache.copy(value));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unable to memoize " + type + " '" + id + "'", e);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Merge the non-empty fields of a patch into the memoized resource
+     */
+    public <X extends Resource> void write(String type, X patch) {
+        if (patch == null || patch.getId() == null) {
+            return;
+        }
+        resources.computeIfPresent(type + ":" + patch.getId(), (key, memoized) -> {
+            try {
+                Resource merged = EntityCache.copy(memoized);
+                JsonNode tree = MAPPER.valueToTree(patch);
+                return MAPPER.readerForUpdating(merged).readValue(tree);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Unable to merge patch of " + type + " '" + patch.getId() + "'", e);
+                return null;
+            }
+        });
+    }
+
+    public void forget(String type, String id) {
+        if (id != null) {
+            resources.remove(type + ":" + id);
+        }
+    }
+}
@@ -49,6 +49,13 @@ public class KeycloackSession extends Session implements KathraSessionManager {
         log.debug("Session created for" + user.getName());
     }
 
+    /**
+     * Log in again, the session keeps its identity for the clients and services built with it
+     */
+    public void renew() {
+        performLogin();
+    }
+
     private void performLogin() {
         User sessionUser = getUserObject();
         log.debug("Performing logging for " + sessionUser.getName());
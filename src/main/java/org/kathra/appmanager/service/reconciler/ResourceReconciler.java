@@ -79,34 +79,34 @@ public class ResourceReconciler {
     }
 
     public void configure(ServiceInjection service) {
-        this.componentsClient = new ComponentsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.componentsClient = service.getClient(ComponentsClient.class, service.getConfig().getResourceManagerUrl());
         this.componentService = service.getService(ComponentService.class);
 
-        this.implementationsClient = new ImplementationsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.implementationsClient = service.getClient(ImplementationsClient.class, service.getConfig().getResourceManagerUrl());
         this.implementationService = service.getService(ImplementationService.class);
 
-        this.catalogEntriesClient = new CatalogEntriesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.catalogEntriesClient = service.getClient(CatalogEntriesClient.class, service.getConfig().getResourceManagerUrl());
         this.catalogEntriesService = service.getService(CatalogEntryService.class);
 
-        this.catalogEntryPackagesClient = new CatalogEntryPackagesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.catalogEntryPackagesClient = service.getClient(CatalogEntryPackagesClient.class, service.getConfig().getResourceManagerUrl());
         this.catalogEntryPackageService = service.getService(CatalogEntryPackageService.class);
 
-        this.librariesClient = new LibrariesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.librariesClient = service.getClient(LibrariesClient.class, service.getConfig().getResourceManagerUrl());
         this.libraryService = service.getService(LibraryService.class);
 
-        this.apiVersionsClient = new ApiVersionsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.apiVersionsClient = service.getClient(ApiVersionsClient.class, service.getConfig().getResourceManagerUrl());
         this.apiVersionService = service.getService(ApiVersionService.class);
 
-        this.pipelinesClient = new PipelinesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.pipelinesClient = service.getClient(PipelinesClient.class, service.getConfig().getResourceManagerUrl());
         this.pipelineService = service.getService(PipelineService.class);
 
-        this.libraryApiVersionsClient = new LibraryApiVersionsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.libraryApiVersionsClient = service.getClient(LibraryApiVersionsClient.class, service.getConfig().getResourceManagerUrl());
         this.libraryApiVersionService = service.getService(LibraryApiVersionService.class);
 
-        this.implementationVersionClient = new ImplementationVersionsClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.implementationVersionClient = service.getClient(ImplementationVersionsClient.class, service.getConfig().getResourceManagerUrl());
         this.implementationVersionService = service.getService(ImplementationVersionService.class);
 
-        this.sourceRepositoriesClient = new SourceRepositoriesClient(service.getConfig().getResourceManagerUrl(), service.getSessionManager());
+        this.sourceRepositoriesClient = service.getClient(SourceRepositoriesClient.class, service.getConfig().getResourceManagerUrl());
         this.sourceRepositoryService = service.getService(SourceRepositoryService.class);
     }
 
@@ -2,38 +2,78 @@ package org.kathra.appmanager.service.reconciler;
 
 import org.apache.camel.builder.RouteBuilder;
 import org.kathra.appmanager.Config;
-import org.kathra.appmanager.service.ServiceInjection;
+import org.kathra.appmanager.service.DownstreamClients;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.core.model.User;
 import org.kathra.resourcemanager.client.GroupsClient;
 import org.kathra.resourcemanager.client.UsersClient;
 import org.kathra.utils.KathraSessionManager;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Reconcile the resources every 30s, with the sync user then with the technical user of each group.
+ *
+ * The session of a user is kept from one run to the next and logged in again at each run, so that its downstream
+ * clients and services are built once. Sessions of users that are no longer found are released.
+ */
 public class ResourceScannerScheduler extends RouteBuilder {
 
+    private final Map<String, KeycloackSession> sessions = new HashMap<>();
+
     @Override
     public void configure() {
         from("scheduler://foo?delay=30s").process(exchange -> {
             Config config = new Config();
+            Set<String> users = new HashSet<>();
 
-            KathraSessionManager sessionManagerUserSync = new KeycloackSession(new User().name(config.getUserLogin()).password(config.getUserPassword()));
-            new ResourceReconciler(new ServiceInjection(config, sessionManagerUserSync)).processForGlobalResources();
+            KathraSessionManager sessionManagerUserSync = session(new User().name(config.getUserLogin()).password(config.getUserPassword()), users);
+            new ResourceReconciler(ServiceContainer.get(sessionManagerUserSync)).processForGlobalResources();
 
-            GroupsClient groupsClient = new GroupsClient(config.getResourceManagerUrl(), sessionManagerUserSync);
-            UsersClient usersClient = new UsersClient(config.getResourceManagerUrl(), sessionManagerUserSync);
+            GroupsClient groupsClient = DownstreamClients.get(GroupsClient.class, config.getResourceManagerUrl(), sessionManagerUserSync);
+            UsersClient usersClient = DownstreamClients.get(UsersClient.class, config.getResourceManagerUrl(), sessionManagerUserSync);
             groupsClient.getGroups().forEach(group -> {
                 if (group.getTechnicalUser() == null) {
                     return;
                 }
                 try {
                     User technicalUser = usersClient.getUser(group.getTechnicalUser().getId());
-                    KathraSessionManager sessionManagerForTechnicalUser= new KeycloackSession(new User().name(technicalUser.getName()).password(technicalUser.getPassword()));
-                    new ResourceReconciler(new ServiceInjection(config, sessionManagerForTechnicalUser)).processForGroupResource();
+                    KathraSessionManager sessionManagerForTechnicalUser = session(new User().name(technicalUser.getName()).password(technicalUser.getPassword()), users);
+                    new ResourceReconciler(ServiceContainer.get(sessionManagerForTechnicalUser)).processForGroupResource();
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
 
             });
+            sessions.entrySet().removeIf(session -> {
+                if (users.contains(session.getKey())) {
+                    return false;
+                }
+                ServiceContainer.release(session.getValue());
+                return true;
+            });
         }).to("mock:success");
     }
 
+    /**
+     * Session of the user logged in again, a new one if its password changed
+     */
+    private KathraSessionManager session(User user, Set<String> users) {
+        users.add(user.getName());
+        KeycloackSession session = sessions.get(user.getName());
+        if (session != null && Objects.equals(session.getUserObject().getPassword(), user.getPassword())) {
+            session.renew();
+            return session;
+        }
+        if (session != null) {
+            ServiceContainer.release(session);
+        }
+        session = new KeycloackSession(user);
+        sessions.put(user.getName(), session);
+        return session;
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.kathra.appmanager.service.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Failure-rate circuit breaker over the last calls.
+ *
+ * CLOSED : calls go through, the circuit opens when the failure rate of the window reaches the threshold.
+ * OPEN : calls are rejected until the open duration elapses.
+ * HALF_OPEN : a few probe calls go through, the circuit closes if they all succeed and opens again on a failure.
+ *
+ * Transitions are logged, counted ('downstream.&lt;name&gt;.circuit.&lt;state&gt;') and notified to the listeners.
+ *
+ * @author julien.boubechtoula
+ */
+public class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final boolean[] window;
+    private final List<BiConsumer<State, State>> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    /**
+     * @param failureRateThreshold failure rate (%) opening the circuit
+     * @param windowSize number of last calls considered
+     * @param minimumCalls calls required before computing the failure rate
+     * @param openDurationMs duration before probing
+     * @param halfOpenProbes successful probes required to close the circuit
+     */
+    public CircuitBreaker(String name, int failureRateThreshold, int windowSize, int minimumCalls, long openDurationMs, int halfOpenProbes) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    public CircuitBreaker addListener(BiConsumer<State, State> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * @return true if the call can go through, the caller has to report its outcome
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes - probesSucceeded) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probesSucceeded >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Permission acquired but the call wasn't made
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length && window[position]) {
+            failures--;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+        calls = Math.min(calls + 1, window.length);
+    }
+
+    private void transition(State to) {
+        final State from = state;
+        state = to;
+        position = 0;
+        calls = 0;
+        failures = 0;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+        if (to == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        if (to == State.CLOSED) {
+            logger.info("Circuit " + name + " " + from + " -> " + to);
+        } else {
+            logger.warn("Circuit " + name + " " + from + " -> " + to);
+        }
+        Metrics.increment("downstream." + name + ".circuit." + to.name().toLowerCase());
+        listeners.forEach(listener -> listener.accept(from, to));
+    }
+}
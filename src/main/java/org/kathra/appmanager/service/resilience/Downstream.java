@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.kathra.appmanager.service.Metrics;
+import org.kathra.utils.ApiException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resilience of calls to a downstream service (resource manager, source manager, pipeline manager, codegen, catalog
+ * manager, Harbor...) : a bulkhead limiting concurrent calls and a circuit breaker failing fast while the service is
+ * unavailable.
+ *
+ * Server errors (5xx), transport errors (no status) and unexpected exceptions are failures, other responses (4xx,
+ * 304...) prove the service is up.
+ *
+ * @author julien.boubechtoula
+ */
+public class Downstream {
+
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Throwable;
+    }
+
+    /**
+     * Settings shared by all downstream services
+     */
+    public static class Settings {
+        int maxConcurrentCalls = 20;
+        long maxWaitMs = 1000;
+        int failureRateThreshold = 50;
+        int windowSize = 20;
+        int minimumCalls = 10;
+        long openDurationMs = 30000;
+        int halfOpenProbes = 3;
+
+        public Settings bulkhead(int maxConcurrentCalls, long maxWaitMs) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.maxWaitMs = maxWaitMs;
+            return this;
+        }
+
+        public Settings circuitBreaker(int failureRateThreshold, int windowSize, int minimumCalls, long openDurationMs, int halfOpenProbes) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            this.openDurationMs = openDurationMs;
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+    }
+
+    private static final Map<String, Downstream> DOWNSTREAMS = new ConcurrentHashMap<>();
+    private static volatile Settings settings = new Settings();
+
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    Downstream(String name, Settings settings) {
+        this.name = name;
+        this.bulkhead = new Bulkhead(settings.maxConcurrentCalls, settings.maxWaitMs);
+        this.circuitBreaker = new CircuitBreaker(name, settings.failureRateThreshold, settings.windowSize, settings.minimumCalls, settings.openDurationMs, settings.halfOpenProbes);
+    }
+
+    /**
+     * Settings of the downstream services created from now on
+     */
+    public static void configure(Settings newSettings) {
+        if (newSettings.maxConcurrentCalls > 0) {
+            settings = newSettings;
+        }
+    }
+
+    public static Downstream of(String name) {
+        return DOWNSTREAMS.computeIfAbsent(name, n -> new Downstream(n, settings));
+    }
+
+    /**
+     * Circuit state of each downstream service
+     */
+    public static Map<String, CircuitBreaker.State> getStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<>();
+        DOWNSTREAMS.forEach((name, downstream) -> states.put(name, downstream.circuitBreaker.getState()));
+        return states;
+    }
+
+    public <T> T call(Call<T> call) throws Throwable {
+        if (!circuitBreaker.tryAcquire()) {
+            Metrics.increment("downstream." + name + ".circuit.rejected");
+            throw new DownstreamUnavailableException("Downstream service '" + name + "' is unavailable (circuit open)");
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.onCancel();
+            Metrics.increment("downstream." + name + ".bulkhead.rejected");
+            throw new DownstreamUnavailableException("Downstream service '" + name + "' is saturated (" + bulkhead.getActiveCalls() + " calls in progress)");
+        }
+        try {
+            T result = call.call();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (isFailure(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public static boolean isFailure(Throwable e) {
+        if (e instanceof ApiException) {
+            int code = ((ApiException) e).getCode();
+            return code == 0 || code >= 500;
+        }
+        return true;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
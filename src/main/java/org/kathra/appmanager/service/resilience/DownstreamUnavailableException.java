@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.kathra.utils.ApiException;
+
+/**
+ * Call rejected locally (open circuit or saturated bulkhead), the downstream service hasn't been called
+ *
+ * @author julien.boubechtoula
+ */
+public class DownstreamUnavailableException extends ApiException {
+
+    public DownstreamUnavailableException(String message) {
+        super(Downstream.SERVICE_UNAVAILABLE, message);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.kathra.appmanager.service.Metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hedged reads : when an idempotent read hasn't answered after the configured percentile of the recent latencies, a
+ * second request is sent and the first answer wins.
+ *
+ * Hedges are limited by a budget (percentage of the calls) and only start once enough latencies are known. Fired and
+ * won hedges are counted ('downstream.&lt;name&gt;.hedge.fired' and '.hedge.won').
+ *
+ * A call that can't be hedged (latencies unknown, budget spent) runs on the caller thread. Otherwise the primary and
+ * the hedge run on a bounded pool shared by all hedgers, so that the caller can take the first answer; when the pool
+ * is full the call runs on the caller thread, not hedged.
+ *
+ * @author julien.boubechtoula
+ */
+public class Hedger {
+
+    private static final int SAMPLES = 512;
+    private static final int MIN_SAMPLES = 64;
+    private static final int REFRESH_EVERY = 32;
+    private static final Map<String, Hedger> HEDGERS = new ConcurrentHashMap<>();
+    private static final int MAX_THREADS = 32;
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "hedged-read");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final int percentile;
+    private final double budgetRatio;
+    private final long[] latencies = new long[SAMPLES];
+    private int position;
+    private int count;
+    private volatile long hedgeDelayMs = -1;
+    private double balance;
+
+    /**
+     * @param percentile latency percentile after which a hedge is sent
+     * @param budgetPercent hedges allowed per 100 calls
+     */
+    public Hedger(String name, int percentile, int budgetPercent) {
+        this.name = name;
+        this.percentile = Math.min(99, Math.max(1, percentile));
+        this.budgetRatio = budgetPercent / 100.0;
+    }
+
+    /**
+     * Hedge the reads of a downstream service, ignored when percentile is 0
+     */
+    public static void enable(String name, int percentile, int budgetPercent) {
+        if (percentile > 0 && budgetPercent > 0) {
+            HEDGERS.computeIfAbsent(name, n -> new Hedger(n, percentile, budgetPercent));
+        }
+    }
+
+    /**
+     * @return hedger of the downstream service, null when its reads aren't hedged
+     */
+    public static Hedger of(String name) {
+        return HEDGERS.get(name);
+    }
+
+    /**
+     * Call, hedged if it's late. A call that may be hedged runs on another thread and must carry its own context
+     * (session).
+     */
+    public <T> T call(Downstream.Call<T> call) throws Throwable {
+        onCall();
+        final long delay = hedgeDelayMs;
+        if (delay < 0 || !canHedge()) {
+            return callInCallerThread(call);
+        }
+        final CompletableFuture<T> primary;
+        try {
+            primary = submit(call, true);
+        } catch (RejectedExecutionException e) {
+            Metrics.increment("downstream." + name + ".hedge.saturated");
+            return callInCallerThread(call);
+        }
+        try {
+            return primary.get(delay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // late, hedge below
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+        if (!tryHedge()) {
+            return await(primary);
+        }
+        final CompletableFuture<T> hedge;
+        try {
+            hedge = submit(call, false);
+        } catch (RejectedExecutionException e) {
+            Metrics.increment("downstream." + name + ".hedge.saturated");
+            return await(primary);
+        }
+        Metrics.increment("downstream." + name + ".hedge.fired");
+        final CompletableFuture<T> first = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((result, error) -> complete(first, result, error, failures));
+        hedge.whenComplete((result, error) -> {
+            if (complete(first, result, error, failures)) {
+                Metrics.increment("downstream." + name + ".hedge.won");
+            }
+        });
+        return await(first);
+    }
+
+    public long getHedgeDelayMs() {
+        return hedgeDelayMs;
+    }
+
+    synchronized void recordLatency(long latencyMs) {
+        latencies[position] = latencyMs;
+        position = (position + 1) % SAMPLES;
+        count = Math.min(count + 1, SAMPLES);
+        if (count >= MIN_SAMPLES && position % REFRESH_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            hedgeDelayMs = sorted[Math.min(count - 1, count * percentile / 100)];
+        }
+    }
+
+    private synchronized void onCall() {
+        balance = Math.min(10, balance + budgetRatio);
+    }
+
+    private synchronized boolean canHedge() {
+        return balance >= 1;
+    }
+
+    private synchronized boolean tryHedge() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    private <T> T callInCallerThread(Downstream.Call<T> call) throws Throwable {
+        final long start = System.currentTimeMillis();
+        T result = call.call();
+        recordLatency(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(Downstream.Call<T> call, boolean primary) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long start = System.currentTimeMillis();
+        EXECUTOR.execute(() -> {
+            try {
+                future.complete(call.call());
+                if (primary) {
+                    recordLatency(System.currentTimeMillis() - start);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return true if this answer is the first success
+     */
+    private static <T> boolean complete(CompletableFuture<T> first, T result, Throwable error, AtomicInteger failures) {
+        if (error == null) {
+            return first.complete(result);
+        }
+        if (failures.incrementAndGet() == 2) {
+            // both failed, the last error is reported
+            first.completeExceptionally(error);
+        }
+        return false;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
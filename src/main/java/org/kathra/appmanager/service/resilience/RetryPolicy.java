@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.kathra.appmanager.service.Metrics;
+import org.kathra.utils.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Retries of calls to downstream services : exponential backoff with full jitter (random delay between 0 and
+ * min(maxDelay, baseDelay * 2^attempt)), bounded by a retry budget shared by all calls so that retries cannot amplify
+ * an outage.
+ *
+ * Exceptions are classified by class (the most specific registered class wins) :
+ * <ul>
+ *     <li>RETRYABLE : transient error (5xx, transport error), the call is tried again</li>
+ *     <li>FATAL : the call can't succeed (3xx/4xx, locally rejected call, unexpected exception)</li>
+ * </ul>
+ * A NOT_MODIFIED answer isn't a failure for the circuit breaker ({@link Downstream#isFailure}), but clients raise it as
+ * an exception : it is given back to the caller as is, like the other non retryable ones.
+ *
+ * Only idempotent calls (reads, updates, deletions) are retried on RETRYABLE errors. A failed creation may have been
+ * applied by the server, it is only retried when the request couldn't be sent (connection refused, unknown host).
+ *
+ * @author julien.boubechtoula
+ */
+public class RetryPolicy {
+
+    public enum Outcome {RETRYABLE, FATAL}
+
+    private static volatile RetryPolicy defaultPolicy = new RetryPolicy(3, 200, 2000, new RetryBudget(20, 10));
+
+    private final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final RetryBudget budget;
+    private final Map<Class<? extends Throwable>, Function<Throwable, Outcome>> classifiers = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAttempts attempts including the first call
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, RetryBudget budget) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.budget = budget;
+        classify(Throwable.class, e -> Outcome.FATAL);
+        classify(IOException.class, e -> Outcome.RETRYABLE);
+        classify(ApiException.class, e -> classifyCode(e.getCode()));
+        classify(DownstreamUnavailableException.class, e -> Outcome.FATAL);
+    }
+
+    /**
+     * Policy applied to downstream clients
+     */
+    public static RetryPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Replace the default policy, kept as is (with its budget) when the settings are unchanged
+     */
+    public static synchronized void configure(int maxAttempts, long baseDelayMs, long maxDelayMs, int retryPercent, int minRetriesPerSecond) {
+        RetryPolicy current = defaultPolicy;
+        if (maxAttempts <= 0 || (current.maxAttempts == maxAttempts && current.baseDelayMs == baseDelayMs && current.maxDelayMs == maxDelayMs
+                && current.budget.retryPercent == retryPercent && current.budget.minRetriesPerSecond == minRetriesPerSecond)) {
+            return;
+        }
+        defaultPolicy = new RetryPolicy(maxAttempts, baseDelayMs, maxDelayMs, new RetryBudget(retryPercent, minRetriesPerSecond));
+    }
+
+    /**
+     * Register the classification of an exception class and its subclasses
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Throwable> RetryPolicy classify(Class<E> exceptionClass, Function<E, Outcome> classifier) {
+        classifiers.put(exceptionClass, e -> classifier.apply((E) e));
+        return this;
+    }
+
+    public Outcome classify(Throwable e) {
+        for (Class<?> type = e.getClass(); type != null; type = type.getSuperclass()) {
+            Function<Throwable, Outcome> classifier = classifiers.get(type);
+            if (classifier != null) {
+                return classifier.apply(e);
+            }
+        }
+        return Outcome.FATAL;
+    }
+
+    public boolean isRetryable(Throwable e) {
+        return classify(e) == Outcome.RETRYABLE;
+    }
+
+    /**
+     * Whether the call can be tried again after this failure
+     * @param idempotent the call gives the same result when applied twice
+     */
+    public boolean isRetryable(Throwable e, boolean idempotent) {
+        return idempotent ? isRetryable(e) : isNotSent(e);
+    }
+
+    public <T> T call(String name, Downstream.Call<T> call) throws Throwable {
+        return call(name, true, call);
+    }
+
+    public <T> T call(String name, boolean idempotent, Downstream.Call<T> call) throws Throwable {
+        budget.onCall();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (Throwable e) {
+                if (attempt >= maxAttempts || !isRetryable(e, idempotent)) {
+                    throw e;
+                }
+                if (!budget.tryRetry()) {
+                    Metrics.increment("downstream." + name + ".retry.exhausted");
+                    throw e;
+                }
+                long delay = getDelay(attempt);
+                logger.warn("Call to " + name + " failed (" + e.getMessage() + "), retry " + attempt + "/" + (maxAttempts - 1) + " in " + delay + " ms");
+                Metrics.increment("downstream." + name + ".retry");
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    long getDelay(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs * (1L << Math.min(attempt - 1, 30)));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isNotSent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Outcome classifyCode(int code) {
+        // no status : transport error
+        return (code == 0 || code >= 500) ? Outcome.RETRYABLE : Outcome.FATAL;
+    }
+
+    /**
+     * Retries allowed as a percentage of calls, plus a minimum number of retries per second for low traffic.
+     */
+    public static class RetryBudget {
+        private final int retryPercent;
+        private final double ratio;
+        private final int minRetriesPerSecond;
+        private final double maxBalance;
+        private double balance;
+        private long refilledAt = System.currentTimeMillis();
+
+        /**
+         * @param retryPercent retries allowed per 100 calls
+         */
+        public RetryBudget(int retryPercent, int minRetriesPerSecond) {
+            this.retryPercent = retryPercent;
+            this.ratio = retryPercent / 100.0;
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            this.maxBalance = Math.max(1, minRetriesPerSecond * 10);
+            this.balance = minRetriesPerSecond;
+        }
+
+        synchronized void onCall() {
+            balance = Math.min(maxBalance, balance + ratio);
+        }
+
+        synchronized boolean tryRetry() {
+            long now = System.currentTimeMillis();
+            balance = Math.min(maxBalance, balance + (now - refilledAt) * minRetriesPerSecond / 1000.0);
+            refilledAt = now;
+            if (balance < 1) {
+                return false;
+            }
+            balance--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.sourcerepository;
+
+import org.apache.commons.io.FileUtils;
+import org.kathra.utils.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Local disk cache of files fetched from the source manager, keyed by (repository path, ref, file path).
+ *
+ * Tags (X.Y.Z) are kept until evicted, the least recently used first, when the cache exceeds its size. Tags can be
+ * moved by a new commit of the repository, the service invalidates the repository's files on each of its commits.
+ * Branches move, they are only cached for a short TTL (not cached when the TTL is 0).
+ *
+ * Files handed out may still be read after their eviction, evicted files are deleted after a grace period and never
+ * overwritten (one directory per cached file).
+ *
+ * One cache is shared per root directory. The files left in the root by earlier processes are deleted when the cache
+ * is created, none of its entries point to them.
+ *
+ * @author julien.boubechtoula
+ */
+public class SourceFileCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        File load() throws ApiException;
+    }
+
+    private static final Pattern PATTERN_TAG = Pattern.compile("^[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}$");
+    private static final Map<String, SourceFileCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Logger logger = LoggerFactory.getLogger(SourceFileCache.class);
+
+    private final File root;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes = 256L * 1024 * 1024;
+    private long branchTtlMs = 0;
+    private long graceMs = 10 * 60 * 1000;
+    private long usedBytes;
+    private final Map<String, Long> generations = new HashMap<>();
+    private final List<Entry> retired = new ArrayList<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static class Entry {
+        File file;
+        long size;
+        long expireAt;
+    }
+
+    private SourceFileCache(File root) {
+        this.root = root;
+        deleteOrphans();
+    }
+
+    public static SourceFileCache forRoot(File root) {
+        return CACHES.computeIfAbsent(root.getAbsolutePath(), path -> new SourceFileCache(new File(path)));
+    }
+
+    public synchronized SourceFileCache limits(long maxBytes, long branchTtlMs) {
+        this.maxBytes = maxBytes;
+        this.branchTtlMs = branchTtlMs;
+        return this;
+    }
+
+    public synchronized SourceFileCache grace(long graceMs) {
+        this.graceMs = graceMs;
+        return this;
+    }
+
+    public static boolean isTag(String ref) {
+        return ref != null && PATTERN_TAG.matcher(ref).find();
+    }
+
+    /**
+     * Get file from local disk or from the loader
+     */
+    public File get(String path, String ref, String filepath, Loader loader) throws ApiException {
+        final boolean tag = isTag(ref);
+        if (!tag && branchTtlMs <= 0) {
+            return loader.load();
+        }
+        final String key = path + "\u0000" + ref + "\u0000" + filepath;
+        final long generation;
+        synchronized (this) {
+            deleteRetired();
+            generation = generations.getOrDefault(path, 0L);
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expireAt > System.currentTimeMillis() && entry.file.exists()) {
+                hits.incrementAndGet();
+                return entry.file;
+            } else if (entry != null) {
+                evict(key);
+            }
+        }
+        misses.incrementAndGet();
+        File downloaded = loader.load();
+        if (downloaded == null || !downloaded.isFile()) {
+            return downloaded;
+        }
+        try {
+            synchronized (this) {
+                if (generations.getOrDefault(path, 0L) != generation) {
+                    // repository committed during the download, the file may be outdated
+                    return downloaded;
+                }
+                File cached = new File(root, UUID.randomUUID() + File.separator + new File(filepath).getName());
+                Files.createDirectories(cached.getParentFile().toPath());
+                Files.move(downloaded.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Entry entry = new Entry();
+                entry.file = cached;
+                entry.size = cached.length();
+                entry.expireAt = tag ? Long.MAX_VALUE : System.currentTimeMillis() + branchTtlMs;
+                Entry replaced = entries.put(key, entry);
+                if (replaced != null) {
+                    retire(replaced);
+                }
+                usedBytes += entry.size;
+                evictLeastRecentlyUsed(key);
+                return cached;
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to cache file " + filepath + " of " + path + "@" + ref, e);
+            return downloaded;
+        }
+    }
+
+    /**
+     * Forget the files of a repository, its branches and tags may have moved
+     */
+    public synchronized void invalidate(String path) {
+        generations.merge(path, 1L, Long::sum);
+        String prefix = path + "\u0000";
+        for (String key : new ArrayList<>(entries.keySet())) {
+            if (key.startsWith(prefix)) {
+                evict(key);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void evictLeastRecentlyUsed(String keep) {
+        Iterator<String> iterator = new ArrayList<>(entries.keySet()).iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            String key = iterator.next();
+            if (!key.equals(keep)) {
+                evict(key);
+            }
+        }
+    }
+
+    private void evict(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    private void retire(Entry entry) {
+        usedBytes -= entry.size;
+        // readers may still hold the file
+        entry.expireAt = System.currentTimeMillis() + graceMs;
+        retired.add(entry);
+        deleteRetired();
+    }
+
+    private void deleteOrphans() {
+        File[] directories = root.listFiles(File::isDirectory);
+        if (directories == null) {
+            return;
+        }
+        for (File directory : directories) {
+            try {
+                UUID.fromString(directory.getName());
+            } catch (IllegalArgumentException e) {
+                // not a directory of the cache
+                continue;
+            }
+            try {
+                FileUtils.deleteDirectory(directory);
+            } catch (IOException e) {
+                logger.error("Unable to delete " + directory, e);
+            }
+        }
+    }
+
+    private void deleteRetired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = retired.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expireAt <= now) {
+                try {
+                    FileUtils.deleteDirectory(entry.file.getParentFile());
+                } catch (IOException e) {
+                    logger.error("Unable to delete " + entry.file, e);
+                }
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -19,10 +19,10 @@
  */
 package org.kathra.appmanager.sourcerepository;
 
-import org.kathra.appmanager.Config;
 import org.kathra.appmanager.implementation.ImplementationService;
 import org.kathra.appmanager.model.Commit;
 import org.kathra.appmanager.service.RepositoriesService;
+import org.kathra.appmanager.service.ServiceContainer;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.core.model.SourceRepository;
 import org.kathra.core.model.SourceRepositoryCommit;
@@ -51,7 +51,7 @@ public class SourceRepositoriesController implements RepositoriesService {
     }
 
     public SourceRepositoriesController() {
-        serviceInjection = new ServiceInjection(new Config(), getSessionManager());
+        serviceInjection = ServiceContainer.get(getSessionManager());
         this.sourceRepositoryService = serviceInjection.getService(SourceRepositoryService.class);
         this.implementationService = serviceInjection.getService(ImplementationService.class);
     }
@@ -70,7 +70,7 @@ public class SourceRepositoriesController implements RepositoriesService {
 
     private SourceRepository getSourceRepositoryImpl(String sourceRepositoryId) throws ApiException, KathraException {
         SourceRepository sourceRepository = sourceRepositoryService.getById(sourceRepositoryId).orElseThrow(() -> new KathraException("SourceRepository "+sourceRepositoryId+" not found", null,KathraException.ErrorCode.NOT_FOUND));
-        boolean sourceRepositoryImplementationAuthorized = implementationService.getAll().stream().anyMatch(implementation -> implementation.getSourceRepository() != null && implementation.getSourceRepository().getId() != null && implementation.getSourceRepository().getId().equals(sourceRepositoryId));
+        boolean sourceRepositoryImplementationAuthorized = !implementationService.getBySourceRepository(sourceRepositoryId).isEmpty();
         if (!sourceRepositoryImplementationAuthorized) {
             throw new KathraException("SourceRepository's implementation '"+sourceRepositoryId+"' forbidden", null,KathraException.ErrorCode.FORBIDDEN);
         }
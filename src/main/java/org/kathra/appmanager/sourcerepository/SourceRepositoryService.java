@@ -22,6 +22,7 @@ package org.kathra.appmanager.sourcerepository;
 import org.kathra.appmanager.component.ComponentService;
 import org.kathra.appmanager.library.LibraryService;
 import org.kathra.appmanager.service.AbstractResourceService;
+import org.kathra.appmanager.service.ResourceIndex;
 import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.core.model.*;
 import org.kathra.resourcemanager.client.SourceRepositoriesClient;
@@ -42,11 +43,14 @@ import java.util.concurrent.CompletableFuture;
 public class SourceRepositoryService extends AbstractResourceService<SourceRepository> {
 
     private final String METADATA_DEPLOY_KEYS = "deployKey";
+    private static final String INDEX_PATH = "path";
 
     private SourceManagerClient sourceManagerClient;
     private SourceRepositoriesClient resourceManager;
     private LibraryService libraryService;
     private ComponentService componentService;
+    private SourceFileCache sourceFileCache;
+    private ResourceIndex<SourceRepository> sourceRepositoryIndex;
 
     public SourceRepositoryService(){
 
@@ -54,10 +58,13 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
 
     public void configure(ServiceInjection serviceInjection) {
         super.configure(serviceInjection);
-        this.resourceManager = new SourceRepositoriesClient(serviceInjection.getConfig().getResourceManagerUrl(), serviceInjection.getSessionManager());
-        this.sourceManagerClient = new SourceManagerClient(serviceInjection.getConfig().getSourceManagerUrl(), serviceInjection.getSessionManager());
+        this.resourceManager = serviceInjection.getClient(SourceRepositoriesClient.class, serviceInjection.getConfig().getResourceManagerUrl());
+        this.sourceManagerClient = serviceInjection.getClient(SourceManagerClient.class, serviceInjection.getConfig().getSourceManagerUrl());
         this.libraryService = serviceInjection.getService(LibraryService.class);
         this.componentService = serviceInjection.getService(ComponentService.class);
+        this.sourceFileCache = SourceFileCache.forRoot(new File(serviceInjection.getConfig().getSourceFileCacheDirectory()))
+                .limits(serviceInjection.getConfig().getSourceFileCacheMaxBytes(), serviceInjection.getConfig().getSourceFileCacheBranchTtlMs());
+        this.sourceRepositoryIndex = buildIndex(serviceInjection.getConfig().getIndexResyncIntervalMs());
     }
 
     public SourceRepositoryService(SourceRepositoriesClient resourceManager, SourceManagerClient sourceManagerClient, ComponentService componentService, LibraryService libraryService, KathraSessionManager kathraSessionManager) {
@@ -66,6 +73,12 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
         this.libraryService = libraryService;
         this.componentService = componentService;
         super.kathraSessionManager = kathraSessionManager;
+        this.sourceRepositoryIndex = buildIndex(0);
+    }
+
+    private ResourceIndex<SourceRepository> buildIndex(long resyncIntervalMs) {
+        return new ResourceIndex<SourceRepository>("SourceRepository", () -> resourceManager.getSourceRepositories(), kathraSessionManager, resyncIntervalMs)
+                .addKey(INDEX_PATH, SourceRepository::getPath);
     }
 
     public void setSourceManagerClient(SourceManagerClient sourceManagerClient) {
@@ -123,7 +136,7 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
         SourceRepository sourceRepository = create(name, path, deploysKeys, callback);
 
         // Patch library with new source repository
-        libraryService.patch(new Library().id(library.getId()).sourceRepository(sourceRepository));
+        libraryService.bufferPatch(new Library().id(library.getId()).sourceRepository(sourceRepository));
         library.setSourceRepository(sourceRepository);
 
         return sourceRepository;
@@ -150,6 +163,7 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
 
         try {
             final SourceRepository sourceRepository = resourceManager.addSourceRepository(sourceRepositoryToAdd);
+            sourceRepositoryIndex.put(sourceRepository);
 
             final Session session = kathraSessionManager.getCurrentSession();
             CompletableFuture.runAsync(() -> {
@@ -178,24 +192,9 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
     }
 
     private void createRepository(SourceRepository sourceRepository, String[] deploysKeys) throws ApiException {
-        SourceRepository sourceRepositoryWithInfoSourceManager = null;
-        int attempt=0;
-        int maxRetry=3;
-        ApiException exception = null;
-        do {
-            try {
-                sourceRepositoryWithInfoSourceManager = sourceManagerClient.createSourceRepository(sourceRepository, Arrays.asList(deploysKeys));
-            } catch (ApiException e) {
-                attempt++;
-                exception = e;
-                logger.warn("Unable to create repository wait and try again "+attempt+"/"+maxRetry);
-                try {Thread.sleep(2000);} catch (InterruptedException ex) { }
-            }
-        } while(sourceRepositoryWithInfoSourceManager == null && attempt < maxRetry);
-        if (sourceRepositoryWithInfoSourceManager == null) {
-            throw exception;
-        }
-        patch(new SourceRepository()
+        // a creation is only retried by the source manager client (RetryPolicy) when the request couldn't be sent
+        SourceRepository sourceRepositoryWithInfoSourceManager = sourceManagerClient.createSourceRepository(sourceRepository, Arrays.asList(deploysKeys));
+        bufferPatch(new SourceRepository()
                 .id(sourceRepository.getId())
                 .name(sourceRepository.getName())
                 .path(sourceRepository.getPath())
@@ -216,7 +215,11 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
         if (file == null) {
             throw new IllegalArgumentException("file is null");
         }
-        return sourceManagerClient.createCommit(sourceRepository.getPath(), branch, file, filename, false, tag,false);
+        try {
+            return sourceManagerClient.createCommit(sourceRepository.getPath(), branch, file, filename, false, tag,false);
+        } finally {
+            committed(sourceRepository);
+        }
     }
 
     private void checkSrcRepo(SourceRepository sourceRepository) {
@@ -236,22 +239,41 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
         if (StringUtils.isEmpty(branch)) {
             throw new IllegalArgumentException("Branch is null or empty");
         }
-        return sourceManagerClient.createCommit(sourceRepository.getPath(), branch, file, path, true, tag, true);
+        try {
+            return sourceManagerClient.createCommit(sourceRepository.getPath(), branch, file, path, true, tag, true);
+        } finally {
+            committed(sourceRepository);
+        }
+    }
 
+    /**
+     * The commit moves the branch and may move the tag, cached files of the repository are outdated
+     */
+    private void committed(SourceRepository sourceRepository) {
+        if (sourceFileCache != null) {
+            sourceFileCache.invalidate(sourceRepository.getPath());
+        }
     }
 
     private Optional<SourceRepository> getByPath(String path) throws ApiException {
-        return resourceManager.getSourceRepositories().stream().filter( i -> i.getPath().equals(path)).findFirst();
+        return sourceRepositoryIndex.findFirst(INDEX_PATH, path);
     }
 
     @Override
     protected void patch(SourceRepository object) throws ApiException {
         resourceManager.updateSourceRepositoryAttributes(object.getId(), object);
+        written(object);
+        sourceRepositoryIndex.merge(object);
+    }
+
+    @Override
+    protected boolean isMemoizedInWorkflow() {
+        return true;
     }
 
     @Override
     public Optional<SourceRepository> getById(String id) throws ApiException {
-        SourceRepository object = resourceManager.getSourceRepository(id);
+        SourceRepository object = readThrough(id, resourceManager::getSourceRepository);
         return object == null ? Optional.empty() : Optional.of(object);
     }
 
@@ -269,7 +291,10 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
             throw new IllegalArgumentException("filepath is null or empty");
         }
 
-        return sourceManagerClient.getFile(sourceRepository.getPath(), branch, filepath);
+        if (sourceFileCache == null) {
+            return sourceManagerClient.getFile(sourceRepository.getPath(), branch, filepath);
+        }
+        return sourceFileCache.get(sourceRepository.getPath(), branch, filepath, () -> sourceManagerClient.getFile(sourceRepository.getPath(), branch, filepath));
     }
 
     public List<SourceRepositoryCommit> getCommits(SourceRepository sourceRepository, String branch) throws ApiException {
@@ -287,6 +312,7 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
 
     public void delete(SourceRepository sourceRepository, boolean purge) throws ApiException {
         try {
+            flushPatches(sourceRepository.getId());
             SourceRepository sourceRepositoryToDeleted = resourceManager.getSourceRepository(sourceRepository.getId());
             if (isDeleted(sourceRepositoryToDeleted)) {
                 return;
@@ -295,6 +321,8 @@ public class SourceRepositoryService extends AbstractResourceService<SourceRepos
                 sourceManagerClient.deleteSourceRepository(sourceRepositoryToDeleted.getPath());
             }
             resourceManager.deleteSourceRepository(sourceRepository.getId());
+            invalidate(sourceRepository.getId());
+            sourceRepositoryIndex.remove(sourceRepository.getId());
             sourceRepository.status(Resource.StatusEnum.DELETED);
         } catch (ApiException e) {
             manageError(sourceRepository, e);
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.apiversion;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class ApiSpecTest {
+
+    private static final String SPEC = "swagger: '2.0'\ninfo:\n  title: api\n  x-groupId: org.kathra\n  version: 1.0.0\n";
+
+    @Test
+    public void given_spec_without_artifactName_when_withArtifactName_then_insert_before_groupId() throws Exception {
+        File file = File.createTempFile("spec-", ".yaml");
+        FileUtils.writeStringToFile(file, SPEC, StandardCharsets.UTF_8);
+
+        ApiSpec apiSpec = ApiSpec.read(file).withArtifactName("mycomponent");
+
+        Assertions.assertEquals("swagger: '2.0'\ninfo:\n  title: api\n  x-artifactName: mycomponent\n  x-groupId: org.kathra\n  version: 1.0.0\n", apiSpec.asString());
+        Assertions.assertEquals(SPEC.length() + apiSpec.size(), apiSpec.getAllocatedBytes());
+        file.delete();
+    }
+
+    @Test
+    public void given_written_spec_when_of_then_return_shared_instance_until_release() throws Exception {
+        File file = File.createTempFile("spec-", ".yaml");
+        FileUtils.writeStringToFile(file, SPEC, StandardCharsets.UTF_8);
+        File permanentFile = new File(file.getParentFile(), "AppManager-Swagger_" + file.getName() + File.separator + ApiVersionService.API_FILENAME);
+
+        ApiSpec apiSpec = ApiSpec.read(file);
+        apiSpec.writeTo(permanentFile);
+
+        Assertions.assertSame(apiSpec, ApiSpec.of(permanentFile));
+        Assertions.assertEquals(SPEC, FileUtils.readFileToString(permanentFile, StandardCharsets.UTF_8));
+        ApiSpec.release(permanentFile);
+        Assertions.assertNotSame(apiSpec, ApiSpec.of(permanentFile));
+        FileUtils.deleteDirectory(permanentFile.getParentFile());
+        file.delete();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.apiversion;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class SpecStoreTest {
+
+    private File root;
+    private File upload;
+    private SpecStore underTest;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        root = new File(System.getProperty("java.io.tmpdir"), "spec-store-" + UUID.randomUUID());
+        upload = File.createTempFile("spec-", ".yaml");
+        FileUtils.writeStringToFile(upload, "info:\n  x-groupId: org.kathra\n", StandardCharsets.UTF_8);
+        underTest = SpecStore.forRoot(root).quota(40, 200);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root);
+        upload.delete();
+    }
+
+    @Test
+    public void given_same_content_when_acquire_then_stored_once_and_referenced_twice() throws Exception {
+        File first = underTest.acquire(ApiSpec.read(upload));
+        File second = underTest.acquire(ApiSpec.read(upload));
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(ApiVersionService.API_FILENAME, first.getName());
+        Assertions.assertEquals(2, underTest.getReferences(first));
+        Assertions.assertEquals(upload.length(), underTest.getUsedBytes());
+    }
+
+    @Test
+    public void given_released_spec_when_collect_then_file_deleted() throws Exception {
+        File file = underTest.acquire(ApiSpec.read(upload));
+        underTest.release(file);
+        underTest.release(file);
+        underTest.collect();
+
+        Assertions.assertFalse(file.exists());
+        Assertions.assertEquals(0, underTest.getUsedBytes());
+    }
+
+    @Test
+    public void given_quota_exceeded_when_acquire_then_throws_IllegalStateException() throws Exception {
+        underTest.acquire(ApiSpec.read(upload));
+        FileUtils.writeStringToFile(upload, "info:\n  x-groupId: org.kathra.other\n", StandardCharsets.UTF_8);
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> underTest.acquire(ApiSpec.read(upload)));
+        Assertions.assertTrue(exception.getMessage().startsWith("Spec store quota exceeded"));
+    }
+
+    @Test
+    public void given_foreign_directory_under_root_when_collect_then_kept() throws Exception {
+        File foreign = new File(root, "other-tool" + File.separator + "data.txt");
+        FileUtils.writeStringToFile(foreign, "data", StandardCharsets.UTF_8);
+        File orphan = new File(root, "spec-0123" + File.separator + ApiVersionService.API_FILENAME);
+        FileUtils.writeStringToFile(orphan, "info:\n", StandardCharsets.UTF_8);
+
+        underTest.collect();
+
+        Assertions.assertTrue(foreign.exists());
+        Assertions.assertFalse(orphan.exists());
+    }
+}
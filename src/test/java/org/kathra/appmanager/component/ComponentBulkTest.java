@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.component;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kathra.appmanager.apiversion.ApiVersionService;
+import org.kathra.appmanager.service.WorkQueue;
+import org.kathra.appmanager.service.WorkflowContext;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+import org.kathra.core.model.Group;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author julien.boubechtoula
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ComponentBulkTest {
+
+    static final String GROUP_PATH = "my-team";
+
+    @Mock
+    ComponentService componentService;
+    @Mock
+    ApiVersionService apiVersionService;
+    @Mock
+    KathraSessionManager kathraSessionManager;
+
+    Group group;
+    List<String> apiFilesContent;
+    ComponentBulk underTest;
+
+    private ComponentBulk.Item item(String name, String openApi) {
+        return new ComponentBulk.Item().component(new Component().name(name).putMetadataItem(ComponentService.METADATA_GROUP_PATH, GROUP_PATH)).openApi(openApi);
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        group = new Group().id("group-1").path(GROUP_PATH);
+        apiFilesContent = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(componentService.checkNew(Mockito.any(), Mockito.eq(GROUP_PATH))).thenReturn(group);
+        Mockito.when(componentService.checkNew(Mockito.argThat(component -> component != null && "existing".equals(component.getName())), Mockito.eq(GROUP_PATH))).thenThrow(new IllegalArgumentException("Component already exists"));
+        Mockito.when(componentService.add(Mockito.any(), Mockito.eq(group))).thenAnswer(invocation -> new Component().id("id-" + ((Component) invocation.getArgument(0)).getName()).name(((Component) invocation.getArgument(0)).getName()).status(Resource.StatusEnum.PENDING));
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(componentService).provision(Mockito.any(), Mockito.any());
+        Mockito.when(apiVersionService.checkNew(Mockito.any(File.class), Mockito.anyString())).thenAnswer(invocation -> new ApiVersion()
+                .putMetadataItem(ApiVersionService.METADATA_API_GROUP_ID, "org.kathra")
+                .putMetadataItem(ApiVersionService.METADATA_API_ARTIFACT_NAME, new String(Files.readAllBytes(((File) invocation.getArgument(0)).toPath()), StandardCharsets.UTF_8)));
+        Mockito.when(apiVersionService.create(Mockito.any(Component.class), Mockito.any(File.class), Mockito.any())).thenAnswer(invocation -> {
+            apiFilesContent.add(new String(Files.readAllBytes(((File) invocation.getArgument(1)).toPath()), StandardCharsets.UTF_8));
+            ((Runnable) invocation.getArgument(2)).run();
+            return new ApiVersion().id("api-" + ((Component) invocation.getArgument(0)).getId());
+        });
+        underTest = new ComponentBulk(componentService, apiVersionService, kathraSessionManager, new WorkQueue("bulk-test", 1), 10, 1000);
+    }
+
+    @Test
+    public void given_batch_when_create_then_reject_invalid_items_and_provision_the_others() throws Exception {
+        List<ComponentBulk.Result> results = underTest.create(ImmutableList.of(
+                item("comp-a", "artifact-a"),
+                item("existing", null),
+                item("comp-a", null),
+                new ComponentBulk.Item().component(new Component().name("no-group")),
+                item("comp-b", "artifact-a"),
+                item("comp-c", null)));
+
+        Assertions.assertEquals(6, results.size());
+        Assertions.assertEquals(ComponentBulk.ACCEPTED, results.get(0).getStatus());
+        Assertions.assertEquals("id-comp-a", results.get(0).getComponent().getId());
+        Assertions.assertEquals("Component already exists", results.get(1).getError());
+        Assertions.assertEquals(ComponentBulk.REJECTED, results.get(2).getStatus());
+        Assertions.assertEquals(ComponentBulk.REJECTED, results.get(3).getStatus());
+        Assertions.assertNull(results.get(3).getComponent());
+        Assertions.assertEquals(ComponentBulk.REJECTED, results.get(4).getStatus());
+        Assertions.assertEquals(ComponentBulk.ACCEPTED, results.get(5).getStatus());
+
+        Mockito.verify(componentService, Mockito.times(2)).add(Mockito.any(), Mockito.eq(group));
+        Mockito.verify(componentService, Mockito.timeout(5000)).provision(Mockito.argThat(component -> "id-comp-c".equals(component.getId())), Mockito.any());
+        Mockito.verify(apiVersionService, Mockito.timeout(5000)).create(Mockito.argThat(component -> "id-comp-a".equals(component.getId())), Mockito.any(File.class), Mockito.any());
+        Assertions.assertEquals(ImmutableList.of("artifact-a"), apiFilesContent);
+    }
+
+    @Test
+    public void given_component_in_error_when_create_then_api_version_not_created() throws Exception {
+        Mockito.doNothing().when(componentService).provision(Mockito.any(), Mockito.any());
+        Mockito.when(componentService.getById("id-comp-a")).thenReturn(Optional.of(new Component().id("id-comp-a").status(Resource.StatusEnum.ERROR)));
+
+        underTest.create(ImmutableList.of(item("comp-a", "artifact-a")));
+
+        Mockito.verify(componentService, Mockito.timeout(5000)).getById("id-comp-a");
+        Mockito.verify(apiVersionService, Mockito.after(500).never()).create(Mockito.any(Component.class), Mockito.any(File.class), Mockito.any());
+    }
+
+    @Test
+    public void given_several_items_when_provision_then_each_item_bound_to_its_workflow() throws Exception {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenReturn(session);
+        Map<String, WorkflowContext> opened = new ConcurrentHashMap<>();
+        Map<String, Optional<WorkflowContext>> bound = new ConcurrentHashMap<>();
+        CountDownLatch provisioned = new CountDownLatch(2);
+        Mockito.when(componentService.add(Mockito.any(), Mockito.eq(group))).thenAnswer(invocation -> {
+            Component added = new Component().id("id-" + ((Component) invocation.getArgument(0)).getName()).status(Resource.StatusEnum.PENDING);
+            opened.put(added.getId(), WorkflowContext.open(session, componentService.getWorkflowId(added), 60000));
+            return added;
+        });
+        Mockito.doAnswer(invocation -> {
+            bound.put(((Component) invocation.getArgument(0)).getId(), Optional.ofNullable(WorkflowContext.of(session)));
+            provisioned.countDown();
+            return null;
+        }).when(componentService).provision(Mockito.any(), Mockito.any());
+
+        try {
+            underTest.create(ImmutableList.of(item("comp-a", null), item("comp-b", null)));
+
+            Assertions.assertTrue(provisioned.await(5, TimeUnit.SECONDS));
+            Assertions.assertSame(opened.get("id-comp-a"), bound.get("id-comp-a").orElse(null));
+            Assertions.assertSame(opened.get("id-comp-b"), bound.get("id-comp-b").orElse(null));
+        } finally {
+            opened.keySet().forEach(id -> WorkflowContext.close(componentService.getWorkflowId(new Component().id(id))));
+        }
+    }
+
+    @Test
+    public void given_too_many_items_when_create_then_throw_exception() {
+        List<ComponentBulk.Item> items = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            items.add(item("comp-" + i, null));
+        }
+        assertThrows(IllegalArgumentException.class, () -> underTest.create(items));
+        Mockito.verifyZeroInteractions(componentService);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kathra.core.model.*;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author julien.boubechtoula
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ComponentGraphTest {
+
+    @Mock
+    ComponentService componentService;
+    @Mock
+    KathraSessionManager kathraSessionManager;
+
+    List<String> reads;
+    ComponentGraph underTest;
+
+    private <X extends Resource> ComponentGraph.Batch<X> batch(String type, Map<String, X> resources) {
+        return ids -> {
+            synchronized (reads) {
+                reads.add(type + ids);
+            }
+            return ids.stream().map(resources::get).filter(Objects::nonNull).collect(Collectors.toList());
+        };
+    }
+
+    @BeforeEach
+    public void setUp() throws ApiException {
+        reads = new ArrayList<>();
+        Component component = new Component().id("component-1").name("component")
+                .versions(ImmutableList.of(new ApiVersion().id("api-1")))
+                .libraries(ImmutableList.of(new Library().id("lib-java"), new Library().id("lib-python")))
+                .implementations(ImmutableList.of(new Implementation().id("impl-1")));
+        Mockito.when(componentService.getById("component-1")).thenReturn(Optional.of(component));
+        Mockito.when(componentService.getById("missing")).thenReturn(Optional.empty());
+
+        SourceRepository sharedRepository = new SourceRepository().id("repo-shared");
+        Map<String, ApiVersion> apiVersions = Map.of("api-1", new ApiVersion().id("api-1").name("1.0.0"));
+        Map<String, Library> libraries = Map.of(
+                "lib-java", new Library().id("lib-java").name("java").sourceRepository(sharedRepository).pipeline(new Pipeline().id("pipeline-java")),
+                "lib-python", new Library().id("lib-python").name("python").sourceRepository(new SourceRepository().id("repo-python")));
+        Map<String, Implementation> implementations = Map.of("impl-1", new Implementation().id("impl-1").name("impl")
+                .sourceRepository(sharedRepository).pipeline(new Pipeline().id("pipeline-impl"))
+                .versions(ImmutableList.of(new ImplementationVersion().id("impl-version-1"))));
+        Map<String, ImplementationVersion> implementationVersions = Map.of("impl-version-1", new ImplementationVersion().id("impl-version-1").name("1.0.0"));
+        Map<String, Pipeline> pipelines = Map.of("pipeline-java", new Pipeline().id("pipeline-java").name("java"), "pipeline-impl", new Pipeline().id("pipeline-impl").name("impl"));
+        Map<String, SourceRepository> repositories = Map.of("repo-shared", new SourceRepository().id("repo-shared").name("shared"), "repo-python", new SourceRepository().id("repo-python").name("python"));
+
+        underTest = new ComponentGraph(componentService, batch("apiVersions", apiVersions), batch("libraries", libraries),
+                batch("implementations", implementations), batch("implementationVersions", implementationVersions),
+                batch("pipelines", pipelines), batch("sourceRepositories", repositories), kathraSessionManager);
+    }
+
+    @Test
+    public void given_include_when_relations_then_add_parents_and_reject_unknown() {
+        Assertions.assertEquals(ImmutableSet.of(ComponentGraph.VERSIONS, ComponentGraph.LIBRARIES, ComponentGraph.IMPLEMENTATIONS), ComponentGraph.relations(null));
+        Assertions.assertEquals(ImmutableSet.of(ComponentGraph.LIBRARIES, ComponentGraph.LIBRARIES_PIPELINE), ComponentGraph.relations(" libraries.pipeline "));
+        Assertions.assertEquals(new HashSet<>(ComponentGraph.RELATIONS), ComponentGraph.relations("*"));
+        assertThrows(IllegalArgumentException.class, () -> ComponentGraph.relations("versions,owner"));
+    }
+
+    @Test
+    public void given_all_relations_when_get_then_resolve_tree_and_read_shared_resources_once() throws Exception {
+        Component component = underTest.get("component-1", ComponentGraph.relations("*")).get();
+
+        Assertions.assertEquals("1.0.0", component.getVersions().get(0).getName());
+        Assertions.assertEquals("shared", component.getLibraries().get(0).getSourceRepository().getName());
+        Assertions.assertEquals("java", component.getLibraries().get(0).getPipeline().getName());
+        Assertions.assertEquals("python", component.getLibraries().get(1).getSourceRepository().getName());
+        Assertions.assertEquals("shared", component.getImplementations().get(0).getSourceRepository().getName());
+        Assertions.assertEquals("impl", component.getImplementations().get(0).getPipeline().getName());
+        Assertions.assertEquals("1.0.0", component.getImplementations().get(0).getVersions().get(0).getName());
+
+        // one read per type, each id once
+        Assertions.assertEquals(6, reads.size());
+        Assertions.assertTrue(reads.contains("sourceRepositories[repo-shared, repo-python]"));
+        Assertions.assertTrue(reads.contains("pipelines[pipeline-java, pipeline-impl]"));
+    }
+
+    @Test
+    public void given_selected_relations_when_get_then_only_read_them() throws Exception {
+        Component component = underTest.get("component-1", ComponentGraph.relations("implementations.versions")).get();
+
+        Assertions.assertEquals("1.0.0", component.getImplementations().get(0).getVersions().get(0).getName());
+        Assertions.assertNull(component.getVersions().get(0).getName());
+        Assertions.assertNull(component.getLibraries().get(0).getName());
+        Assertions.assertEquals(ImmutableList.of("implementations[impl-1]", "implementationVersions[impl-version-1]"), reads);
+    }
+
+    @Test
+    public void given_missing_component_when_get_then_return_empty() throws Exception {
+        Assertions.assertTrue(underTest.get("missing", ComponentGraph.relations(null)).isEmpty());
+        Assertions.assertTrue(reads.isEmpty());
+    }
+}
@@ -27,6 +27,8 @@ import org.kathra.core.model.Asset;
 import org.kathra.core.model.Component;
 import org.kathra.core.model.Implementation;
 import org.kathra.core.model.ImplementationVersion;
+import org.kathra.core.model.Pipeline;
+import org.kathra.core.model.SourceRepository;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -90,6 +92,19 @@ public class ImplementationServiceListTest extends ImplementationServiceTest {
 
     }
 
+    @Test
+    public void given_pipeline_and_repository_ids_when_get_owners_then_works() throws Exception {
+        Implementation implem1 = generateImplementationExample(Implementation.LanguageEnum.JAVA).id("1").pipeline(new Pipeline().id("pipeline-1")).sourceRepository(new SourceRepository().id("repository-1"));
+        Implementation implem2 = generateImplementationExample(Implementation.LanguageEnum.PYTHON).id("2").pipeline(null).sourceRepository(null);
+
+        Mockito.when(resourceManager.getImplementations()).thenReturn(ImmutableList.of(implem1, implem2));
+
+        Assertions.assertEquals("1", underTest.getByPipeline("pipeline-1").get(0).getId());
+        Assertions.assertEquals("1", underTest.getBySourceRepository("repository-1").get(0).getId());
+        Assertions.assertTrue(underTest.getByPipeline("pipeline-2").isEmpty());
+        Assertions.assertTrue(underTest.getBySourceRepository(null).isEmpty());
+    }
+
     @Test
     public void when_fill_implementation_with_version_then_works() throws Exception {
 
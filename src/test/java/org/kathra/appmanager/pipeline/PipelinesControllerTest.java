@@ -20,13 +20,18 @@
 package org.kathra.appmanager.pipeline;
 
 import com.google.common.collect.ImmutableList;
+import org.kathra.appmanager.Config;
 import org.kathra.appmanager.implementation.ImplementationService;
+import org.kathra.appmanager.service.ServiceInjection;
 import org.kathra.appmanager.sourcerepository.SourceRepositoryControllerTest;
 import org.kathra.core.model.Build;
 import org.kathra.core.model.Implementation;
 import org.kathra.core.model.Pipeline;
+import org.kathra.resourcemanager.client.ImplementationsClient;
 import org.kathra.utils.ApiException;
 import org.kathra.utils.KathraException;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,6 +44,7 @@ import org.mockito.quality.Strictness;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -74,7 +80,7 @@ public class PipelinesControllerTest {
         Mockito.doReturn(Optional.of(getPipeline())).when(pipelineService).getById(Mockito.eq(PIPELINE_ID));
     }
     private void mockExistingImplementation() throws ApiException {
-        Mockito.doReturn(ImmutableList.of(getImplementation())).when(implementationService).getAll();
+        Mockito.doReturn(ImmutableList.of(getImplementation())).when(implementationService).getByPipeline(PIPELINE_ID);
     }
 
     private Pipeline getPipeline() {
@@ -94,7 +100,7 @@ public class PipelinesControllerTest {
 
     @Test
     public void given_no_authorized_pipeline_when_getBuilds_then_throw_exception() throws ApiException {
-        Mockito.doReturn(ImmutableList.of()).when(implementationService).getAll();
+        Mockito.doReturn(ImmutableList.of()).when(implementationService).getByPipeline(PIPELINE_ID);
         KathraException exception = assertThrows(KathraException.class, () -> underTest.getPipelineBuildsForBranch(PIPELINE_ID, "dev"));
         Assertions.assertEquals("Pipeline's implementation 'pipeline-id' forbidden", exception.getMessage());
         Assertions.assertEquals(KathraException.ErrorCode.FORBIDDEN, exception.getErrorCode());
@@ -108,5 +114,43 @@ public class PipelinesControllerTest {
         Assertions.assertEquals(build, result);
     }
 
+    @Test
+    public void given_pipeline_attached_by_other_caller_when_getBuilds_then_throw_forbidden() throws Exception {
+        KathraSessionManager sessionManager = Mockito.mock(KathraSessionManager.class);
+        ImplementationsClient resourceManager = Mockito.mock(ImplementationsClient.class);
+        ImplementationService implementations = buildIndexedImplementationService(sessionManager, resourceManager);
+        Session alice = new Session().callerName("alice");
+        Session bob = new Session().callerName("bob");
+        Mockito.doAnswer(invocation -> sessionManager.getCurrentSession() == alice ? new ArrayList<>(ImmutableList.of(new Implementation().id("impl-alice").name("impl-alice"))) : new ArrayList<>())
+                .when(resourceManager).getImplementations();
+        Mockito.doReturn(ImmutableList.of()).when(pipelineService).getBuildsByBranch(Mockito.any(), Mockito.eq("dev"));
+        underTest = new PipelinesController(pipelineService, implementations);
+
+        // both partitions loaded before alice attaches the pipeline to her implementation
+        Mockito.doReturn(alice).when(sessionManager).getCurrentSession();
+        Assertions.assertTrue(implementations.getByPipeline(PIPELINE_ID).isEmpty());
+        Mockito.doReturn(bob).when(sessionManager).getCurrentSession();
+        Assertions.assertTrue(implementations.getByPipeline(PIPELINE_ID).isEmpty());
+
+        Mockito.doReturn(alice).when(sessionManager).getCurrentSession();
+        implementations.patch(new Implementation().id("impl-alice").pipeline(getPipeline()));
+        Assertions.assertEquals(ImmutableList.of(), underTest.getPipelineBuildsForBranch(PIPELINE_ID, "dev"));
+
+        Mockito.doReturn(bob).when(sessionManager).getCurrentSession();
+        KathraException exception = assertThrows(KathraException.class, () -> underTest.getPipelineBuildsForBranch(PIPELINE_ID, "dev"));
+        Assertions.assertEquals(KathraException.ErrorCode.FORBIDDEN, exception.getErrorCode());
+    }
+
+    private ImplementationService buildIndexedImplementationService(KathraSessionManager sessionManager, ImplementationsClient resourceManager) {
+        Config config = Mockito.mock(Config.class);
+        Mockito.doReturn(60000L).when(config).getIndexResyncIntervalMs();
+        ServiceInjection serviceInjection = Mockito.mock(ServiceInjection.class);
+        Mockito.doReturn(config).when(serviceInjection).getConfig();
+        Mockito.doReturn(sessionManager).when(serviceInjection).getSessionManager();
+        Mockito.doReturn(resourceManager).when(serviceInjection).getClient(Mockito.eq(ImplementationsClient.class), Mockito.any());
+        ImplementationService implementations = new ImplementationService();
+        implementations.configure(serviceInjection);
+        return implementations;
+    }
 
 }
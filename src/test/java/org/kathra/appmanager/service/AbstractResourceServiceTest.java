@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kathra.appmanager.Config;
+import org.kathra.core.model.Component;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * @author julien.boubechtoula
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AbstractResourceServiceTest {
+
+    @Mock
+    Config config;
+    @Mock
+    KathraSessionManager kathraSessionManager;
+
+    AtomicInteger running;
+    AtomicInteger maxRunning;
+    ConcurrentHashMap<String, AtomicInteger> loadCounts;
+    AbstractResourceService<Component> underTest;
+
+    @BeforeEach
+    public void setUp() {
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+        loadCounts = new ConcurrentHashMap<>();
+        Mockito.when(config.getFetchConcurrency()).thenReturn(2);
+        Mockito.when(config.getEntityCacheSize()).thenReturn(10);
+        Mockito.when(config.getEntityCacheTtlMs()).thenReturn(60000L);
+        underTest = new AbstractResourceService<Component>() {
+            @Override
+            protected void patch(Component object) {
+            }
+
+            @Override
+            public Optional<Component> getById(String id) throws ApiException {
+                return Optional.ofNullable(readThrough(id, this::load));
+            }
+
+            private Component load(String id) {
+                loadCounts.computeIfAbsent(id, i -> new AtomicInteger()).incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                if (id.startsWith("failing")) {
+                    throw new IllegalStateException("Unable to load " + id);
+                }
+                return id.startsWith("missing") ? null : new Component().id(id);
+            }
+
+            @Override
+            public List<Component> getAll() {
+                return ImmutableList.of();
+            }
+        };
+        underTest.configure(new ServiceInjection(config, kathraSessionManager));
+    }
+
+    @Test
+    public void given_ids_with_duplicates_when_getByIds_then_return_found_resources_in_order() throws Exception {
+        List<Component> result = underTest.getByIds(ImmutableList.of("3", "1", "missing-1", "2", "1", "4"));
+
+        Assertions.assertEquals(ImmutableList.of("3", "1", "2", "4"), result.stream().map(Component::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(1, loadCounts.get("1").get());
+        Assertions.assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void given_cached_resources_when_getByIds_then_only_fetch_missing_ones() throws Exception {
+        underTest.getById("1");
+        underTest.getByIds(ImmutableList.of("1", "2"));
+
+        Assertions.assertEquals(1, loadCounts.get("1").get());
+        Assertions.assertEquals(1, loadCounts.get("2").get());
+    }
+
+    @Test
+    public void given_failing_id_when_getAvailableByIds_then_skip_only_failing_resource() throws Exception {
+        List<Component> result = underTest.getAvailableByIds(ImmutableList.of("1", "failing-1", "2", "3"));
+
+        Assertions.assertEquals(ImmutableList.of("1", "2", "3"), result.stream().map(Component::getId).collect(Collectors.toList()));
+        Assertions.assertThrows(IllegalStateException.class, () -> underTest.getByIds(ImmutableList.of("4", "failing-2")));
+    }
+
+    @Test
+    public void given_workers_when_getByIds_then_restore_session_of_worker_threads() throws Exception {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenAnswer(invocation -> Thread.currentThread().getName().startsWith("resource-fetch") ? null : session);
+
+        underTest.getByIds(ImmutableList.of("1", "2", "3"));
+
+        Mockito.verify(kathraSessionManager, Mockito.atLeastOnce()).handleSession(session);
+        Mockito.verify(kathraSessionManager, Mockito.atLeastOnce()).handleSession(null);
+    }
+}
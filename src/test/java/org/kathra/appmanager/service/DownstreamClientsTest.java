@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.appmanager.service.resilience.CircuitBreaker;
+import org.kathra.appmanager.service.resilience.Downstream;
+import org.kathra.utils.ApiException;
+import org.kathra.utils.KathraSessionManager;
+import org.mockito.Mockito;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class DownstreamClientsTest {
+
+    public static class FakeClient {
+        final String url;
+        final KathraSessionManager sessionManager;
+
+        public FakeClient(String url) {
+            this(url, null);
+        }
+
+        public FakeClient(String url, KathraSessionManager sessionManager) {
+            this.url = url;
+            this.sessionManager = sessionManager;
+        }
+
+        public String call(int code) throws ApiException {
+            if (code >= 300) {
+                throw new ApiException(code, "error " + code);
+            }
+            return "ok";
+        }
+    }
+
+    public static class NestedClient {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        public NestedClient(String url) {
+        }
+
+        public String getItem(int code) throws ApiException {
+            return getItemWithHttpInfo(code);
+        }
+
+        public String getItemWithHttpInfo(int code) throws ApiException {
+            attempts.incrementAndGet();
+            if (code >= 300) {
+                throw new ApiException(code, "error " + code);
+            }
+            return "ok";
+        }
+    }
+
+    @Test
+    public void given_same_url_and_session_manager_when_get_then_return_shared_client() {
+        KathraSessionManager sessionManager = Mockito.mock(KathraSessionManager.class);
+        long reused = Metrics.get("downstream.resourcemanager.client-instance-shared");
+
+        FakeClient first = DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", sessionManager);
+        FakeClient second = DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", sessionManager);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertSame(sessionManager, first.sessionManager);
+        Assertions.assertEquals(reused + 1, Metrics.get("downstream.resourcemanager.client-instance-shared"));
+    }
+
+    @Test
+    public void given_another_url_or_session_manager_when_get_then_return_another_client() {
+        KathraSessionManager sessionManager = Mockito.mock(KathraSessionManager.class);
+        FakeClient client = DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", sessionManager);
+
+        Assertions.assertNotSame(client, DownstreamClients.get(FakeClient.class, "http://sourcemanager/api/v1", sessionManager));
+        Assertions.assertNotSame(client, DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", Mockito.mock(KathraSessionManager.class)));
+        Assertions.assertNull(DownstreamClients.get(FakeClient.class, "http://codegen/api/v1", null).sessionManager);
+    }
+
+    @Test
+    public void given_released_session_manager_when_get_then_its_clients_dropped() {
+        KathraSessionManager sessionManager = Mockito.mock(KathraSessionManager.class);
+        int size = DownstreamClients.size();
+        FakeClient client = DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", sessionManager);
+        Assertions.assertEquals(size + 1, DownstreamClients.size());
+
+        DownstreamClients.release(sessionManager);
+
+        Assertions.assertEquals(size, DownstreamClients.size());
+        Assertions.assertNotSame(client, DownstreamClients.get(FakeClient.class, "http://resourcemanager/api/v1", sessionManager));
+        DownstreamClients.release(sessionManager);
+    }
+
+    @Test
+    public void given_urls_on_same_host_when_getHost_then_distinct_by_port() {
+        Assertions.assertEquals("manager:8080", DownstreamClients.getHost("http://manager:8080/api/v1"));
+        Assertions.assertEquals("manager", DownstreamClients.getHost("http://manager/api/v1"));
+        Assertions.assertNotEquals(DownstreamClients.getHost("http://manager:8080/api"), DownstreamClients.getHost("http://manager:8081/api"));
+    }
+
+    @Test
+    public void given_failing_downstream_when_call_client_then_circuit_open() throws Exception {
+        FakeClient client = DownstreamClients.get(FakeClient.class, "http://failingmanager/api/v1", null);
+        Assertions.assertEquals("ok", client.call(200));
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertThrows(ApiException.class, () -> client.call(500));
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, Downstream.getStates().get("failingmanager"));
+        Assertions.assertEquals(Downstream.SERVICE_UNAVAILABLE, Assertions.assertThrows(ApiException.class, () -> client.call(200)).getCode());
+    }
+
+    @Test
+    public void given_client_method_calling_another_when_call_fails_then_nested_call_not_retried() throws Exception {
+        NestedClient client = DownstreamClients.get(NestedClient.class, "http://nestedmanager/api/v1", null);
+
+        Assertions.assertEquals("ok", client.getItem(200));
+        Assertions.assertEquals(1, client.attempts.get());
+
+        client.attempts.set(0);
+        Assertions.assertThrows(ApiException.class, () -> client.getItem(503));
+        // 3 attempts at most, 9 if the nested call was retried by each attempt
+        Assertions.assertTrue(client.attempts.get() <= 3);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class ETagRoutesTest {
+
+    @Test
+    public void given_body_and_fields_when_etag_then_return_quoted_validator_of_the_body() throws Exception {
+        String etag = ETagRoutes.etag(ImmutableList.of(new Component().id("1").name("comp-a")), null);
+        Assertions.assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        Assertions.assertEquals(etag, ETagRoutes.etag(ImmutableList.of(new Component().id("1").name("comp-a")), null));
+        Assertions.assertNotEquals(etag, ETagRoutes.etag(ImmutableList.of(new Component().id("1").name("comp-renamed")), null));
+        Assertions.assertNotEquals(etag, ETagRoutes.etag(ImmutableList.of(new Component().id("1").name("comp-a")), "id,name"));
+        Assertions.assertNull(ETagRoutes.etag(new ByteArrayInputStream(new byte[0]), null));
+        Assertions.assertNull(ETagRoutes.etag(null, null));
+    }
+
+    @Test
+    public void given_nested_resource_changed_when_etag_then_etag_changed() throws Exception {
+        Component component = new Component().id("1").name("comp-a");
+        component.setVersions(ImmutableList.of(new ApiVersion().id("api-1").name("1.0.0")));
+        String etag = ETagRoutes.etag(component, null);
+        component.setVersions(ImmutableList.of(new ApiVersion().id("api-1").name("1.0.1")));
+
+        Assertions.assertNotEquals(etag, ETagRoutes.etag(component, null));
+    }
+
+    @Test
+    public void given_if_none_match_when_matches_then_compare_each_etag() {
+        Assertions.assertTrue(ETagRoutes.matches("\"a1\"", "\"a1\""));
+        Assertions.assertTrue(ETagRoutes.matches("\"b2\", W/\"a1\"", "\"a1\""));
+        Assertions.assertTrue(ETagRoutes.matches("*", "\"a1\""));
+        Assertions.assertFalse(ETagRoutes.matches("\"b2\"", "\"a1\""));
+        Assertions.assertFalse(ETagRoutes.matches(null, "\"a1\""));
+        Assertions.assertFalse(ETagRoutes.matches("\"a1\"", null));
+    }
+}
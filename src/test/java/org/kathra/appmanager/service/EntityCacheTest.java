@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class EntityCacheTest {
+
+    EntityCache<Component> underTest;
+    AtomicInteger loadCount;
+
+    @BeforeEach
+    public void setUp() {
+        underTest = new EntityCache<>("Component", 10, 60000);
+        loadCount = new AtomicInteger();
+    }
+
+    private Component load(String id) {
+        loadCount.incrementAndGet();
+        return new Component().id(id).name("component " + id);
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void given_cached_entity_when_get_then_return_copy_without_loading() throws Exception {
+        Component first = underTest.get("user", "1", this::load);
+        Component second = underTest.get("user", "1", this::load);
+
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals("component 1", second.getName());
+        Assertions.assertNotSame(first, second);
+        second.setName("modified");
+        Assertions.assertEquals("component 1", underTest.get("user", "1", this::load).getName());
+    }
+
+    @Test
+    public void given_cached_entity_when_invalidate_then_reload() throws Exception {
+        underTest.get("user", "1", this::load);
+        underTest.get("another-user", "1", this::load);
+        underTest.invalidate("1");
+        underTest.get("user", "1", this::load);
+
+        Assertions.assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void given_concurrent_loads_when_get_then_loaded_once() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Component> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return underTest.get("user", "1", id -> {
+                    loading.countDown();
+                    awaitQuietly(release);
+                    return load(id);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        loading.await();
+        CompletableFuture<Component> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return underTest.get("user", "1", this::load);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        release.countDown();
+
+        Assertions.assertEquals("1", first.get().getId());
+        Assertions.assertEquals("1", second.get().getId());
+        Assertions.assertEquals(1, loadCount.get());
+    }
+}
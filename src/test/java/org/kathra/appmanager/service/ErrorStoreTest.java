@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.utils.ApiException;
+
+import java.util.List;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class ErrorStoreTest {
+
+    private Exception error(String message) {
+        return new IllegalStateException(message);
+    }
+
+    @Test
+    public void given_same_stack_when_record_then_detail_deduplicated() {
+        ErrorStore underTest = new ErrorStore(10, 10, 10);
+        ErrorStore.Detail first = null;
+        for (int i = 0; i < 3; i++) {
+            ErrorStore.Detail detail = underTest.record("resource-" + i, error("error of resource " + i));
+            first = first == null ? detail : first;
+            Assertions.assertSame(first, detail);
+        }
+
+        Assertions.assertEquals(1, underTest.size());
+        Assertions.assertEquals(3, first.getCount());
+        Assertions.assertEquals("IllegalStateException", first.getCode());
+        Assertions.assertTrue(first.getStackTrace().contains("error of resource 0"));
+        Assertions.assertEquals(first, underTest.getDetail(first.getFingerprint()).get());
+        Assertions.assertEquals(16, first.getFingerprint().length());
+    }
+
+    @Test
+    public void given_many_errors_when_record_then_keep_last_occurrences_per_resource() {
+        ErrorStore underTest = new ErrorStore(10, 10, 3);
+        for (int i = 0; i < 5; i++) {
+            underTest.record("resource-1", error("attempt " + i));
+        }
+
+        List<ErrorStore.Occurrence> occurrences = underTest.getOccurrences("resource-1");
+        Assertions.assertEquals(3, occurrences.size());
+        Assertions.assertEquals("attempt 4", occurrences.get(0).getMessage());
+        Assertions.assertEquals("attempt 2", occurrences.get(2).getMessage());
+        Assertions.assertTrue(underTest.getOccurrences("unknown").isEmpty());
+    }
+
+    @Test
+    public void given_limits_when_record_then_evict_least_recently_used() {
+        ErrorStore underTest = new ErrorStore(2, 2, 3);
+        ErrorStore.Detail first = underTest.record("resource-1", error("first"));
+        underTest.record("resource-2", new ApiException(500, "second"));
+        underTest.record("resource-3", new RuntimeException("third"));
+
+        Assertions.assertEquals(2, underTest.size());
+        Assertions.assertFalse(underTest.getDetail(first.getFingerprint()).isPresent());
+        Assertions.assertTrue(underTest.getOccurrences("resource-1").isEmpty());
+        Assertions.assertEquals("HTTP-500", underTest.getOccurrences("resource-2").get(0).getCode());
+    }
+
+    @Test
+    public void given_owner_when_get_visible_occurrences_then_return_them_to_allowed_callers_only() {
+        ErrorStore underTest = new ErrorStore(10, 10, 3);
+        underTest.record("resource-1", id -> true, error("visible"));
+        underTest.record("resource-2", id -> false, error("hidden"));
+        underTest.record("resource-3", id -> {
+            throw new ApiException(403, "forbidden");
+        }, error("forbidden"));
+        underTest.record("resource-4", error("no owner"));
+
+        Assertions.assertEquals("visible", underTest.getVisibleOccurrences("resource-1").get(0).getMessage());
+        Assertions.assertTrue(underTest.getVisibleOccurrences("resource-2").isEmpty());
+        Assertions.assertTrue(underTest.getVisibleOccurrences("resource-3").isEmpty());
+        Assertions.assertTrue(underTest.getVisibleOccurrences("resource-4").isEmpty());
+        Assertions.assertTrue(underTest.getVisibleOccurrences("unknown").isEmpty());
+    }
+
+    @Test
+    public void given_owners_when_get_visible_detail_then_return_it_if_one_resource_is_readable() {
+        ErrorStore underTest = new ErrorStore(10, 10, 3);
+        Exception exception = error("hidden");
+        ErrorStore.Detail hidden = underTest.record("resource-1", id -> false, exception);
+        Assertions.assertFalse(underTest.getVisibleDetail(hidden.getFingerprint()).isPresent());
+        Assertions.assertTrue(underTest.getDetail(hidden.getFingerprint()).isPresent());
+
+        Assertions.assertSame(hidden, underTest.record("resource-2", id -> true, exception));
+        Assertions.assertSame(hidden, underTest.getVisibleDetail(hidden.getFingerprint()).get());
+
+        ErrorStore.Detail noOwner = underTest.record("resource-3", new RuntimeException("no owner"));
+        Assertions.assertFalse(underTest.getVisibleDetail(noOwner.getFingerprint()).isPresent());
+        Assertions.assertFalse(underTest.getVisibleDetail("unknown").isPresent());
+    }
+}
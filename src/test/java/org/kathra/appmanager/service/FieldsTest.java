@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class FieldsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Response as serialized by the REST binding
+     */
+    private JsonNode write(Fields fields, Object body) throws Exception {
+        return mapper.readTree(mapper.writeValueAsString(fields.write(body)));
+    }
+
+    private Component component() {
+        Component component = new Component().id("component-1").name("component").description("description")
+                .putMetadataItem("groupPath", "/kathra/team")
+                .putMetadataItem("error-stack-trace", "java.lang.IllegalStateException ...");
+        component.setVersions(ImmutableList.of(new ApiVersion().id("api-1").name("1.0.0").putMetadataItem("error-stack-trace", "...")));
+        return component;
+    }
+
+    @Test
+    public void given_no_fields_when_prune_then_return_compact_view() throws Exception {
+        JsonNode pruned = write(Fields.of(null), component());
+
+        Assertions.assertEquals("description", pruned.get("description").asText());
+        Assertions.assertEquals("/kathra/team", pruned.get("metadata").get("groupPath").asText());
+        Assertions.assertFalse(pruned.get("metadata").has("error-stack-trace"));
+        Assertions.assertFalse(pruned.get("versions").get(0).get("metadata").has("error-stack-trace"));
+    }
+
+    @Test
+    public void given_all_fields_when_prune_then_return_heavy_metadata() throws Exception {
+        JsonNode pruned = write(Fields.of("*"), ImmutableList.of(component()));
+
+        Assertions.assertTrue(pruned.get(0).get("metadata").has("error-stack-trace"));
+        Assertions.assertTrue(pruned.get(0).get("versions").get(0).get("metadata").has("error-stack-trace"));
+    }
+
+    @Test
+    public void given_fields_when_prune_page_then_return_selected_fields_of_items() throws Exception {
+        JsonNode pruned = write(Fields.of("id, versions.id,metadata.groupPath"), new Page<>(ImmutableList.of(component()), "cursor", 3));
+
+        Assertions.assertEquals("cursor", pruned.get("nextCursor").asText());
+        Assertions.assertEquals(3, pruned.get("total").asInt());
+        JsonNode item = pruned.get("items").get(0);
+        Assertions.assertEquals(3, item.size());
+        Assertions.assertTrue(item.has("id") && item.has("metadata") && item.has("versions"));
+        Assertions.assertEquals(1, item.get("metadata").size());
+        Assertions.assertEquals(1, item.get("versions").get(0).size());
+        Assertions.assertEquals("api-1", item.get("versions").get(0).get("id").asText());
+    }
+
+    @Test
+    public void given_heavy_key_named_when_prune_then_return_it() throws Exception {
+        JsonNode pruned = write(Fields.of("metadata.error-stack-trace,versions.metadata"), component());
+
+        Assertions.assertTrue(pruned.get("metadata").has("error-stack-trace"));
+        Assertions.assertFalse(pruned.get("metadata").has("groupPath"));
+        Assertions.assertFalse(pruned.get("versions").get(0).get("metadata").has("error-stack-trace"));
+    }
+
+    @Test
+    public void given_no_heavy_metadata_when_compact_view_then_nothing_to_prune() throws Exception {
+        Component component = new Component().id("component-1").putMetadataItem("groupPath", "/kathra/team");
+        component.setVersions(ImmutableList.of(new ApiVersion().id("api-1")));
+
+        Assertions.assertTrue(Fields.of(null).isCompact());
+        Assertions.assertFalse(Fields.of("id").isCompact());
+        Assertions.assertFalse(Fields.hasHeavyMetadata(new Page<>(ImmutableList.of(component), null, 1)));
+        component.setVersions(ImmutableList.of(new ApiVersion().id("api-1").putMetadataItem("error-stack-trace", "...")));
+        Assertions.assertTrue(Fields.hasHeavyMetadata(ImmutableList.of(component)));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class JoinsTest {
+
+    private List<ApiVersion> apiVersions(int count) {
+        List<ApiVersion> apiVersions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            apiVersions.add(new ApiVersion().id("api-" + i).name("1.0." + i).component(new Component().id("component-" + (i % (count / 2 + 1)))));
+        }
+        return apiVersions;
+    }
+
+    private List<Component> components(int count) {
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            components.add(new Component().id("component-" + i).name("component-" + i));
+        }
+        return components;
+    }
+
+    private List<ApiVersion> nestedLoop(List<ApiVersion> apiVersions, List<Component> components) {
+        return apiVersions.stream().filter(apiVersion -> components.stream().anyMatch(component -> apiVersion.getComponent().getId().equals(component.getId()))).collect(Collectors.toList());
+    }
+
+    private static String componentId(ApiVersion apiVersion) {
+        return apiVersion.getComponent() == null ? null : apiVersion.getComponent().getId();
+    }
+
+    @Test
+    public void given_rows_when_semiJoin_then_return_probe_rows_having_match() {
+        List<ApiVersion> apiVersions = ImmutableList.of(
+                new ApiVersion().id("api-1").component(new Component().id("component-1")),
+                new ApiVersion().id("api-2").component(new Component().id("component-2")),
+                new ApiVersion().id("api-3").component(new Component().id("component-1")),
+                new ApiVersion().id("api-4"));
+        List<Component> components = ImmutableList.of(new Component().id("component-1"), new Component());
+
+        List<ApiVersion> result = Joins.semiJoin(apiVersions, JoinsTest::componentId, components, Component::getId);
+
+        Assertions.assertEquals(ImmutableList.of("api-1", "api-3"), result.stream().map(ApiVersion::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void given_rows_when_antiJoin_then_return_probe_rows_without_match() {
+        List<String> tokens = new ArrayList<>(ImmutableList.of("/a", "/b", "/c"));
+        tokens.add(null);
+        List<Component> components = ImmutableList.of(new Component().name("/b"), new Component());
+
+        Assertions.assertEquals(Arrays.asList("/a", "/c", null), Joins.antiJoin(tokens, token -> token, components, Component::getName));
+        Assertions.assertTrue(Joins.antiJoin(null, token -> token, components, Component::getName).isEmpty());
+    }
+
+    @Test
+    public void given_rows_when_index_and_group_then_first_row_wins_and_rows_keep_order() {
+        List<ApiVersion> apiVersions = ImmutableList.of(
+                new ApiVersion().id("api-1").component(new Component().id("component-1")),
+                new ApiVersion().id("api-2").component(new Component().id("component-1")),
+                new ApiVersion().id("api-3"));
+
+        Map<String, ApiVersion> index = Joins.index(apiVersions, JoinsTest::componentId);
+        Map<String, List<ApiVersion>> groups = Joins.group(apiVersions, JoinsTest::componentId);
+
+        Assertions.assertEquals(1, index.size());
+        Assertions.assertEquals("api-1", index.get("component-1").getId());
+        Assertions.assertEquals(1, groups.size());
+        Assertions.assertEquals(ImmutableList.of("api-1", "api-2"), groups.get("component-1").stream().map(ApiVersion::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void given_failing_key_extractor_when_join_then_exception_propagated() {
+        List<ApiVersion> apiVersions = ImmutableList.of(new ApiVersion().id("api-1"));
+
+        Assertions.assertThrows(NullPointerException.class, () -> Joins.semiJoin(apiVersions, apiVersion -> apiVersion.getComponent().getId(), ImmutableList.<Component>of(), Component::getId));
+    }
+
+    /**
+     * Benchmark : nested loop vs hash join, nested loop is only measured up to 10k rows. Timings are published to the
+     * test report, the benchmark is excluded from the default run.
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmark_nested_loop_vs_hash_join(TestReporter reporter) {
+        for (int count : new int[]{1000, 10000, 100000}) {
+            List<ApiVersion> apiVersions = apiVersions(count);
+            List<Component> components = components(count / 4);
+            // warm-up
+            Joins.semiJoin(apiVersions, apiVersion -> apiVersion.getComponent().getId(), components, Component::getId);
+
+            long start = System.nanoTime();
+            List<ApiVersion> hashed = Joins.semiJoin(apiVersions, apiVersion -> apiVersion.getComponent().getId(), components, Component::getId);
+            long hashJoin = System.nanoTime() - start;
+
+            String nestedLoopTime = "skipped";
+            if (count <= 10000) {
+                start = System.nanoTime();
+                List<ApiVersion> nested = nestedLoop(apiVersions, components);
+                nestedLoopTime = (System.nanoTime() - start) / 1000 + " us";
+                Assertions.assertEquals(nested, hashed);
+            }
+            reporter.publishEntry("join of " + count + " x " + components.size() + " rows", "hash join " + hashJoin / 1000 + " us, nested loop " + nestedLoopTime);
+            Assertions.assertFalse(hashed.isEmpty());
+        }
+    }
+}
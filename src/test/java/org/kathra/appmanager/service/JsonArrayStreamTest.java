@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.kathra.core.model.ApiVersion;
+import org.kathra.core.model.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class JsonArrayStreamTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<Component> components(int count) {
+        List<Component> components = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Component component = new Component().id("component-" + i).name("component-" + i).description("description of the component " + i);
+            component.setVersions(new LinkedList<>(ImmutableList.of(new ApiVersion().id("api-" + i).name("1.0." + i))));
+            components.add(component);
+        }
+        return components;
+    }
+
+    private long drain(InputStream stream) throws IOException {
+        byte[] chunk = new byte[8192];
+        long total = 0;
+        for (int read = stream.read(chunk); read >= 0; read = stream.read(chunk)) {
+            total += read;
+        }
+        return total;
+    }
+
+    @Test
+    public void given_elements_when_read_stream_then_return_json_array() throws Exception {
+        List<Component> components = components(3);
+        JsonNode parsed = mapper.readTree(JsonArrayStream.of(components));
+
+        Assertions.assertTrue(parsed.isArray());
+        Assertions.assertEquals(3, parsed.size());
+        Assertions.assertEquals("component-2", parsed.get(2).get("id").asText());
+        Assertions.assertEquals("api-2", parsed.get(2).get("versions").get(0).get("id").asText());
+        Assertions.assertEquals("[]", new String(mapper.writeValueAsBytes(mapper.readTree(JsonArrayStream.of(new ArrayList<>())))));
+    }
+
+    @Test
+    public void given_producer_when_read_stream_then_each_element_completed_once_read() throws Exception {
+        List<String> produced = new ArrayList<>();
+        JsonArrayStream<Component> stream = new JsonArrayStream<>(components(3).iterator(), component -> {
+            produced.add(component.getId());
+            return component;
+        });
+        Assertions.assertTrue(produced.isEmpty());
+        stream.read();
+        stream.read();
+        Assertions.assertEquals(ImmutableList.of("component-0"), produced);
+        drain(stream);
+        Assertions.assertEquals(3, produced.size());
+    }
+
+    /**
+     * Benchmark : bytes allocated per element, streamed vs serialized at once. Allocation counts depend on the JVM and
+     * on the JIT state, so the figures are only published to the test report and the benchmark is excluded from the
+     * default run.
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmark_allocation_per_element(TestReporter reporter) throws Exception {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final int count = 20000;
+        List<Component> components = components(count);
+        // warm-up
+        drain(JsonArrayStream.of(components));
+        mapper.writeValueAsBytes(components);
+
+        long start = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long size = drain(JsonArrayStream.of(components));
+        long streamed = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+        start = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        byte[] whole = mapper.writeValueAsBytes(components);
+        long atOnce = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+        Assertions.assertEquals(whole.length, size);
+        reporter.publishEntry("streamed B/element", String.valueOf(streamed / count));
+        reporter.publishEntry("at once B/element", String.valueOf(atOnce / count));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.Component;
+import org.kathra.core.model.Resource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class ListQueryTest {
+
+    private Component component(String id, String name, String groupPath, Resource.StatusEnum status) {
+        Component component = new Component().id(id).name(name);
+        component.setStatus(status);
+        component.putMetadataItem(ListQuery.FIELD_GROUP_PATH, groupPath);
+        return component;
+    }
+
+    private final List<Component> components = ImmutableList.of(
+            component("1", "comp-c", "/kathra/a", Resource.StatusEnum.READY),
+            component("2", "comp-a", "/kathra/a", Resource.StatusEnum.READY),
+            component("3", "comp-b", "/kathra/b", Resource.StatusEnum.ERROR),
+            component("4", "comp-b", "/kathra/a", Resource.StatusEnum.READY),
+            component("5", "comp-e", "/kathra/a", Resource.StatusEnum.PENDING));
+
+    private List<String> ids(Page<Component> page) {
+        return page.getItems().stream().map(Component::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void given_limit_when_follow_cursors_then_return_all_resources_sorted_once() {
+        List<String> all = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>(ImmutableMap.of(ListQuery.PARAM_LIMIT, "2"));
+        Page<Component> page;
+        do {
+            page = ListQuery.of(parameters).apply(components, ListQuery.resourceFields());
+            Assertions.assertTrue(page.getItems().size() <= 2);
+            Assertions.assertEquals(5, page.getTotal());
+            all.addAll(ids(page));
+            parameters.put(ListQuery.PARAM_CURSOR, page.getNextCursor());
+        } while (page.getNextCursor() != null);
+
+        Assertions.assertEquals(ImmutableList.of("2", "3", "4", "1", "5"), all);
+    }
+
+    @Test
+    public void given_filters_and_descending_sort_when_apply_then_return_matching_resources() {
+        Map<String, Object> parameters = ImmutableMap.of(ListQuery.PARAM_SORT, "-name", ListQuery.FIELD_GROUP_PATH, "/kathra/a", ListQuery.FIELD_STATUS, "READY");
+        Page<Component> page = ListQuery.of(parameters).filters(parameters, ListQuery.resourceFields().keySet()).apply(components, ListQuery.resourceFields());
+
+        Assertions.assertEquals(ImmutableList.of("1", "4", "2"), ids(page));
+        Assertions.assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void given_resource_added_between_pages_when_next_page_then_no_resource_repeated() {
+        Page<Component> first = ListQuery.of(ImmutableMap.of(ListQuery.PARAM_LIMIT, "2")).apply(components, ListQuery.resourceFields());
+        List<Component> updated = new ArrayList<>(components);
+        updated.add(component("0", "comp-0", "/kathra/a", Resource.StatusEnum.READY));
+        Page<Component> second = ListQuery.of(ImmutableMap.of(ListQuery.PARAM_LIMIT, "2", ListQuery.PARAM_CURSOR, first.getNextCursor())).apply(updated, ListQuery.resourceFields());
+
+        Assertions.assertEquals(ImmutableList.of("4", "1"), ids(second));
+    }
+
+    @Test
+    public void given_invalid_parameters_when_apply_then_throw_IllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ListQuery.of(ImmutableMap.of(ListQuery.PARAM_LIMIT, "1000")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ListQuery.of(ImmutableMap.of(ListQuery.PARAM_SORT, "unknown")).apply(components, ListQuery.resourceFields()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ListQuery.of(ImmutableMap.of(ListQuery.PARAM_CURSOR, "%%%")).apply(components, ListQuery.resourceFields()));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.Component;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.ApiException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class PatchBufferTest {
+
+    List<Component> written;
+
+    @BeforeEach
+    public void setUp() {
+        written = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    public void given_no_window_when_submit_then_write_immediately() throws Exception {
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 0, written::add, null);
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.READY));
+        underTest.submit(new Component().id("1").title("title"));
+
+        Assertions.assertEquals(2, written.size());
+    }
+
+    @Test
+    public void given_patches_within_window_when_flush_then_write_merged_patch_once() throws Exception {
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 60000, written::add, null);
+        long merged = Metrics.get("patch-buffer.Component.merged");
+
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.UPDATING).putMetadataItem("a", "1"));
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.READY));
+        underTest.submit(new Component().id("1").title("title").putMetadataItem("b", "2"));
+        underTest.submit(new Component().id("2").title("other"));
+        Assertions.assertTrue(written.isEmpty());
+
+        underTest.flush("1");
+
+        Assertions.assertEquals(1, written.size());
+        Component patch = written.get(0);
+        Assertions.assertEquals("1", patch.getId());
+        Assertions.assertEquals(Resource.StatusEnum.READY, patch.getStatus());
+        Assertions.assertEquals("title", patch.getTitle());
+        Assertions.assertEquals("1", patch.getMetadata().get("a"));
+        Assertions.assertEquals("2", patch.getMetadata().get("b"));
+        Assertions.assertEquals(merged + 2, Metrics.get("patch-buffer.Component.merged"));
+
+        underTest.flushAll();
+        Assertions.assertEquals(2, written.size());
+        Assertions.assertEquals(0, underTest.getPendingCount());
+    }
+
+    @Test
+    public void given_short_window_when_wait_then_written_in_background() throws Exception {
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 10, written::add, null);
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.READY));
+
+        for (int i = 0; i < 100 && written.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, written.size());
+    }
+
+    @Test
+    public void given_empty_value_within_window_when_flush_then_empty_value_kept() throws Exception {
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 60000, written::add, null);
+        underTest.submit(new Component().id("1").title("title"));
+        underTest.submit(new Component().id("1").title(""));
+
+        underTest.flush("1");
+
+        Assertions.assertEquals("", written.get(0).getTitle());
+    }
+
+    @Test
+    public void given_failing_write_in_background_then_failure_reported() throws Exception {
+        List<Component> failed = new CopyOnWriteArrayList<>();
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 10, patch -> {
+            throw new ApiException("resource manager unavailable");
+        }, (patch, exception) -> failed.add(patch), null);
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.READY));
+
+        for (int i = 0; i < 100 && failed.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, failed.size());
+        Assertions.assertEquals("1", failed.get(0).getId());
+    }
+
+    @Test
+    public void given_failing_flush_when_flush_again_then_patch_still_written() throws Exception {
+        AtomicBoolean available = new AtomicBoolean(false);
+        PatchBuffer<Component> underTest = new PatchBuffer<>("Component", 60000, patch -> {
+            if (!available.get()) {
+                throw new ApiException("resource manager unavailable");
+            }
+            written.add(patch);
+        }, null);
+        underTest.submit(new Component().id("1").status(Resource.StatusEnum.READY));
+
+        Assertions.assertThrows(ApiException.class, () -> underTest.flush("1"));
+        Assertions.assertEquals(1, underTest.getPendingCount());
+
+        underTest.submit(new Component().id("1").name("component"));
+        available.set(true);
+        underTest.flush("1");
+        Assertions.assertEquals(1, written.size());
+        Assertions.assertEquals(Resource.StatusEnum.READY, written.get(0).getStatus());
+        Assertions.assertEquals("component", written.get(0).getName());
+        Assertions.assertEquals(0, underTest.getPendingCount());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kathra.core.model.Component;
+import org.kathra.core.model.Resource;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ResourceIndexTest {
+
+    @Mock
+    KathraSessionManager kathraSessionManager;
+
+    AtomicInteger loadCount;
+    ResourceIndex<Component> underTest;
+
+    @BeforeEach
+    public void setUp() {
+        loadCount = new AtomicInteger();
+        underTest = new ResourceIndex<Component>("Component", () -> {
+            loadCount.incrementAndGet();
+            return ImmutableList.of(new Component().id("1").name("comp-a"), new Component().id("2").name("comp-b"));
+        }, kathraSessionManager, 60000).addKey("name", Component::getName);
+    }
+
+    @Test
+    public void given_loaded_index_when_find_then_collection_loaded_once() throws Exception {
+        Assertions.assertEquals("1", underTest.findFirst("name", "comp-a").get().getId());
+        Assertions.assertEquals("2", underTest.findFirst("name", "comp-b").get().getId());
+        Assertions.assertFalse(underTest.exists("name", "comp-c"));
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void given_loaded_index_when_put_merge_remove_then_lookups_are_updated() throws Exception {
+        underTest.find("name", "comp-a");
+        underTest.put(new Component().id("3").name("comp-c"));
+        Assertions.assertTrue(underTest.exists("name", "comp-c"));
+
+        Component patch = new Component().id("1").name("comp-renamed");
+        patch.setStatus(Resource.StatusEnum.ERROR);
+        underTest.merge(patch);
+        Assertions.assertFalse(underTest.exists("name", "comp-a"));
+        Assertions.assertEquals(Resource.StatusEnum.ERROR, underTest.findFirst("name", "comp-renamed").get().getStatus());
+
+        underTest.remove("2");
+        Assertions.assertFalse(underTest.exists("name", "comp-b"));
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void given_two_callers_when_put_then_resource_only_added_to_writer_partition() throws Exception {
+        Session alice = new Session().callerName("alice");
+        Session bob = new Session().callerName("bob");
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenReturn(alice);
+        underTest.find("name", "comp-a");
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenReturn(bob);
+        underTest.find("name", "comp-a");
+
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenReturn(alice);
+        underTest.put(new Component().id("3").name("comp-c"));
+        underTest.merge(new Component().id("1").name("comp-renamed"));
+        Assertions.assertTrue(underTest.exists("name", "comp-c"));
+
+        Mockito.when(kathraSessionManager.getCurrentSession()).thenReturn(bob);
+        Assertions.assertFalse(underTest.exists("name", "comp-c"));
+        Assertions.assertTrue(underTest.exists("name", "comp-renamed"));
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void given_loaded_index_when_find_then_return_copies() throws Exception {
+        underTest.findFirst("name", "comp-a").get().setName("modified");
+        Component patch = new Component().id("2").name("comp-b");
+        patch.setStatus(Resource.StatusEnum.READY);
+        Component found = underTest.findFirst("name", "comp-b").get();
+        underTest.merge(patch);
+
+        Assertions.assertEquals("comp-a", underTest.findFirst("name", "comp-a").get().getName());
+        Assertions.assertNull(found.getStatus());
+        Assertions.assertEquals(Resource.StatusEnum.READY, underTest.findFirst("name", "comp-b").get().getStatus());
+    }
+
+    @Test
+    public void given_no_resync_interval_when_find_then_collection_reloaded() throws Exception {
+        ResourceIndex<Component> index = new ResourceIndex<Component>("Component", () -> {
+            loadCount.incrementAndGet();
+            return ImmutableList.of();
+        }, kathraSessionManager, 0).addKey("name", Component::getName);
+        index.find("name", "comp-a");
+        index.find("name", "comp-a");
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void given_same_content_when_resync_then_version_unchanged() throws Exception {
+        ResourceIndex<Component> index = new ResourceIndex<Component>("Component", () -> {
+            loadCount.incrementAndGet();
+            return ImmutableList.of(new Component().id("1").name("comp-a"));
+        }, kathraSessionManager, 0);
+        String version = index.version();
+        Assertions.assertEquals(version, index.version());
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void given_write_or_new_content_when_version_then_version_changed() throws Exception {
+        String version = underTest.version();
+        underTest.merge(new Component().id("1").name("comp-renamed"));
+        String afterWrite = underTest.version();
+        Assertions.assertNotEquals(version, afterWrite);
+
+        ResourceIndex<Component> index = new ResourceIndex<Component>("Component", () -> ImmutableList.of(new Component().id("1").name("comp-" + loadCount.incrementAndGet())), kathraSessionManager, 0);
+        Assertions.assertNotEquals(index.version(), index.version());
+    }
+
+    @Test
+    public void given_same_content_in_other_index_when_version_then_same_version() throws Exception {
+        ResourceIndex<Component> index = new ResourceIndex<Component>("Component", () -> ImmutableList.of(new Component().id("1").name("comp-a"), new Component().id("2").name("comp-b")), kathraSessionManager, 60000);
+        ResourceIndex<Component> other = new ResourceIndex<Component>("Component", () -> ImmutableList.of(new Component().id("2").name("comp-b"), new Component().id("1").name("comp-a")), kathraSessionManager, 60000);
+        String version = index.version();
+        Assertions.assertEquals(version, other.version());
+
+        index.merge(new Component().id("1").name("comp-renamed"));
+        Assertions.assertNotEquals(version, index.version());
+        index.merge(new Component().id("1").name("comp-a"));
+        Assertions.assertEquals(version, index.version());
+    }
+
+    @Test
+    public void given_null_part_when_compositeKey_then_return_null() {
+        Assertions.assertNull(ResourceIndex.compositeKey("group", null));
+        Assertions.assertEquals(ResourceIndex.compositeKey("a", "b"), ResourceIndex.compositeKey("a", "b"));
+        Assertions.assertNotEquals(ResourceIndex.compositeKey("a", "b"), ResourceIndex.compositeKey("ab", ""));
+    }
+
+    @Test
+    public void given_loaded_index_when_page_then_return_copies() throws Exception {
+        Page<Component> page = underTest.page(ListQuery.of(null), ListQuery.resourceFields());
+        Assertions.assertEquals(2, page.getTotal());
+        page.getItems().get(0).setName("modified");
+
+        Assertions.assertTrue(underTest.exists("name", "comp-a"));
+        Assertions.assertEquals("comp-a", underTest.findFirst("name", "comp-a").get().getName());
+    }
+}
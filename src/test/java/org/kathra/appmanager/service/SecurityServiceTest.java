@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kathra.utils.KathraSessionManager;
+import org.kathra.utils.Session;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class SecurityServiceTest {
+
+    @Mock
+    KathraSessionManager sessionManager;
+    @Mock
+    Session session;
+
+    AtomicInteger fetchCount;
+
+    private SecurityService securityService(long maxTtlMs) {
+        return new SecurityService(sessionManager, maxTtlMs, 100) {
+            @Override
+            protected Object fetchUserInfo(String token, UserInformation userInformation) {
+                fetchCount.incrementAndGet();
+                return ImmutableList.of("/kathra/" + token.length());
+            }
+        };
+    }
+
+    private String jwt(long expSeconds) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"sub\":\"user\",\"exp\":" + expSeconds + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    @BeforeEach
+    public void setUp() {
+        fetchCount = new AtomicInteger();
+        Mockito.when(sessionManager.getCurrentSession()).thenReturn(session);
+    }
+
+    @Test
+    public void given_valid_token_when_getUserInfo_twice_then_fetch_once() throws Exception {
+        Mockito.when(session.getAccessToken()).thenReturn(jwt(System.currentTimeMillis() / 1000 + 300));
+        SecurityService underTest = securityService(60000);
+
+        Object groups = underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        Assertions.assertEquals(groups, underTest.getUserInfo(SecurityService.UserInformation.GROUPS));
+        Assertions.assertEquals(1, fetchCount.get());
+
+        Mockito.when(session.getAccessToken()).thenReturn(jwt(System.currentTimeMillis() / 1000 + 600));
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void given_expired_or_opaque_token_when_getUserInfo_then_fetch_each_time() throws Exception {
+        SecurityService underTest = securityService(60000);
+        Mockito.when(session.getAccessToken()).thenReturn(jwt(System.currentTimeMillis() / 1000 - 10));
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        Mockito.when(session.getAccessToken()).thenReturn("opaque-token");
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        Assertions.assertEquals(4, fetchCount.get());
+    }
+
+    @Test
+    public void given_cache_disabled_when_getUserInfo_then_fetch_each_time() throws Exception {
+        Mockito.when(session.getAccessToken()).thenReturn(jwt(System.currentTimeMillis() / 1000 + 300));
+        SecurityService underTest = securityService(0);
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        underTest.getUserInfo(SecurityService.UserInformation.GROUPS);
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    public void given_jwt_when_getExpiration_then_return_exp_in_ms() {
+        Assertions.assertEquals(1700000000000L, SecurityService.getExpiration(jwt(1700000000L)));
+        Assertions.assertEquals(0, SecurityService.getExpiration("opaque"));
+        Assertions.assertEquals(0, SecurityService.getExpiration("a.%%%.b"));
+        Assertions.assertEquals(0, SecurityService.getExpiration(null));
+    }
+}
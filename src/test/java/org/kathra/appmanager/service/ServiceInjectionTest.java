@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class ServiceInjectionTest {
+
+    public static class ServiceA implements Injectable {
+        ServiceB serviceB;
+
+        public void configure(ServiceInjection serviceInjection) {
+            serviceB = serviceInjection.getService(ServiceB.class);
+        }
+    }
+
+    public static class ServiceB implements Injectable {
+        ServiceA serviceA;
+
+        public void configure(ServiceInjection serviceInjection) {
+            serviceA = serviceInjection.getService(ServiceA.class);
+        }
+    }
+
+    @Test
+    public void given_cyclic_services_when_getService_then_return_singletons() {
+        ServiceInjection underTest = new ServiceInjection(null, null);
+
+        ServiceA serviceA = underTest.getService(ServiceA.class);
+
+        Assertions.assertSame(serviceA, serviceA.serviceB.serviceA);
+        Assertions.assertSame(serviceA.serviceB, underTest.getService(ServiceB.class));
+        Assertions.assertEquals(2, underTest.getServicesCount());
+    }
+
+    @Test
+    public void given_concurrent_callers_when_getService_then_return_configured_singleton() {
+        ServiceInjection underTest = new ServiceInjection(null, null);
+
+        List<ServiceA> services = IntStream.range(0, 16)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> underTest.getService(ServiceA.class)))
+                .collect(Collectors.toList())
+                .stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        services.forEach(service -> {
+            Assertions.assertSame(services.get(0), service);
+            Assertions.assertNotNull(service.serviceB);
+        });
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kathra.core.model.Library;
+import org.kathra.core.model.Resource;
+import org.kathra.core.model.SourceRepository;
+import org.kathra.utils.Session;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class WorkflowContextTest {
+
+    Session session;
+    WorkflowContext underTest;
+    AtomicInteger loadCount;
+
+    @BeforeEach
+    public void setUp() {
+        session = new Session();
+        underTest = WorkflowContext.open(session, "component test", 60000);
+        loadCount = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        WorkflowContext.close("component test");
+        WorkflowContext.unbind();
+    }
+
+    private Library load(String id) {
+        loadCount.incrementAndGet();
+        Library library = new Library().name("library " + id);
+        library.setId(id);
+        library.setStatus(Resource.StatusEnum.PENDING);
+        return library;
+    }
+
+    @Test
+    public void given_opened_context_when_of_then_return_same_context() {
+        Assertions.assertSame(underTest, WorkflowContext.of(session));
+        Assertions.assertSame(underTest, WorkflowContext.open(session, "component test", 60000));
+        Assertions.assertNull(WorkflowContext.of(new Session()));
+        Assertions.assertNull(WorkflowContext.open(null, "no session", 60000));
+    }
+
+    @Test
+    public void given_memoized_resource_when_read_then_not_loaded_again() throws Exception {
+        underTest.read("Library", "1", this::load);
+        Library library = underTest.read("Library", "1", this::load);
+
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals("library 1", library.getName());
+    }
+
+    @Test
+    public void given_workflow_write_when_read_then_return_merged_resource() throws Exception {
+        underTest.read("Library", "1", this::load);
+        Library patch = new Library().sourceRepository(new SourceRepository().path("group/library"));
+        patch.setId("1");
+        patch.setStatus(Resource.StatusEnum.READY);
+        underTest.write("Library", patch);
+
+        Library library = underTest.read("Library", "1", this::load);
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals(Resource.StatusEnum.READY, library.getStatus());
+        Assertions.assertEquals("library 1", library.getName());
+        Assertions.assertEquals("group/library", library.getSourceRepository().getPath());
+    }
+
+    @Test
+    public void given_closed_context_when_of_then_return_null() {
+        WorkflowContext.close("component test");
+        Assertions.assertNull(WorkflowContext.of(session));
+    }
+
+    @Test
+    public void given_two_workflows_on_session_when_one_closed_then_other_still_opened() {
+        WorkflowContext other = WorkflowContext.open(session, "apiVersion test", 60000);
+        Assertions.assertNotSame(underTest, other);
+        Assertions.assertNull(WorkflowContext.of(session));
+
+        WorkflowContext.bind("apiVersion test");
+        Assertions.assertSame(other, WorkflowContext.of(session));
+        WorkflowContext.unbind();
+
+        WorkflowContext.close("apiVersion test");
+        Assertions.assertSame(underTest, WorkflowContext.of(session));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.utils.ApiException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void given_failure_rate_reached_when_tryAcquire_then_circuit_open_and_fail_fast() {
+        List<String> transitions = new ArrayList<>();
+        CircuitBreaker underTest = new CircuitBreaker("test", 50, 4, 4, 60000, 1).addListener((from, to) -> transitions.add(from + "->" + to));
+        underTest.onSuccess();
+        underTest.onFailure();
+        underTest.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, underTest.getState());
+        underTest.onFailure();
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, underTest.getState());
+        Assertions.assertFalse(underTest.tryAcquire());
+        Assertions.assertEquals(1, transitions.size());
+        Assertions.assertEquals("CLOSED->OPEN", transitions.get(0));
+    }
+
+    @Test
+    public void given_open_circuit_after_duration_when_probes_succeed_then_circuit_closed() {
+        CircuitBreaker underTest = new CircuitBreaker("test", 50, 2, 1, 0, 2);
+        underTest.onFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, underTest.getState());
+
+        Assertions.assertTrue(underTest.tryAcquire());
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, underTest.getState());
+        Assertions.assertTrue(underTest.tryAcquire());
+        Assertions.assertFalse(underTest.tryAcquire());
+        underTest.onSuccess();
+        underTest.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, underTest.getState());
+    }
+
+    @Test
+    public void given_half_open_circuit_when_probe_fails_then_circuit_open_again() {
+        CircuitBreaker underTest = new CircuitBreaker("test", 50, 2, 1, 0, 2);
+        underTest.onFailure();
+        Assertions.assertTrue(underTest.tryAcquire());
+        underTest.onFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, underTest.getState());
+    }
+
+    @Test
+    public void given_downstream_when_call_fails_with_client_error_then_circuit_stays_closed() throws Throwable {
+        Downstream underTest = new Downstream("test", new Downstream.Settings().circuitBreaker(50, 2, 1, 60000, 1));
+        ApiException notFound = Assertions.assertThrows(ApiException.class, () -> underTest.call(() -> {
+            throw new ApiException(404, "not found");
+        }));
+        Assertions.assertEquals(404, notFound.getCode());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, underTest.getCircuitBreaker().getState());
+
+        Assertions.assertThrows(ApiException.class, () -> underTest.call(() -> {
+            throw new ApiException(500, "error");
+        }));
+        ApiException rejected = Assertions.assertThrows(ApiException.class, () -> underTest.call(() -> "never called"));
+        Assertions.assertEquals(Downstream.SERVICE_UNAVAILABLE, rejected.getCode());
+        Assertions.assertEquals(0, underTest.getBulkhead().getActiveCalls());
+    }
+
+    @Test
+    public void given_full_bulkhead_when_call_then_rejected_without_waiting() throws Throwable {
+        Downstream underTest = new Downstream("test", new Downstream.Settings().bulkhead(1, 0));
+        String result = underTest.call(() -> {
+            ApiException rejected = Assertions.assertThrows(ApiException.class, () -> underTest.call(() -> "nested"));
+            Assertions.assertEquals(Downstream.SERVICE_UNAVAILABLE, rejected.getCode());
+            return "done";
+        });
+        Assertions.assertEquals("done", result);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, underTest.getCircuitBreaker().getState());
+    }
+}
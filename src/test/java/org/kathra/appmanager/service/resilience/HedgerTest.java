@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.appmanager.service.Metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class HedgerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private String slowFirstCall() throws InterruptedException {
+        if (calls.incrementAndGet() == 1) {
+            Thread.sleep(2000);
+            return "primary";
+        }
+        return "hedge";
+    }
+
+    @Test
+    public void given_known_latencies_when_call_is_late_then_hedge_fired_and_won() throws Throwable {
+        Hedger underTest = new Hedger("hedged-host", 95, 100);
+        for (int i = 0; i < 64; i++) {
+            underTest.recordLatency(5);
+        }
+        Assertions.assertEquals(5, underTest.getHedgeDelayMs());
+        long fired = Metrics.get("downstream.hedged-host.hedge.fired");
+
+        long start = System.currentTimeMillis();
+        Assertions.assertEquals("hedge", underTest.call(this::slowFirstCall));
+
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+        Assertions.assertEquals(fired + 1, Metrics.get("downstream.hedged-host.hedge.fired"));
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void given_unknown_latencies_when_call_then_not_hedged() throws Throwable {
+        Hedger underTest = new Hedger("unhedged-host", 95, 100);
+        Assertions.assertEquals(-1, underTest.getHedgeDelayMs());
+        Assertions.assertEquals("ok", underTest.call(() -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(0, Metrics.get("downstream.unhedged-host.hedge.fired"));
+    }
+
+    @Test
+    public void given_call_that_cant_be_hedged_when_call_then_run_in_caller_thread() throws Throwable {
+        Hedger underTest = new Hedger("caller-thread-host", 95, 100);
+        final Thread caller = Thread.currentThread();
+        Assertions.assertSame(caller, underTest.call(Thread::currentThread));
+    }
+
+    @Test
+    public void given_both_requests_failing_when_call_then_throw_error() {
+        Hedger underTest = new Hedger("failing-host", 50, 100);
+        for (int i = 0; i < 64; i++) {
+            underTest.recordLatency(1);
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> underTest.call(() -> {
+            Thread.sleep(50);
+            throw new IllegalStateException("unavailable");
+        }));
+    }
+}
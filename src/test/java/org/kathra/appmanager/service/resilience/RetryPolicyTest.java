@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.service.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kathra.utils.ApiException;
+
+import java.net.ConnectException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class RetryPolicyTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private Downstream.Call<String> failing(int failures, int code) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new ApiException(code, "error " + code);
+            }
+            return "ok";
+        };
+    }
+
+    @Test
+    public void given_server_errors_when_call_then_retried_until_success() throws Throwable {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10));
+        Assertions.assertEquals("ok", underTest.call("test", failing(2, 500)));
+        Assertions.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void given_client_error_when_call_then_not_retried() {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10));
+        ApiException exception = Assertions.assertThrows(ApiException.class, () -> underTest.call("test", failing(1, 404)));
+        Assertions.assertEquals(404, exception.getCode());
+        Assertions.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void given_not_modified_when_call_then_given_back_not_retried() {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10));
+        int notModified = 304;
+        Assertions.assertEquals(RetryPolicy.Outcome.FATAL, underTest.classify(new ApiException(notModified, "not modified")));
+        Assertions.assertEquals(notModified, Assertions.assertThrows(ApiException.class, () -> underTest.call("test", failing(1, notModified))).getCode());
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertFalse(Downstream.isFailure(new ApiException(notModified, "not modified")));
+    }
+
+    @Test
+    public void given_exhausted_budget_when_call_then_not_retried() {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(0, 0));
+        Assertions.assertThrows(ApiException.class, () -> underTest.call("test", failing(1, 503)));
+        Assertions.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void given_classified_exception_class_when_classify_then_most_specific_class_wins() {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10))
+                .classify(IllegalStateException.class, e -> RetryPolicy.Outcome.RETRYABLE);
+        Assertions.assertTrue(underTest.isRetryable(new IllegalStateException()));
+        Assertions.assertFalse(underTest.isRetryable(new IllegalArgumentException()));
+        Assertions.assertFalse(underTest.isRetryable(new DownstreamUnavailableException("circuit open")));
+        Assertions.assertTrue(underTest.isRetryable(new ApiException(502, "bad gateway")));
+    }
+
+    @Test
+    public void given_attempt_when_getDelay_then_full_jitter_under_exponential_ceiling() {
+        RetryPolicy underTest = new RetryPolicy(10, 100, 1000, new RetryPolicy.RetryBudget(100, 10));
+        for (int i = 0; i < 100; i++) {
+            long first = underTest.getDelay(1);
+            long third = underTest.getDelay(3);
+            long tenth = underTest.getDelay(10);
+            Assertions.assertTrue(first >= 0 && first <= 100);
+            Assertions.assertTrue(third >= 0 && third <= 400);
+            Assertions.assertTrue(tenth >= 0 && tenth <= 1000);
+        }
+    }
+
+    @Test
+    public void given_server_error_on_creation_when_call_then_not_retried() {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10));
+        Assertions.assertThrows(ApiException.class, () -> underTest.call("test", false, failing(1, 500)));
+        Assertions.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void given_connection_refused_on_creation_when_call_then_retried() throws Throwable {
+        RetryPolicy underTest = new RetryPolicy(3, 1, 5, new RetryPolicy.RetryBudget(100, 10));
+        Downstream.Call<String> refusedOnce = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ApiException(new ConnectException("Connection refused"));
+            }
+            return "ok";
+        };
+        Assertions.assertEquals("ok", underTest.call("test", false, refusedOnce));
+        Assertions.assertEquals(2, attempts.get());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020. The Kathra Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *    IRT SystemX (https://www.kathra.org/)
+ *
+ */
+package org.kathra.appmanager.sourcerepository;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author julien.boubechtoula
+ */
+public class SourceFileCacheTest {
+
+    private File root;
+    private AtomicInteger downloads;
+    private SourceFileCache underTest;
+
+    @BeforeEach
+    public void setUp() {
+        root = new File(System.getProperty("java.io.tmpdir"), "source-file-cache-" + UUID.randomUUID());
+        downloads = new AtomicInteger();
+        underTest = SourceFileCache.forRoot(root).limits(1024, 0).grace(0);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root);
+    }
+
+    private File download(String content) throws Exception {
+        downloads.incrementAndGet();
+        File file = File.createTempFile("download-", ".tmp");
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void given_tag_when_get_twice_then_downloaded_once() throws Exception {
+        File first = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("spec"));
+        File second = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("spec"));
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals("swagger.yaml", first.getName());
+        Assertions.assertEquals("spec", FileUtils.readFileToString(second, StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, downloads.get());
+        Assertions.assertEquals(1, underTest.getHits());
+    }
+
+    @Test
+    public void given_branch_without_ttl_when_get_twice_then_downloaded_twice() throws Exception {
+        underTest.get("A/B", "dev", "swagger.yaml", () -> download("spec"));
+        underTest.get("A/B", "dev", "swagger.yaml", () -> download("spec"));
+
+        Assertions.assertEquals(2, downloads.get());
+    }
+
+    @Test
+    public void given_cache_full_when_get_then_least_recently_used_evicted() throws Exception {
+        String content = new String(new char[600]).replace('\0', 'x');
+        File first = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download(content));
+        File second = underTest.get("A/B", "1.0.1", "swagger.yaml", () -> download(content));
+
+        Assertions.assertFalse(first.exists());
+        Assertions.assertTrue(second.exists());
+        Assertions.assertEquals(600, underTest.getUsedBytes());
+    }
+
+    @Test
+    public void given_repository_invalidated_when_get_tag_then_downloaded_again() throws Exception {
+        underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("spec"));
+        underTest.invalidate("A/B");
+        File second = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("retagged spec"));
+
+        Assertions.assertEquals(2, downloads.get());
+        Assertions.assertEquals("retagged spec", FileUtils.readFileToString(second, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void given_file_handed_out_when_evicted_then_kept_during_grace_period() throws Exception {
+        underTest.grace(60000);
+        File first = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("spec"));
+        underTest.invalidate("A/B");
+        File second = underTest.get("A/B", "1.0.0", "swagger.yaml", () -> download("retagged spec"));
+
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertEquals("spec", FileUtils.readFileToString(first, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void given_files_left_by_earlier_process_when_cache_created_then_deleted() throws Exception {
+        File otherRoot = new File(System.getProperty("java.io.tmpdir"), "source-file-cache-" + UUID.randomUUID());
+        try {
+            File orphan = new File(otherRoot, UUID.randomUUID() + File.separator + "swagger.yaml");
+            File unrelated = new File(otherRoot, "unrelated" + File.separator + "file.txt");
+            FileUtils.writeStringToFile(orphan, "spec", StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(unrelated, "content", StandardCharsets.UTF_8);
+
+            SourceFileCache.forRoot(otherRoot);
+
+            Assertions.assertFalse(orphan.getParentFile().exists());
+            Assertions.assertTrue(unrelated.exists());
+        } finally {
+            FileUtils.deleteDirectory(otherRoot);
+        }
+    }
+}
@@ -75,7 +75,7 @@ public class SourceRepositoryControllerTest {
         Mockito.doReturn(Optional.of(getRepository())).when(sourceRepositoryService).getById(Mockito.eq(REPOSITORY_ID));
     }
     private void mockExistingImplementation() throws ApiException {
-        Mockito.doReturn(ImmutableList.of(getImplementation())).when(implementationService).getAll();
+        Mockito.doReturn(ImmutableList.of(getImplementation())).when(implementationService).getBySourceRepository(REPOSITORY_ID);
     }
 
     private SourceRepository getRepository() {
@@ -97,7 +97,7 @@ public class SourceRepositoryControllerTest {
     public void given_no_authorized_repository_when_getAll_then_throw_exception() throws ApiException {
         List<String> branchsExisting = ImmutableList.of("master","dev");
         Mockito.doReturn(branchsExisting).when(sourceRepositoryService).getBranchs(Mockito.argThat(srcRepository -> srcRepository.getId().equals(REPOSITORY_ID)));
-        Mockito.doReturn(ImmutableList.of()).when(implementationService).getAll();
+        Mockito.doReturn(ImmutableList.of()).when(implementationService).getBySourceRepository(REPOSITORY_ID);
         KathraException exception = assertThrows(KathraException.class, () -> {
             underTest.getRepositoryBranches(REPOSITORY_ID);
         });
@@ -126,7 +126,7 @@ public class SourceRepositoryControllerTest {
     public void given_no_authorized_repository_when_getRepositoryCommitsForBranch_then_throw_exception() throws ApiException {
         ImmutableList<SourceRepositoryCommit> expected = ImmutableList.of(getCommit("123456"), getCommit("987654"));
         Mockito.doReturn(expected).when(sourceRepositoryService).getCommits(Mockito.argThat(srcRepository -> srcRepository.getId().equals(REPOSITORY_ID)), Mockito.eq("dev"));
-        Mockito.doReturn(ImmutableList.of()).when(implementationService).getAll();
+        Mockito.doReturn(ImmutableList.of()).when(implementationService).getBySourceRepository(REPOSITORY_ID);
         KathraException exception = assertThrows(KathraException.class, () -> {
             underTest.getRepositoryCommitsForBranch(REPOSITORY_ID, "dev");
         });